@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of closing a vote with {@link CAcertVoteMechanics#closeVote()} for electorates of different sizes. The tally is
+ * kept while votes are recorded, so closing should not depend on the size of the electorate. Closing discards the
+ * votes, so every invocation runs on a freshly filled vote; the filling is not measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class CloseVoteBenchmark {
+    private static final String[] WORDS = {"aye", "naye", "abstain"};
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int electorate;
+
+    private CAcertVoteMechanics mechanics;
+    private String[] voters;
+
+    @Setup(Level.Trial)
+    public void createVoters() {
+        voters = new String[electorate];
+        for (int i = 0; i < electorate; i++) {
+            voters[i] = "voter" + i;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fillVote() {
+        mechanics = new CAcertVoteMechanics();
+        mechanics.callVote("benchmark", 3600, 7200);
+        for (int i = 0; i < electorate; i++) {
+            mechanics.evaluateVote(voters[i], WORDS[i % WORDS.length]);
+        }
+        mechanics.stopVote("benchmark");
+    }
+
+    @Benchmark
+    public VoteResult closeVote() {
+        return mechanics.closeVote();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the line protocol: splitting received data into lines and parsing them the way the client's server reader
+ * does, and writing lines through the {@link CRLFPrintWriter} of the blocking transport.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocolBenchmark {
+    private static final String[] RECEIVED = {
+            ":voter1!voter@example.org PRIVMSG #vote :aye",
+            "@time=2026-01-01T12:00:00.000Z :voter2!voter@example.org PRIVMSG #vote :proxy voter3 naye",
+            ":voter4!voter@example.org PRIVMSG #vote :I think we should discuss this first",
+            ":voter5!voter@example.org JOIN #vote",
+            ":irc.example.org 353 votebot = #vote :votebot voter1 voter2 voter3 voter4 voter5",
+            "PING :irc.example.org",
+    };
+
+    /**
+     * Output stream that discards the written bytes, the socket is not part of the measurement.
+     */
+    private static final class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(final int b) {
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    @Param({"true", "false"})
+    public boolean autoFlush;
+
+    private byte[] received;
+    private IRCMessage message;
+    private CRLFPrintWriter writer;
+    private IRCConnection.Handler reader;
+
+    @Setup(Level.Trial)
+    public void setup(final Blackhole blackhole) {
+        received = (String.join("\r\n", RECEIVED) + "\r\n").getBytes(StandardCharsets.UTF_8);
+        message = new IRCMessage();
+        writer = new CRLFPrintWriter(new DiscardingOutputStream(), autoFlush);
+        // reads the parts of a message that the client's server reader looks at
+        reader = new IRCConnection.Handler() {
+            @Override
+            public void lineReceived(final byte[] buffer, final int offset, final int length) {
+                if (message.parse(buffer, offset, length)) {
+                    blackhole.consume(message.getNumeric());
+                    blackhole.consume(message.getCommand());
+                    blackhole.consume(message.getNick());
+                    blackhole.consume(message.getParam(0));
+                    blackhole.consume(message.getTrailing());
+                    blackhole.consume(message.getServerTime());
+                }
+            }
+
+            @Override
+            public void connectionClosed(final IOException cause) {
+            }
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public int parseLines() {
+        return LineSplitter.deliverLines(received, 0, received.length, reader);
+    }
+
+    @Benchmark
+    public void writeLine() {
+        writer.println("PRIVMSG #vote :Thanks voter1 I count your vote as AYE");
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating vote channel messages with {@link CAcertVoteMechanics#evaluateVote(String, String, Instant)}.
+ * The actors rotate through a fixed set of nick names, so the tally grows to a realistic size and then only changes
+ * values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VoteMechanicsBenchmark {
+    private static final int ACTORS = 1024;
+
+    /**
+     * Kind of message sent to the vote channel.
+     */
+    @Param({"vote", "proxy", "bulkProxy", "chatter"})
+    public String kind;
+
+    /**
+     * Whether the voters are checked against an electorate roster of all voters.
+     */
+    @Param({"false", "true"})
+    public boolean roster;
+
+    private CAcertVoteMechanics mechanics;
+    private String[] actors;
+    private String[] messages;
+    private Instant receivedAt;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mechanics = new CAcertVoteMechanics();
+        mechanics.callVote("benchmark", 3600, 7200);
+        receivedAt = Instant.now();
+        if (roster) {
+            final List<String> electorate = new ArrayList<>();
+            for (int i = 0; i < ACTORS; i++) {
+                electorate.addAll(Arrays.asList("voter" + i, "absent" + i, "away" + i, "ill" + i));
+            }
+            mechanics.setElectorate(new Electorate(electorate));
+        }
+        actors = new String[ACTORS];
+        messages = new String[ACTORS];
+        final String[] words = {"aye", "naye", "abstain", "yes", "no", "abs"};
+        for (int i = 0; i < ACTORS; i++) {
+            actors[i] = "voter" + i;
+            switch (kind) {
+                case "vote":
+                    messages[i] = words[i % words.length];
+                    break;
+                case "proxy":
+                    messages[i] = "proxy absent" + i + " " + words[i % words.length];
+                    break;
+                case "bulkProxy":
+                    messages[i] = "proxy absent" + i + ",away" + i + ",ill" + i + " " + words[i % words.length];
+                    break;
+                default:
+                    messages[i] = "I think we should discuss item " + i + " before we vote";
+            }
+        }
+    }
+
+    @Benchmark
+    public String evaluateVote() {
+        final int index = next++ & (ACTORS - 1);
+        return mechanics.evaluateVote(actors[index], messages[index], receivedAt);
+    }
+}
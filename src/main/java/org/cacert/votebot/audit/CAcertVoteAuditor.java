@@ -23,8 +23,11 @@ package org.cacert.votebot.audit;
 
 import org.apache.commons.cli.ParseException;
 import org.cacert.votebot.shared.CAcertVoteMechanics;
+import org.cacert.votebot.shared.ChannelLogger;
 import org.cacert.votebot.shared.IRCBot;
 import org.cacert.votebot.shared.IRCClient;
+import org.cacert.votebot.shared.IRCHealthIndicator;
+import org.cacert.votebot.shared.MessagePacker;
 import org.cacert.votebot.shared.VoteType;
 import org.cacert.votebot.shared.exceptions.IRCClientException;
 import org.slf4j.Logger;
@@ -34,6 +37,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -47,7 +51,9 @@ import java.util.regex.Pattern;
  * @author Felix Doerre
  * @author Jan Dittberner
  */
-@SpringBootApplication(scanBasePackageClasses = {CAcertVoteAuditor.class, IRCClient.class})
+@SpringBootApplication(scanBasePackageClasses = CAcertVoteAuditor.class)
+// only the IRC beans of the shared package, the auditor must not recover, journal or archive votes
+@Import({IRCClient.class, ChannelLogger.class, IRCHealthIndicator.class})
 @Component
 public class CAcertVoteAuditor extends IRCBot implements CommandLineRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(
@@ -91,20 +97,9 @@ public class CAcertVoteAuditor extends IRCBot implements CommandLineRunner {
         if (channel.equals(voteAuxChn)) {
             if (from.equals(toAudit)) {
                 if (counter >= 0) {
-                    capturedResults[counter++] = message;
-
-                    if (counter == capturedResults.length) {
-                        final String[] reals = voteMechanics.closeVote();
-
-                        if (Arrays.equals(reals, capturedResults)) {
-                            LOGGER.info("Audit for vote was successful.");
-                        } else {
-                            LOGGER.warn("Audit failed! Vote Bot (or Auditor) is probably broken.");
-                        }
-
-                        counter = -1;
+                    for (final String part : message.split(Pattern.quote(MessagePacker.SEPARATOR))) {
+                        captureResult(part);
                     }
-
                     return;
                 }
                 if (message.startsWith("New Vote: ")) {
@@ -123,6 +118,12 @@ public class CAcertVoteAuditor extends IRCBot implements CommandLineRunner {
                     LOGGER.info("detected vote-end. Reading results");
 
                     counter = 0;
+
+                    // results may have been merged into the same line as the header, they are the last parts
+                    final String[] parts = message.split(Pattern.quote(MessagePacker.SEPARATOR));
+                    for (int i = Math.max(1, parts.length - capturedResults.length); i < parts.length; i++) {
+                        captureResult(parts[i]);
+                    }
                 }
             } else {
                 if (counter != -1) {
@@ -132,9 +133,28 @@ public class CAcertVoteAuditor extends IRCBot implements CommandLineRunner {
 
                 LOGGER.info("detected vote");
                 voteMechanics.evaluateVote(from, message);
-                final String currentResult = voteMechanics.getCurrentResult();
-                LOGGER.info("Current state: {}", currentResult);
+                LOGGER.info("Current state: {}", voteMechanics.getCurrentResult());
+            }
+        }
+    }
+
+    private void captureResult(final String result) {
+        if (counter < 0) {
+            return;
+        }
+        capturedResults[counter++] = result;
+
+        if (counter == capturedResults.length) {
+            voteMechanics.stopVote(toAudit);
+            final String[] reals = voteMechanics.closeVote().formatCounts();
+
+            if (Arrays.equals(reals, capturedResults)) {
+                LOGGER.info("Audit for vote was successful.");
+            } else {
+                LOGGER.warn("Audit failed! Vote Bot (or Auditor) is probably broken.");
             }
+
+            counter = -1;
         }
     }
 
@@ -179,7 +199,13 @@ public class CAcertVoteAuditor extends IRCBot implements CommandLineRunner {
         try {
             getIrcClient().initializeFromArgs(args).assignBot(this);
 
-            getIrcClient().join(voteAuxChn);
+            getIrcClient().joinAll(voteAuxChn).whenComplete((ignored, failure) -> {
+                if (failure == null) {
+                    LOGGER.info("ready in #{}", voteAuxChn);
+                } else {
+                    LOGGER.error("not ready: {}", failure.getMessage());
+                }
+            });
         } catch (IOException | InterruptedException | ParseException | IRCClientException e) {
             LOGGER.error("error running votebot {}", e.getMessage());
         }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A closed vote as it is kept in the {@link VoteArchive}: its final result and the ballot of every voter.
+ *
+ * @author Jan Dittberner
+ */
+public final class ArchivedVote {
+    private final String id;
+    private final String channel;
+    private final VoteResult result;
+    private final SortedMap<String, VoteType> ballots;
+
+    /**
+     * @param id      id of the vote
+     * @param channel reserved channel of the vote or null if it has been held in the vote channel
+     * @param result  final result
+     * @param ballots vote by voter
+     */
+    ArchivedVote(final String id, final String channel, final VoteResult result, final Map<String, VoteType> ballots) {
+        this.id = id;
+        this.channel = channel;
+        this.result = result;
+        final SortedMap<String, VoteType> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        sorted.putAll(ballots);
+        this.ballots = Collections.unmodifiableSortedMap(sorted);
+    }
+
+    /**
+     * @return id of the vote
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return reserved channel of the vote or null if it has been held in the vote channel
+     */
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return final result
+     */
+    public VoteResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return vote by voter ordered by voter ignoring case
+     */
+    public SortedMap<String, VoteType> getBallots() {
+        return ballots;
+    }
+
+    /**
+     * @param voter voter nick, case is ignored
+     * @return vote of the voter or null if the voter did not vote
+     */
+    public VoteType getVote(final String voter) {
+        return ballots.get(voter);
+    }
+
+    /**
+     * @return UTC day the vote has been called, the days of the archive index match the channel logs
+     */
+    public LocalDate getDay() {
+        return result.getStart().atOffset(ZoneOffset.UTC).toLocalDate();
+    }
+}
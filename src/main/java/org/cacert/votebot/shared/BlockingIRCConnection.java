@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015  Felix Doerre
+ * Copyright (c) 2015  Benny Baumann
+ * Copyright (c) 2016-2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * IRC connection using a blocking socket with a dedicated reader thread.
+ *
+ * @author Felix Doerre
+ * @author Jan Dittberner
+ */
+public class BlockingIRCConnection implements IRCConnection, Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlockingIRCConnection.class);
+
+    private final Socket socket;
+    private final PrintWriter out;
+    private final InputStream in;
+    private final Handler handler;
+    private volatile boolean open = true;
+    private volatile IOException writeError;
+
+    /**
+     * Connect to an IRC server and start the reader thread.
+     *
+     * @param server   host name of the IRC server
+     * @param port     TCP port of the IRC server
+     * @param ssl      whether to use TLS
+     * @param settings socket options
+     * @param handler  receiver of received lines and connection events
+     * @throws IOException if the connection cannot be established
+     */
+    public BlockingIRCConnection(
+            final String server, final int port, final boolean ssl, final IRCConnectionSettings settings,
+            final Handler handler) throws IOException {
+        if (ssl) {
+            socket = SSLSocketFactory.getDefault().createSocket(server, port); //default-ssl = 7000
+        } else {
+            socket = new Socket(server, port); // default-plain = 6667
+        }
+        settings.applyTo(socket);
+
+        this.handler = handler;
+        this.out = new CRLFPrintWriter(socket.getOutputStream(), true);
+        this.in = socket.getInputStream();
+
+        final Thread serverReader = new Thread(this);
+        serverReader.setName("irc-client-thread");
+        serverReader.start();
+    }
+
+    @Override
+    public void sendLine(final String line) {
+        out.println(line);
+        if (out.checkError() && open) {
+            LOGGER.warn("error writing to IRC server");
+            writeError = new IOException("error writing to IRC server");
+            close();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        try {
+            socket.close();
+        } catch (final IOException e) {
+            LOGGER.debug("error closing socket: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void run() {
+        final byte[] buffer = new byte[IRCConnectionSettings.LINE_BUFFER_SIZE];
+        int fill = 0;
+        IOException cause = null;
+
+        try {
+            int read;
+            while ((read = in.read(buffer, fill, buffer.length - fill)) != -1) {
+                fill += read;
+                final int consumed = LineSplitter.deliverLines(buffer, 0, fill, handler);
+                if (consumed == 0 && fill == buffer.length) {
+                    LOGGER.warn("discarding overlong line: {}",
+                            new String(buffer, 0, Math.min(fill, 80), StandardCharsets.UTF_8));
+                    fill = 0;
+                } else if (consumed > 0) {
+                    System.arraycopy(buffer, consumed, buffer, 0, fill - consumed);
+                    fill -= consumed;
+                }
+            }
+            if (open) {
+                cause = new EOFException("connection closed by server");
+            }
+        } catch (final IOException e) {
+            if (open) {
+                cause = e;
+            }
+        } finally {
+            close();
+            handler.connectionClosed(cause != null ? cause : writeError);
+        }
+    }
+}
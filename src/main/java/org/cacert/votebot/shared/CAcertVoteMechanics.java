@@ -21,47 +21,171 @@
 
 package org.cacert.votebot.shared;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.text.MessageFormat;
-import java.util.Calendar;
-import java.util.HashMap;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.ResourceBundle;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents the voting-automate for voting in IRC channels.
+ * <p>
+ * Several votes may run side by side, each in its own {@link VoteSession} with independent timers, tally and state.
+ * Sessions are kept in a concurrent registry keyed by a short session id. A vote in the shared vote channel is routed
+ * to a session by a prefix like "2: aye", or to the only running session if there is no prefix. A session may reserve
+ * a channel instead, then every message in that channel is a vote for the session.
+ * <p>
+ * Votes are recorded without locks, so that many handler threads can record votes in parallel. A vote is counted if
+ * it entered its session before {@link #closeVote(String)} sealed it, {@link #closeVote(String)} waits for these votes
+ * before it reads the counters. Votes that arrive later are rejected.
+ * <p>
+ * The methods without session id operate on the most recently called vote that is still open, they are meant for
+ * callers that run one vote at a time.
  */
 @Component
 public class CAcertVoteMechanics {
-    private static final Pattern PROXY_RE = Pattern.compile("^\\s*proxy\\s.*");
-    private static final int VOTE_MESSAGE_PART_COUNT = 3;
 
-    private State state = State.IDLE;
-    private String topic;
-    private final Map<String, VoteType> votes = new HashMap<>();
+    private final Map<String, VoteSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, VoteSession> channelSessions = new ConcurrentHashMap<>();
+    private final AtomicLong sessionSequence = new AtomicLong();
+    private final Map<String, VoteVocabulary> channelVocabularies = new ConcurrentHashMap<>();
+    private volatile VoteVocabulary vocabulary = VoteVocabulary.getDefault();
+    private volatile Electorate electorate;
     private final ResourceBundle messages = ResourceBundle.getBundle("messages");
+    private final Map<VoteType, Counter> acceptedCounters = new EnumMap<>(VoteType.class);
+    private final Map<VoteType, Counter> proxiedCounters = new EnumMap<>(VoteType.class);
+    private final Counter rejectedCounter;
+    private final Counter repeatedCounter;
+    private final Counter ineligibleCounter;
+    private final Timer evaluateTimer;
+    private final VoteJournal journal;
 
-    public Calendar getWarnTime() {
-        return warnTime;
+    /**
+     * Create vote mechanics that record metrics in a private registry and do not journal votes.
+     */
+    public CAcertVoteMechanics() {
+        this(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Create vote mechanics that do not journal votes.
+     *
+     * @param meterRegistry registry for vote metrics
+     */
+    public CAcertVoteMechanics(final MeterRegistry meterRegistry) {
+        this(meterRegistry, VoteJournal.disabled());
+    }
+
+    /**
+     * @param meterRegistry registry for vote metrics
+     * @param journal       journal for vote events, events are written once {@link #recoverVotes()} has opened it
+     */
+    @Autowired
+    public CAcertVoteMechanics(final MeterRegistry meterRegistry, final VoteJournal journal) {
+        this.journal = journal;
+        for (final VoteType type : VoteType.values()) {
+            acceptedCounters.put(type, voteCounter(meterRegistry, "accepted", type.name()));
+            proxiedCounters.put(type, voteCounter(meterRegistry, "proxied", type.name()));
+        }
+        rejectedCounter = voteCounter(meterRegistry, "rejected", "none");
+        // repeated votes do not change the tally, so they are not counted as accepted or proxied
+        repeatedCounter = voteCounter(meterRegistry, "repeated", "none");
+        ineligibleCounter = voteCounter(meterRegistry, "ineligible", "none");
+        evaluateTimer = Timer.builder("votebot.vote.evaluate")
+                             .description("Time spent evaluating a message in the vote channel")
+                             .register(meterRegistry);
+        for (final State value : State.values()) {
+            Gauge.builder("votebot.vote.state", this, mechanics -> mechanics.getState() == value ? 1 : 0)
+                 .description("1 for the state of the most recent open vote, 0 for the other states")
+                 .tag("state", value.name().toLowerCase(Locale.ENGLISH))
+                 .register(meterRegistry);
+        }
+        Gauge.builder("votebot.vote.sessions", sessions, Map::size)
+             .description("Number of open votes")
+             .register(meterRegistry);
+        Gauge.builder("votebot.vote.voters", this, CAcertVoteMechanics::getTotalVoterCount)
+             .description("Number of voters in all open votes")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Restore the votes that were open when the bot stopped from the journal and start journaling vote events. The
+     * restored votes are returned by {@link #getSessions()}.
+     */
+    public void recoverVotes() {
+        for (final VoteJournal.SessionState state : journal.open()) {
+            final VoteSession session = VoteSession.restore(state);
+            sessions.put(session.getId(), session);
+            if (session.getChannel() != null) {
+                channelSessions.put(channelKey(session.getChannel()), session);
+            }
+            sessionSequence.accumulateAndGet(session.getSequence(), Math::max);
+        }
+        // ids of votes that were closed before the restart are not reused
+        sessionSequence.accumulateAndGet(journal.getRecoveredSequence(), Math::max);
+    }
+
+    private static Counter voteCounter(final MeterRegistry meterRegistry, final String outcome, final String type) {
+        return Counter.builder("votebot.votes")
+                      .description("Messages evaluated as votes")
+                      .tags("outcome", outcome, "type", type)
+                      .register(meterRegistry);
+    }
+
+    private static String channelKey(final String channel) {
+        return channel.toLowerCase(Locale.ENGLISH);
     }
 
-    public Calendar getEndTime() {
-        return endTime;
+    /**
+     * @return the most recently called vote that has not been closed or null if there is none
+     */
+    private VoteSession currentSession() {
+        VoteSession current = null;
+        for (final VoteSession candidate : sessions.values()) {
+            if (candidate.phase() != VoteSession.CLOSED
+                    && (current == null || candidate.getSequence() > current.getSequence())) {
+                current = candidate;
+            }
+        }
+        return current;
     }
 
-    private Calendar warnTime;
-    private Calendar endTime;
-    private boolean warned;
+    /**
+     * @param id session id
+     * @return the open session with the given id or null
+     */
+    public VoteSession getSession(final String id) {
+        return sessions.get(id);
+    }
 
-    public boolean isWarned() {
-        return warned;
+    /**
+     * @return open sessions in the order they have been called
+     */
+    public List<VoteSession> getSessions() {
+        final List<VoteSession> open = new ArrayList<>(sessions.values());
+        open.sort(Comparator.comparingLong(VoteSession::getSequence));
+        return open;
     }
 
-    public synchronized void setWarned() {
-        this.warned = true;
+    public Instant getEndTime() {
+        final VoteSession current = currentSession();
+        return current == null ? null : current.getEndTime();
     }
 
     /**
@@ -82,22 +206,108 @@ public class CAcertVoteMechanics {
         STOPPING
     }
 
-    private String vote(final String voter, final String actor, final VoteType type) {
-        votes.put(voter, type);
+    /**
+     * Determine the voter a message in the vote channel refers to without evaluating it. Messages for the same voter
+     * have to be evaluated in the order they were received, messages for different voters may be evaluated in
+     * parallel.
+     *
+     * @param actor the person that sent the message
+     * @param txt   the text that the person sent
+     * @return the proxied voter for proxy votes for a single voter, the actor otherwise, so bulk proxy votes are
+     *         ordered with the other messages of the proxy holder
+     */
+    public static String voterOf(final String actor, final String txt) {
+        return voterOf(actor, VoteCommand.parse(txt, true));
+    }
+
+    /**
+     * Determine the voter of a parsed message like {@link #voterOf(String, String)}.
+     * <p>
+     * A bulk proxy vote is ordered with the messages of the proxy holder only. It is not ordered against own votes
+     * that the proxied voters send at the same time, whichever of them is counted last replaces the other.
+     *
+     * @param actor   the person that sent the message
+     * @param command the parsed message
+     * @return the proxied voter for proxy votes for a single voter, the actor otherwise
+     */
+    public static String voterOf(final String actor, final VoteCommand command) {
+        final List<String> voters = command.getVoters();
+        return voters.size() == 1 ? voters.get(0) : actor;
+    }
+
+    /**
+     * Parse a message in a vote channel. A prefix like "2:" is a session prefix if it names a session in the shared
+     * vote channel, otherwise the colon is part of the vote.
+     *
+     * @param channel channel name of a channel reserved for a session or null for the shared vote channel
+     * @param txt     the text that the person sent
+     * @return the parsed message for {@link #castVote(String, String, VoteCommand, Instant)}
+     */
+    public VoteCommand parseVote(final String channel, final String txt) {
+        if (channel != null) {
+            return VoteCommand.parse(txt, null);
+        }
+        return VoteCommand.parse(txt, id -> {
+            final VoteSession session = sessions.get(id);
+            return session != null && session.getChannel() == null;
+        });
+    }
+
+    private VoteReceipt vote(final VoteSession session, final String voter, final String actor, final VoteType type) {
+        final boolean repeated = session.record(voter, type) == type;
+        if (repeated) {
+            repeatedCounter.increment();
+        } else {
+            journal.voted(session, Collections.singletonList(voter), type);
+            (voter.equals(actor) ? acceptedCounters : proxiedCounters).get(type).increment();
+        }
 
         if (voter.equals(actor)) {
-            return MessageFormat.format(messages.getString("count_vote"), actor, type);
+            return new VoteReceipt(session.getId(), actor, voter, type, repeated,
+                    MessageFormat.format(messages.getString("count_vote"), actor, type));
         } else {
-            return MessageFormat.format(messages.getString("count_proxy_vote"), actor, voter, type);
+            return new VoteReceipt(session.getId(), actor, voter, type, repeated,
+                    MessageFormat.format(messages.getString("count_proxy_vote"), actor, voter, type));
         }
     }
 
-    private String voteError(final String actor) {
-        return MessageFormat.format(messages.getString("vote_not_understood"), actor);
+    /**
+     * Record the same vote for several voters. The caller has entered the session, so closing the vote counts either
+     * all or none of them.
+     */
+    private VoteReceipt bulkVote(
+            final VoteSession session, final List<String> voters, final String actor, final VoteType type) {
+        boolean repeated = true;
+        for (final String voter : voters) {
+            if (session.record(voter, type) != type) {
+                repeated = false;
+                (voter.equals(actor) ? acceptedCounters : proxiedCounters).get(type).increment();
+            } else {
+                repeatedCounter.increment();
+            }
+        }
+        if (!repeated) {
+            journal.voted(session, voters, type);
+        }
+        return new VoteReceipt(session.getId(), actor, String.join(",", voters), type, repeated,
+                MessageFormat.format(messages.getString("count_bulk_proxy_vote"), actor,
+                        String.join(", ", voters), type));
+    }
+
+    private VoteReceipt rejected(final String actor, final String messageKey) {
+        rejectedCounter.increment();
+        return new VoteReceipt(null, actor, null, null, false,
+                MessageFormat.format(messages.getString(messageKey), actor));
+    }
+
+    private VoteReceipt ineligible(final String actor, final String voter) {
+        return ineligible(actor, voter, "voter_not_eligible");
     }
 
-    private String proxyVoteError(final String actor) {
-        return MessageFormat.format(messages.getString("invalid_proxy_vote"), actor);
+    private VoteReceipt ineligible(final String actor, final String voter, final String key) {
+        ineligibleCounter.increment();
+        return new VoteReceipt(null, actor, null, null, false,
+                MessageFormat.format(messages.getString(key), actor, voter));
     }
 
     /**
@@ -107,120 +317,358 @@ public class CAcertVoteMechanics {
      * @param txt   the text that the person sent.
      * @return A message to <code>actor</code> indicating the result of his action.
      */
-    public synchronized String evaluateVote(final String actor, final String txt) {
-        if (state != State.RUNNING) {
-            return MessageFormat.format(messages.getString("no_vote_running"), actor);
+    public String evaluateVote(final String actor, final String txt) {
+        return evaluateVote(actor, txt, null);
+    }
+
+    /**
+     * Adds a vote to the current topic using the time the IRC server received it. A vote that the server received
+     * before the end of the vote is counted even if the vote has been stopped in the meantime, a vote received after
+     * the end is refused even if the vote is still running. Server and bot clocks are assumed to be in sync.
+     *
+     * @param actor      the person that sent this vote
+     * @param txt        the text that the person sent.
+     * @param receivedAt time the server received the vote or null to accept votes while the vote is running
+     * @return A message to <code>actor</code> indicating the result of his action.
+     */
+    public String evaluateVote(final String actor, final String txt, final Instant receivedAt) {
+        return castVote(actor, txt, receivedAt).getMessage();
+    }
+
+    /**
+     * Adds a vote in the shared vote channel like {@link #evaluateVote(String, String, Instant)} and describes what
+     * has been counted, so that the caller can decide how to acknowledge it.
+     *
+     * @param actor      the person that sent this vote
+     * @param txt        the text that the person sent.
+     * @param receivedAt time the server received the vote or null to accept votes while the vote is running
+     * @return receipt with the counted vote and the message to <code>actor</code>
+     */
+    public VoteReceipt castVote(final String actor, final String txt, final Instant receivedAt) {
+        return castVote(null, actor, txt, receivedAt);
+    }
+
+    /**
+     * Adds a vote to the session it is meant for. Votes in a channel reserved for a session are votes for that
+     * session. Votes in the shared vote channel name the session with a prefix like "2: aye" or go to the only
+     * running vote in the shared vote channel.
+     *
+     * @param channel    channel name of a channel reserved for a session or null for the shared vote channel
+     * @param actor      the person that sent this vote
+     * @param txt        the text that the person sent.
+     * @param receivedAt time the server received the vote or null to accept votes while the vote is running
+     * @return receipt with the counted vote and the message to <code>actor</code>
+     */
+    public VoteReceipt castVote(final String channel, final String actor, final String txt, final Instant receivedAt) {
+        final long start = System.nanoTime();
+        try {
+            return cast(channel, actor, parseVote(channel, txt), receivedAt);
+        } finally {
+            evaluateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
+    }
 
-        final String voter;
-        final String value;
+    /**
+     * Adds a vote that has been parsed with {@link #parseVote(String, String)} like
+     * {@link #castVote(String, String, String, Instant)}.
+     *
+     * @param channel    channel name of a channel reserved for a session or null for the shared vote channel
+     * @param actor      the person that sent this vote
+     * @param command    the parsed message
+     * @param receivedAt time the server received the vote or null to accept votes while the vote is running
+     * @return receipt with the counted vote and the message to <code>actor</code>
+     */
+    public VoteReceipt castVote(
+            final String channel, final String actor, final VoteCommand command, final Instant receivedAt) {
+        final long start = System.nanoTime();
+        try {
+            return cast(channel, actor, command, receivedAt);
+        } finally {
+            evaluateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-        if (PROXY_RE.matcher(txt.toLowerCase()).matches()) {
-            String[] parts = txt.split("\\s+");
-            if (parts.length == VOTE_MESSAGE_PART_COUNT) {
-                voter = parts[1];
-                value = parts[2];
-            } else {
-                return proxyVoteError(actor);
+    private VoteReceipt cast(
+            final String channel, final String actor, final VoteCommand command, final Instant receivedAt) {
+        if (channel != null) {
+            final VoteSession session = channelSessions.get(channelKey(channel));
+            return session == null ? rejected(actor, "no_vote_running")
+                    : castVoteIn(session, actor, command, receivedAt);
+        }
+        if (command.getSessionId() != null) {
+            final VoteSession session = sessions.get(command.getSessionId());
+            // the session may have been closed since the message has been parsed
+            return session == null ? rejected(actor, "no_vote_running")
+                    : castVoteIn(session, actor, command, receivedAt);
+        }
+        return castVoteWithoutPrefix(actor, command, receivedAt);
+    }
+
+    /**
+     * Route a vote without session prefix to the only running vote in the shared vote channel. If no vote is running
+     * a single stopping vote may still accept it.
+     */
+    private VoteReceipt castVoteWithoutPrefix(
+            final String actor, final VoteCommand command, final Instant receivedAt) {
+        VoteSession running = null;
+        VoteSession stopping = null;
+        int runningCount = 0;
+        int stoppingCount = 0;
+        for (final VoteSession session : sessions.values()) {
+            if (session.getChannel() != null) {
+                continue;
             }
-        } else {
-            voter = actor;
-            value = txt.trim();
+            final int phase = session.phase();
+            if (phase == VoteSession.RUNNING) {
+                running = session;
+                runningCount++;
+            } else if (phase == VoteSession.STOPPING) {
+                stopping = session;
+                stoppingCount++;
+            }
+        }
+        if (runningCount > 1 || runningCount == 0 && stoppingCount > 1) {
+            return rejected(actor, "vote_session_ambiguous");
+        }
+        if (running != null) {
+            return castVoteIn(running, actor, command, receivedAt);
         }
+        if (stopping != null) {
+            return castVoteIn(stopping, actor, command, receivedAt);
+        }
+        return rejected(actor, "no_vote_running");
+    }
 
+    private VoteReceipt castVoteIn(
+            final VoteSession session, final String actor, final VoteCommand command, final Instant receivedAt) {
+        final int phase = session.enter(receivedAt != null);
+        if (phase == 0) {
+            return rejected(actor, "no_vote_running");
+        }
         try {
-            return vote(voter, actor, VoteType.evaluate(value));
-        } catch (IllegalArgumentException iae) {
-            return voteError(actor);
+            if (receivedAt != null && !session.isBeforeDeadline(receivedAt, phase)) {
+                return rejected(actor, phase == VoteSession.RUNNING ? "vote_too_late" : "no_vote_running");
+            }
+            return evaluate(session, actor, command);
+        } finally {
+            session.exit();
+        }
+    }
+
+    private VoteReceipt evaluate(final VoteSession session, final String actor, final VoteCommand command) {
+        if (!command.isValid()) {
+            return rejected(actor, "invalid_proxy_vote");
+        }
+        final VoteType type = vocabularyOf(session).lookup(
+                command.getText(), command.getVoteStart(), command.getVoteEnd());
+        if (type == null) {
+            return rejected(actor, "vote_not_understood");
+        }
+        final List<String> voters = command.getVoters();
+        final Electorate roster = electorate;
+        if (roster != null && !roster.contains(actor)) {
+            return ineligible(actor, actor);
+        }
+        if (voters.isEmpty()) {
+            return vote(session, actor, actor, type);
+        }
+        if (roster != null) {
+            for (int i = 0; i < voters.size(); i++) {
+                if (!roster.contains(voters.get(i))) {
+                    return ineligible(actor, voters.get(i),
+                            voters.size() == 1 ? "voter_not_eligible" : "voter_not_eligible_bulk");
+                }
+            }
+        }
+        if (voters.size() == 1) {
+            return vote(session, voters.get(0), actor, type);
+        }
+        return bulkVote(session, voters, actor, type);
+    }
+
+    private VoteVocabulary vocabularyOf(final VoteSession session) {
+        if (session.getChannel() == null) {
+            return vocabulary;
+        }
+        return channelVocabularies.getOrDefault(channelKey(session.getChannel()), vocabulary);
+    }
+
+    /**
+     * Use a vocabulary for the votes in a channel.
+     *
+     * @param channel    channel name of a channel reserved for votes or null for the shared vote channel, which is
+     *                   also used for reserved channels without vocabulary of their own
+     * @param vocabulary words that are counted as votes
+     */
+    public void setVocabulary(final String channel, final VoteVocabulary vocabulary) {
+        if (channel == null) {
+            this.vocabulary = vocabulary;
+        } else {
+            channelVocabularies.put(channelKey(channel), vocabulary);
         }
     }
 
     /**
-     * A new vote begins.
+     * Restrict the voters to an electorate roster. The actor of a vote has to be on the roster, for proxy votes the
+     * proxy holder and every proxied voter have to be on it. A bulk proxy vote with a voter that is not on the roster
+     * is rejected as a whole.
+     *
+     * @param electorate roster of the eligible voters or null to accept votes from any nick
+     */
+    public void setElectorate(final Electorate electorate) {
+        this.electorate = electorate;
+    }
+
+    /**
+     * A new vote begins in the shared vote channel.
      *
      * @param topic the topic of the vote
      * @param warn seconds before the end of the vote to issue a warning
      * @param timeout seconds from the current time to the end of the vote
      * @return A response to <code>from</code> indicating success or failure.
      */
-    public synchronized String callVote(final String topic, long warn, long timeout) {
-        if (state != State.IDLE) {
-            return messages.getString("vote_running");
-        }
-
-        this.topic = topic;
-        votes.clear();
+    public String callVote(final String topic, long warn, long timeout) {
+        openVote(topic, null, warn, timeout);
 
-        this.warnTime = Calendar.getInstance();
-        this.warnTime.add(Calendar.SECOND, Math.toIntExact(warn));
-        this.warned = false;
-
-        this.endTime = Calendar.getInstance();
-        this.endTime.add(Calendar.SECOND, Math.toIntExact(timeout));
+        return messages.getString("vote_started");
+    }
 
-        state = State.RUNNING;
+    /**
+     * A new vote begins next to the votes that are already running.
+     *
+     * @param topic   the topic of the vote
+     * @param channel channel name of a channel reserved for the vote or null for the shared vote channel
+     * @param warn    seconds before the end of the vote to issue a warning
+     * @param timeout seconds from the current time to the end of the vote
+     * @return the new session
+     * @throws IllegalStateException if another vote is running in the channel
+     */
+    public VoteSession openVote(final String topic, final String channel, final long warn, final long timeout) {
+        final VoteSession session = new VoteSession(sessionSequence.incrementAndGet(), topic, channel, warn, timeout);
+        // journaled before votes can reach the session, the channel is only journaled once it has been reserved and
+        // stays free if journaling fails
+        if (channel == null) {
+            journal.called(session);
+        } else if (channelSessions.computeIfAbsent(channelKey(channel), key -> {
+            journal.called(session);
+            return session;
+        }) != session) {
+            throw new IllegalStateException(messages.getString("vote_running"));
+        }
+        sessions.put(session.getId(), session);
+        return session;
+    }
 
-        return messages.getString("vote_started");
+    public String stopVote(String stopSource) {
+        final VoteSession current = currentSession();
+        return stopVote(current == null ? null : current.getId(), stopSource);
     }
 
-    public synchronized String stopVote(String stopSource) {
-        if (state != State.RUNNING) {
+    /**
+     * Stop a running vote. Votes the server received before the vote has been stopped are still accepted until the
+     * vote is closed.
+     *
+     * @param id         session id
+     * @param stopSource nick name or reason that stopped the vote
+     * @return announcement of the stop
+     * @throws IllegalStateException if the vote is not running
+     */
+    public String stopVote(final String id, final String stopSource) {
+        final VoteSession session = id == null ? null : sessions.get(id);
+        if (session == null || !session.stop()) {
             throw new IllegalStateException(messages.getString("no_vote_running_private"));
         }
+        journal.stopped(session);
 
-        state = State.STOPPING;
-
-        return MessageFormat.format(messages.getString("finishing_vote"), this.topic, stopSource);
+        return MessageFormat.format(messages.getString("finishing_vote"), session.getTopic(), stopSource);
     }
 
     /**
-     * Ends a vote.
+     * Ends the most recently called vote.
      *
-     * @return An array of Strings containing result status messages.
+     * @return result of the vote
      */
-    public synchronized String[] closeVote() {
-        final String[] results = new String[VoteType.values().length];
+    public VoteResult closeVote() {
+        final VoteSession current = currentSession();
+        return closeVote(current == null ? null : current.getId());
+    }
 
-        if (state != State.STOPPING) {
+    /**
+     * Ends a vote. Votes that entered the vote before it has been sealed by this method are waited for and counted,
+     * later votes are rejected.
+     *
+     * @param id session id
+     * @return result of the vote
+     * @throws IllegalStateException if the vote has not been stopped
+     */
+    public VoteResult closeVote(final String id) {
+        final VoteSession session = id == null ? null : sessions.get(id);
+        if (session == null || !session.close()) {
             throw new IllegalStateException(messages.getString("cannot_close_running_vote"));
         }
 
-        final int[] resultCounts = new int[VoteType.values().length];
-
-        for (final Entry<String, VoteType> voteEntry : votes.entrySet()) {
-            resultCounts[voteEntry.getValue().ordinal()]++;
-        }
-
-        for (int i = 0; i < results.length; i++) {
-            results[i] = MessageFormat.format("{0}: {1}", VoteType.values()[i], resultCounts[i]);
+        final VoteResult result = session.result(session.deadline());
+        journal.closed(session);
+        sessions.remove(id, session);
+        if (session.getChannel() != null) {
+            channelSessions.remove(channelKey(session.getChannel()), session);
         }
 
-        votes.clear();
-        state = State.IDLE;
-        topic = "";
-
-        return results;
+        return result;
     }
 
     /**
      * @return Topic of the current vote.
      */
     public String getTopic() {
-        return topic;
+        final VoteSession current = currentSession();
+        return current == null ? "" : current.getTopic();
     }
 
     /**
      * @return Voting state
      */
     public State getState() {
-        return state;
+        final VoteSession current = currentSession();
+        return current == null ? State.IDLE : current.getState();
     }
 
     /**
-     * @return current vote results as string
+     * Take a snapshot of the tally of the current vote. The counters are maintained while votes are recorded, so this
+     * does not depend on the number of voters. Votes that are recorded concurrently may or may not be included.
+     *
+     * @return tally of the current vote, an empty tally without topic if no vote is running
      */
-    public String getCurrentResult() {
-        return votes.toString();
+    public VoteResult getCurrentResult() {
+        final VoteSession current = currentSession();
+        if (current == null) {
+            return new VoteResult("", null, null, new long[VoteType.values().length]);
+        }
+        return current.getCurrentResult();
     }
 
+    /**
+     * @param voter nick name of a voter
+     * @return the vote of the voter in the current vote or null if the voter has not voted
+     */
+    public VoteType getVote(final String voter) {
+        final VoteSession current = currentSession();
+        return current == null ? null : current.getVote(voter);
+    }
+
+    /**
+     * @return number of voters in the current vote
+     */
+    public long getVoterCount() {
+        final VoteSession current = currentSession();
+        return current == null ? 0 : current.getVoterCount();
+    }
+
+    private long getTotalVoterCount() {
+        long voters = 0;
+        for (final VoteSession session : sessions.values()) {
+            voters += session.getVoterCount();
+        }
+        return voters;
+    }
 }
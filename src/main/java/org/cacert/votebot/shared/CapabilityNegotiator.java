@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * IRCv3 capability negotiation during registration.
+ * <p>
+ * {@link #begin()} sends {@code CAP LS 302} ahead of NICK and USER, which makes a server that supports capabilities
+ * hold back registration until {@code CAP END}. The capabilities offered by the server, possibly spread over several
+ * {@code CAP LS} replies, are intersected with the wanted ones and requested with a single {@code CAP REQ}. Servers
+ * without capability support ignore or reject the {@code CAP LS} and complete the registration as usual.
+ *
+ * @author Jan Dittberner
+ */
+public class CapabilityNegotiator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapabilityNegotiator.class);
+
+    /**
+     * Capability that allows message tags.
+     */
+    public static final String MESSAGE_TAGS = "message-tags";
+    /**
+     * Capability that adds the time tag to received messages.
+     */
+    public static final String SERVER_TIME = "server-time";
+    /**
+     * Capability that groups related messages like netsplits in batches.
+     */
+    public static final String BATCH = "batch";
+    /**
+     * Capability that echoes the client's own messages once the server has delivered them.
+     */
+    public static final String ECHO_MESSAGE = "echo-message";
+    /**
+     * Capability that lists all channel prefixes of a user in NAMES replies.
+     */
+    public static final String MULTI_PREFIX = "multi-prefix";
+
+    private static final List<String> WANTED = Arrays.asList(
+            MESSAGE_TAGS, SERVER_TIME, BATCH, ECHO_MESSAGE, MULTI_PREFIX);
+
+    private final Consumer<String> sink;
+    private final Set<String> offered = new LinkedHashSet<>();
+    private volatile Set<String> enabled = Collections.emptySet();
+    private boolean negotiating;
+
+    /**
+     * @param sink sender of protocol lines, must bypass queues that are held back until registration
+     */
+    public CapabilityNegotiator(final Consumer<String> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Start the negotiation on a new connection, forgetting capabilities of a previous connection.
+     */
+    public synchronized void begin() {
+        offered.clear();
+        enabled = Collections.emptySet();
+        negotiating = true;
+        sink.accept("CAP LS 302");
+    }
+
+    /**
+     * Handle a CAP message from the server.
+     *
+     * @param message parsed CAP message
+     */
+    public synchronized void handle(final IRCMessage message) {
+        final String subCommand = message.getParam(1);
+        if (subCommand == null) {
+            LOGGER.warn("invalid CAP message: {}", message);
+            return;
+        }
+        final String capabilities = message.getParam(message.getParamCount() - 1);
+        switch (subCommand.toUpperCase(Locale.ENGLISH)) {
+            case "LS":
+                for (final String capability : split(capabilities)) {
+                    final int valueStart = capability.indexOf('=');
+                    offered.add(valueStart < 0 ? capability : capability.substring(0, valueStart));
+                }
+                // "CAP * LS * :..." announces further LS lines
+                if (negotiating && !"*".equals(message.getParam(2))) {
+                    request();
+                }
+                break;
+            case "ACK":
+                final Set<String> acknowledged = new LinkedHashSet<>(enabled);
+                for (final String capability : split(capabilities)) {
+                    if (capability.startsWith("-")) {
+                        acknowledged.remove(capability.substring(1));
+                    } else {
+                        acknowledged.add(capability);
+                    }
+                }
+                enabled = Collections.unmodifiableSet(acknowledged);
+                LOGGER.info("enabled capabilities {}", enabled);
+                end();
+                break;
+            case "NAK":
+                LOGGER.warn("server rejected capabilities {}", capabilities);
+                end();
+                break;
+            case "DEL":
+                final Set<String> remaining = new LinkedHashSet<>(enabled);
+                remaining.removeAll(split(capabilities));
+                enabled = Collections.unmodifiableSet(remaining);
+                break;
+            default:
+                LOGGER.debug("ignoring CAP {}", subCommand);
+        }
+    }
+
+    private void request() {
+        final Set<String> requested = new LinkedHashSet<>(WANTED);
+        requested.retainAll(offered);
+        if (requested.isEmpty()) {
+            end();
+            return;
+        }
+        sink.accept("CAP REQ :" + String.join(" ", requested));
+    }
+
+    private void end() {
+        if (negotiating) {
+            negotiating = false;
+            sink.accept("CAP END");
+        }
+    }
+
+    private static List<String> split(final String capabilities) {
+        if (capabilities == null || capabilities.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(capabilities.trim().split("\\s+"));
+    }
+
+    /**
+     * @param capability capability name
+     * @return true if the server acknowledged the capability on the current connection
+     */
+    public boolean isEnabled(final String capability) {
+        return enabled.contains(capability);
+    }
+}
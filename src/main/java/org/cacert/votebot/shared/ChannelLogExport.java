@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Command line tool that exports segmented channel logs in the plain text format of the former
+ * {@code irc/log_<channel>} files.
+ *
+ * @author Jan Dittberner
+ */
+public final class ChannelLogExport {
+    private ChannelLogExport() {
+    }
+
+    /**
+     * Entry point for the export tool.
+     *
+     * @param args command line arguments
+     * @throws IOException in case of I/O errors
+     */
+    public static void main(final String... args) throws IOException {
+        final Options opts = new Options();
+        opts.addOption(
+                Option.builder("d").longOpt("directory").hasArg(true)
+                      .desc("channel log directory (default irc)").build());
+        opts.addOption(
+                Option.builder("c").longOpt("channel").hasArg(true).required()
+                      .desc("channel name including the leading '#'").build());
+        opts.addOption(
+                Option.builder("l").longOpt("list")
+                      .desc("list the logged votes").build());
+        opts.addOption(
+                Option.builder("t").longOpt("topic").hasArg(true)
+                      .desc("export only the latest vote with the given topic").build());
+        opts.addOption(
+                Option.builder("o").longOpt("output").hasArg(true)
+                      .desc("output file (default standard output)").build());
+
+        final CommandLine commandLine;
+        try {
+            commandLine = new DefaultParser().parse(opts, args);
+        } catch (final ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("ChannelLogExport", opts);
+            System.exit(1);
+            return;
+        }
+
+        final ChannelLogReader reader = new ChannelLogReader(Paths.get(commandLine.getOptionValue("directory", "irc")));
+        final String channel = commandLine.getOptionValue("channel");
+
+        try (Writer out = commandLine.hasOption("output")
+                ? Files.newBufferedWriter(Paths.get(commandLine.getOptionValue("output")), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            if (commandLine.hasOption("list")) {
+                for (final ChannelLogReader.VoteRange vote : reader.findVotes(channel)) {
+                    out.write(vote.toString());
+                    out.write('\n');
+                }
+            } else if (commandLine.hasOption("topic")) {
+                final ChannelLogReader.VoteRange vote = reader.findVote(channel, commandLine.getOptionValue("topic"));
+                if (vote == null) {
+                    System.err.println("no vote with the given topic found");
+                    System.exit(1);
+                    return;
+                }
+                reader.exportVote(channel, vote, out);
+            } else {
+                reader.export(channel, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reader for the segmented channel logs written by {@link ChannelLogger}.
+ *
+ * @author Jan Dittberner
+ */
+public class ChannelLogReader {
+    private final Path directory;
+
+    /**
+     * Range of a channel log that belongs to a vote.
+     */
+    public static final class VoteRange {
+        private final String topic;
+        private final long startMillis;
+        private final String startSegment;
+        private final long startOffset;
+        private long endMillis = -1;
+        private String endSegment;
+        private long endOffset = -1;
+
+        private VoteRange(final String topic, final long startMillis, final String startSegment,
+                          final long startOffset) {
+            this.topic = topic;
+            this.startMillis = startMillis;
+            this.startSegment = startSegment;
+            this.startOffset = startOffset;
+        }
+
+        /**
+         * @return vote topic
+         */
+        public String getTopic() {
+            return topic;
+        }
+
+        /**
+         * @return epoch milliseconds of the vote start
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /**
+         * @return epoch milliseconds of the vote end or -1 if the end has not been logged
+         */
+        public long getEndMillis() {
+            return endMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d %d %s", startMillis, endMillis, topic);
+        }
+    }
+
+    /**
+     * @param directory directory that contains the channel logs
+     */
+    public ChannelLogReader(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param channelDirectory directory of a channel log
+     * @return names of the segments without suffix in chronological order
+     * @throws IOException in case of I/O errors
+     */
+    static List<String> listSegments(final Path channelDirectory) throws IOException {
+        if (!Files.isDirectory(channelDirectory)) {
+            return Collections.emptyList();
+        }
+        final TreeSet<String> names = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(channelDirectory)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(SegmentedChannelLog.COMPRESSED_SUFFIX)) {
+                    names.add(name.substring(0, name.length() - SegmentedChannelLog.COMPRESSED_SUFFIX.length()));
+                } else if (name.endsWith(SegmentedChannelLog.SEGMENT_SUFFIX)) {
+                    names.add(name.substring(0, name.length() - SegmentedChannelLog.SEGMENT_SUFFIX.length()));
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Read the votes recorded in the index of a channel log.
+     *
+     * @param channel channel name
+     * @return votes in chronological order
+     * @throws IOException in case of I/O errors
+     */
+    public List<VoteRange> findVotes(final String channel) throws IOException {
+        final Path index = directory.resolve(channel).resolve(SegmentedChannelLog.INDEX_FILE);
+        final List<VoteRange> votes = new ArrayList<>();
+        if (!Files.exists(index)) {
+            return votes;
+        }
+
+        VoteRange open = null;
+        try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            String record;
+            while ((record = reader.readLine()) != null) {
+                final String[] fields = record.split("\t", 5);
+                if (fields.length == 5 && SegmentedChannelLog.INDEX_START.equals(fields[0])) {
+                    open = new VoteRange(fields[4], Long.parseLong(fields[1]), fields[2], Long.parseLong(fields[3]));
+                    votes.add(open);
+                } else if (fields.length == 4 && SegmentedChannelLog.INDEX_END.equals(fields[0]) && open != null) {
+                    open.endMillis = Long.parseLong(fields[1]);
+                    open.endSegment = fields[2];
+                    open.endOffset = Long.parseLong(fields[3]);
+                    open = null;
+                }
+            }
+        }
+        return votes;
+    }
+
+    /**
+     * Find the latest vote with the given topic.
+     *
+     * @param channel channel name
+     * @param topic   vote topic
+     * @return the vote or null if no vote with the topic has been logged
+     * @throws IOException in case of I/O errors
+     */
+    public VoteRange findVote(final String channel, final String topic) throws IOException {
+        final List<VoteRange> votes = findVotes(channel);
+        for (int i = votes.size() - 1; i >= 0; i--) {
+            if (votes.get(i).topic.equals(topic)) {
+                return votes.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the lines logged during a vote in the plain text format.
+     *
+     * @param channel channel name
+     * @param vote    vote range
+     * @param out     writer for the lines
+     * @throws IOException in case of I/O errors
+     */
+    public void exportVote(final String channel, final VoteRange vote, final Writer out) throws IOException {
+        final Path channelDirectory = directory.resolve(channel);
+        for (final String segment : listSegments(channelDirectory)) {
+            if (segment.compareTo(vote.startSegment) < 0) {
+                continue;
+            }
+            if (vote.endSegment != null && segment.compareTo(vote.endSegment) > 0) {
+                break;
+            }
+            final long from = segment.equals(vote.startSegment) ? vote.startOffset : 0;
+            final long to = segment.equals(vote.endSegment) ? vote.endOffset : -1;
+            copySegment(channelDirectory, segment, from, to, out);
+        }
+    }
+
+    /**
+     * Write the complete log of a channel in the plain text format, one line per logged IRC line.
+     *
+     * @param channel channel name
+     * @param out     writer for the lines
+     * @throws IOException in case of I/O errors
+     */
+    public void export(final String channel, final Writer out) throws IOException {
+        final Path channelDirectory = directory.resolve(channel);
+        for (final String segment : listSegments(channelDirectory)) {
+            copySegment(channelDirectory, segment, 0, -1, out);
+        }
+    }
+
+    private static void copySegment(
+            final Path channelDirectory, final String segment, final long from, final long to, final Writer out)
+            throws IOException {
+        try (InputStream in = openSegment(channelDirectory, segment)) {
+            long skipped = 0;
+            while (skipped < from) {
+                final long count = in.skip(from - skipped);
+                if (count <= 0) {
+                    return;
+                }
+                skipped += count;
+            }
+
+            final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long remaining = to < 0 ? -1 : to - from;
+            int b;
+            while (remaining != 0 && (b = in.read()) != -1) {
+                if (remaining > 0) {
+                    remaining--;
+                }
+                if (b == '\n') {
+                    writeLine(line, out);
+                    line.reset();
+                } else {
+                    line.write(b);
+                }
+            }
+            if (line.size() > 0) {
+                writeLine(line, out);
+            }
+        }
+    }
+
+    private static InputStream openSegment(final Path channelDirectory, final String segment) throws IOException {
+        final Path plain = channelDirectory.resolve(segment + SegmentedChannelLog.SEGMENT_SUFFIX);
+        if (Files.exists(plain)) {
+            return new BufferedInputStream(Files.newInputStream(plain));
+        }
+        return new BufferedInputStream(new GZIPInputStream(
+                Files.newInputStream(channelDirectory.resolve(segment + SegmentedChannelLog.COMPRESSED_SUFFIX))));
+    }
+
+    private static void writeLine(final ByteArrayOutputStream line, final Writer out) throws IOException {
+        final String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+        // strip the timestamp
+        out.write(text, text.indexOf(' ') + 1, text.length() - text.indexOf(' ') - 1);
+        out.write('\n');
+    }
+}
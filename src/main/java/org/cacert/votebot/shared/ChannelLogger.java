@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous writer for per channel logs.
+ * <p>
+ * {@link #log(String, String)} only puts the line into a lock-free {@link RingBuffer} and never blocks the caller, a
+ * dedicated writer thread appends the lines to a {@link SegmentedChannelLog} per channel. Written lines are flushed in
+ * groups when the flush batch size has been reached or the oldest unflushed line is older than the flush interval. At
+ * most {@code channelLog.maxOpenFiles} channel logs are kept open, the least recently used one is closed when another
+ * channel needs to be written. Lines that do not fit into the ring buffer are dropped and counted.
+ *
+ * @author Jan Dittberner
+ */
+@Component
+public class ChannelLogger implements Runnable, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChannelLogger.class);
+    /**
+     * Maximum time to wait for the writer thread on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final MeterRegistry meterRegistry;
+    private RingBuffer<Entry> ring;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private Counter droppedLines;
+    private Timer flushTimer;
+    private Timer writeTimer;
+
+    private final Map<String, SegmentedChannelLog> openFiles =
+            new LinkedHashMap<String, SegmentedChannelLog>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, SegmentedChannelLog> eldest) {
+                    if (size() > maxOpenFiles) {
+                        closeFile(eldest.getKey(), eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+    private final ArrayList<SegmentedChannelLog> dirtyFiles = new ArrayList<>();
+    private int unflushedLines;
+    private long firstUnflushedNanos;
+
+    /**
+     * Directory that contains the channel log files.
+     */
+    @Value("${channelLog.directory:irc}")
+    private String directory = "irc";
+
+    /**
+     * Number of lines the ring buffer between IRC client and writer thread can hold.
+     */
+    @Value("${channelLog.queueCapacity:8192}")
+    private int queueCapacity = 8192;
+
+    /**
+     * Number of written lines after which the open files are flushed.
+     */
+    @Value("${channelLog.flushBatchSize:64}")
+    private int flushBatchSize = 64;
+
+    /**
+     * Milliseconds after which written lines are flushed at the latest.
+     */
+    @Value("${channelLog.flushIntervalMillis:1000}")
+    private long flushIntervalMillis = 1000;
+
+    /**
+     * Maximum number of channel logs that are kept open.
+     */
+    @Value("${channelLog.maxOpenFiles:16}")
+    private int maxOpenFiles = 16;
+
+    /**
+     * Size in bytes from which a new log segment is started.
+     */
+    @Value("${channelLog.segmentMaxBytes:16777216}")
+    private long segmentMaxBytes = 16777216;
+
+    /**
+     * Whether closed log segments are compressed.
+     */
+    @Value("${channelLog.compressSegments:true}")
+    private boolean compressSegments = true;
+
+    private enum EntryType {
+        LINE, VOTE_START, VOTE_END
+    }
+
+    private static final class Entry {
+        private final EntryType type;
+        private final long timestamp;
+        private final String channel;
+        private final String text;
+
+        private Entry(final EntryType type, final String channel, final String text) {
+            this.type = type;
+            this.timestamp = System.currentTimeMillis();
+            this.channel = channel;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Create a logger that records metrics in a private registry.
+     */
+    public ChannelLogger() {
+        this(new SimpleMeterRegistry());
+    }
+
+    /**
+     * @param meterRegistry registry for logger metrics
+     */
+    @Autowired
+    public ChannelLogger(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Start the writer thread. Calling this method on a started logger has no effect.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        ring = new RingBuffer<>(queueCapacity);
+        droppedLines = Counter.builder("votebot.irc.log.dropped")
+                              .description("channel log lines dropped because the log queue was full")
+                              .register(meterRegistry);
+        flushTimer = Timer.builder("votebot.irc.log.flush")
+                          .description("time spent flushing channel log files")
+                          .register(meterRegistry);
+        writeTimer = Timer.builder("votebot.irc.log.write")
+                          .description("time spent writing a line to a channel log file")
+                          .register(meterRegistry);
+        running = true;
+        writer = new Thread(this, "irc-channel-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a line for the log file of a channel. This method never blocks.
+     *
+     * @param channel channel name
+     * @param line    log line
+     */
+    public void log(final String channel, final String line) {
+        enqueue(new Entry(EntryType.LINE, channel, line));
+    }
+
+    /**
+     * Record the start of a vote in the index of a channel log. This method never blocks.
+     *
+     * @param channel channel name
+     * @param topic   vote topic
+     */
+    public void logVoteStart(final String channel, final String topic) {
+        enqueue(new Entry(EntryType.VOTE_START, channel, topic));
+    }
+
+    /**
+     * Record the end of the current vote in the index of a channel log. This method never blocks.
+     *
+     * @param channel channel name
+     */
+    public void logVoteEnd(final String channel) {
+        enqueue(new Entry(EntryType.VOTE_END, channel, null));
+    }
+
+    private void enqueue(final Entry entry) {
+        final RingBuffer<Entry> buffer = ring;
+        if (buffer == null || !running) {
+            return;
+        }
+        if (!buffer.offer(entry)) {
+            droppedLines.increment();
+            LockSupport.unpark(writer);
+            return;
+        }
+        if (writerParked && buffer.size() >= flushBatchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    @Override
+    public void run() {
+        final Path dirPath = Paths.get(directory);
+        final long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+
+        while (running) {
+            drain(dirPath);
+
+            final long now = System.nanoTime();
+            if (unflushedLines > 0 && now - firstUnflushedNanos >= flushIntervalNanos) {
+                flush();
+            }
+            if (ring.size() == 0) {
+                final long wait = unflushedLines > 0 ? flushIntervalNanos - (now - firstUnflushedNanos)
+                        : flushIntervalNanos;
+                writerParked = true;
+                if (ring.size() == 0 && running) {
+                    LockSupport.parkNanos(this, Math.max(wait, 1));
+                }
+                writerParked = false;
+            }
+        }
+
+        drain(dirPath);
+        flush();
+        for (final Map.Entry<String, SegmentedChannelLog> file : openFiles.entrySet()) {
+            closeFile(file.getKey(), file.getValue());
+        }
+        openFiles.clear();
+    }
+
+    private void drain(final Path dirPath) {
+        Entry entry;
+        while ((entry = ring.poll()) != null) {
+            final SegmentedChannelLog file = getFile(dirPath, entry.channel);
+            if (file == null) {
+                continue;
+            }
+            final long writeStart = System.nanoTime();
+            try {
+                switch (entry.type) {
+                    case VOTE_START:
+                        file.markVoteStart(entry.timestamp, entry.text);
+                        break;
+                    case VOTE_END:
+                        file.markVoteEnd(entry.timestamp);
+                        break;
+                    default:
+                        file.append(entry.timestamp, entry.text);
+                }
+            } catch (final IOException e) {
+                LOGGER.error("error writing to log file for '{}': {}", entry.channel, e.getMessage());
+                continue;
+            }
+            writeTimer.record(System.nanoTime() - writeStart, TimeUnit.NANOSECONDS);
+            if (!dirtyFiles.contains(file)) {
+                dirtyFiles.add(file);
+            }
+            if (unflushedLines++ == 0) {
+                firstUnflushedNanos = System.nanoTime();
+            }
+            if (unflushedLines >= flushBatchSize) {
+                flush();
+            }
+        }
+    }
+
+    private SegmentedChannelLog getFile(final Path dirPath, final String channel) {
+        SegmentedChannelLog file = openFiles.get(channel);
+        if (file != null) {
+            return file;
+        }
+
+        try {
+            if (!Files.exists(dirPath)) {
+                Files.createDirectories(
+                        dirPath, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-x---")));
+            }
+        } catch (final IOException e) {
+            LOGGER.error("error creating directory '{}': {}", dirPath, e.getMessage());
+            return null;
+        }
+        file = new SegmentedChannelLog(dirPath.resolve(channel), segmentMaxBytes, compressSegments);
+        openFiles.put(channel, file);
+        return file;
+    }
+
+    private void flush() {
+        if (dirtyFiles.isEmpty()) {
+            unflushedLines = 0;
+            return;
+        }
+        flushTimer.record(() -> {
+            for (final SegmentedChannelLog file : dirtyFiles) {
+                try {
+                    file.flush();
+                } catch (final IOException e) {
+                    LOGGER.error("error flushing log file: {}", e.getMessage());
+                }
+            }
+        });
+        dirtyFiles.clear();
+        unflushedLines = 0;
+    }
+
+    private void closeFile(final String channel, final SegmentedChannelLog file) {
+        dirtyFiles.remove(file);
+        try {
+            file.close();
+        } catch (final IOException e) {
+            LOGGER.error("error closing log file for '{}': {}", channel, e.getMessage());
+        }
+    }
+
+    /**
+     * Write all queued lines, close all files and stop the writer thread.
+     */
+    @PreDestroy
+    @Override
+    public synchronized void close() {
+        if (writer == null || !running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            LOGGER.warn("channel log writer did not finish within {} ms", SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * Framing of the records in the vote journal and the vote archive. Each record is written as its length, the CRC32
+ * checksum of its payload and the payload, so that a record that has been torn by a crash or corrupted on disk is
+ * detected when it is read.
+ *
+ * @author Jan Dittberner
+ */
+final class ChecksummedRecords {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChecksummedRecords.class);
+    /**
+     * Bytes in front of the payload of each record.
+     */
+    static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private ChecksummedRecords() {
+    }
+
+    /**
+     * @param out     target stream
+     * @param payload record payload
+     * @param crc     checksum instance to reuse
+     * @throws IOException for I/O errors
+     */
+    static void write(final DataOutputStream out, final byte[] payload, final CRC32 crc) throws IOException {
+        crc.reset();
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    /**
+     * @param in   source stream
+     * @param crc  checksum instance to reuse
+     * @param file file name for log messages
+     * @return the payload of the next record or null at the end of the stream or at a torn or corrupt record
+     * @throws IOException for I/O errors
+     */
+    static byte[] read(final DataInputStream in, final CRC32 crc, final Path file) throws IOException {
+        final int length;
+        try {
+            length = in.readInt();
+        } catch (final EOFException e) {
+            return null;
+        }
+        if (length <= 0 || length > MAX_RECORD_BYTES) {
+            LOGGER.warn("stopping to read {} at a record of {} bytes", file, length);
+            return null;
+        }
+        try {
+            final int expected = in.readInt();
+            final byte[] payload = new byte[length];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != expected) {
+                LOGGER.warn("stopping to read {} at a record with wrong checksum", file);
+                return null;
+            }
+            return payload;
+        } catch (final EOFException e) {
+            LOGGER.warn("stopping to read {} at a torn record", file);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Confirms the delivery of sent PRIVMSG lines by the echoes of the IRCv3 echo-message capability.
+ * <p>
+ * Sent lines are remembered with their send time until the server echoes them back. The time until the echo is
+ * recorded in {@code votebot.irc.echo.delay}. When more than the capacity of lines are waiting, the oldest one is
+ * given up and counted in {@code votebot.irc.echo.unconfirmed}.
+ *
+ * @author Jan Dittberner
+ */
+public class EchoTracker {
+    private final int capacity;
+    private final Map<String, ArrayDeque<Long>> pending = new HashMap<>();
+    private final ArrayDeque<String> order = new ArrayDeque<>();
+    private final Timer delayTimer;
+    private final Counter unconfirmedCounter;
+
+    /**
+     * @param capacity      maximum number of lines waiting for their echo
+     * @param meterRegistry registry for delivery metrics
+     */
+    public EchoTracker(final int capacity, final MeterRegistry meterRegistry) {
+        this.capacity = capacity;
+        delayTimer = Timer.builder("votebot.irc.echo.delay")
+                          .description("Time from sending a message until the server echoed it")
+                          .register(meterRegistry);
+        unconfirmedCounter = Counter.builder("votebot.irc.echo.unconfirmed")
+                                    .description("Number of sent messages that have not been echoed by the server")
+                                    .register(meterRegistry);
+        Gauge.builder("votebot.irc.echo.pending", this, EchoTracker::getPending)
+             .description("Number of sent messages waiting for their echo")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Remember a sent line.
+     *
+     * @param line protocol line as sent
+     */
+    public synchronized void sent(final String line) {
+        if (!line.startsWith("PRIVMSG ")) {
+            return;
+        }
+        if (order.size() >= capacity) {
+            final String eldest = order.pollFirst();
+            final ArrayDeque<Long> times = pending.get(eldest);
+            times.pollFirst();
+            if (times.isEmpty()) {
+                pending.remove(eldest);
+            }
+            unconfirmedCounter.increment();
+        }
+        pending.computeIfAbsent(line, key -> new ArrayDeque<>()).addLast(System.nanoTime());
+        order.addLast(line);
+    }
+
+    /**
+     * Confirm the delivery of a line by its echo.
+     *
+     * @param target target of the echoed PRIVMSG
+     * @param text   text of the echoed PRIVMSG
+     * @return true if the echo matched a sent line
+     */
+    public synchronized boolean echoed(final String target, final String text) {
+        final String line = "PRIVMSG " + target + " :" + text;
+        final ArrayDeque<Long> times = pending.get(line);
+        if (times == null) {
+            return false;
+        }
+        delayTimer.record(System.nanoTime() - times.pollFirst(), TimeUnit.NANOSECONDS);
+        if (times.isEmpty()) {
+            pending.remove(line);
+        }
+        order.removeFirstOccurrence(line);
+        return true;
+    }
+
+    /**
+     * @return number of lines waiting for their echo
+     */
+    public synchronized int getPending() {
+        return order.size();
+    }
+
+    /**
+     * Give up all lines waiting for their echo, for example when the connection has been lost.
+     */
+    public synchronized void clear() {
+        pending.clear();
+        order.clear();
+    }
+}
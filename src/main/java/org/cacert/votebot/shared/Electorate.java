@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Roster of the nicks that are eligible to vote. A nick is looked up in constant time without allocation, so that the
+ * check stays cheap when thousands of votes arrive per minute.
+ * <p>
+ * The case-folded nicks are stored back to back in a single char array. An open addressing hash table with linear
+ * probing and a load factor of at most one half maps the hash of a case-folded nick to its position in that array,
+ * a lookup hashes and compares the characters of the nick in place.
+ *
+ * @author Jan Dittberner
+ */
+public final class Electorate {
+    private static final char COMMENT = '#';
+
+    private final char[] chars;
+    /**
+     * Start of each nick in {@link #chars}, the last element is the end of the last nick.
+     */
+    private final int[] starts;
+    /**
+     * Index of the nick plus one by hash slot, 0 for empty slots.
+     */
+    private final int[] slots;
+    private final int mask;
+    private final int size;
+
+    /**
+     * @param nicks eligible nicks, case and duplicates do not matter
+     */
+    public Electorate(final Collection<String> nicks) {
+        int length = 0;
+        for (final String nick : nicks) {
+            length += nick.length();
+        }
+        final char[] folded = new char[length];
+        final int[] offsets = new int[nicks.size() + 1];
+        slots = new int[Integer.highestOneBit(Math.max(nicks.size(), 1)) * 4];
+        mask = slots.length - 1;
+
+        int count = 0;
+        int end = 0;
+        for (final String nick : nicks) {
+            for (int i = 0; i < nick.length(); i++) {
+                folded[end + i] = fold(nick.charAt(i));
+            }
+            offsets[count] = end;
+            offsets[count + 1] = end + nick.length();
+            int slot = hash(folded, end, end + nick.length()) & mask;
+            while (slots[slot] != 0 && !equal(folded, offsets, slots[slot] - 1, folded, end, end + nick.length())) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == 0) {
+                slots[slot] = ++count;
+                end += nick.length();
+            }
+        }
+        this.chars = folded;
+        this.starts = offsets;
+        this.size = count;
+    }
+
+    /**
+     * Read a roster file with one nick per line. Blank lines and lines starting with '#' are ignored.
+     *
+     * @param file roster file
+     * @return the electorate of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static Electorate load(final Path file) throws IOException {
+        final List<String> nicks = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String nick = line.trim();
+                if (!nick.isEmpty() && nick.charAt(0) != COMMENT) {
+                    nicks.add(nick);
+                }
+            }
+        }
+        return new Electorate(nicks);
+    }
+
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int hash(final char[] text, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hash(final CharSequence text) {
+        int hash = 0;
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + fold(text.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equal(
+            final char[] chars, final int[] starts, final int index, final char[] text, final int start,
+            final int end) {
+        final int from = starts[index];
+        if (starts[index + 1] - from != end - start) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            if (chars[from + i] != text[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equal(final int index, final CharSequence nick) {
+        final int from = starts[index];
+        if (starts[index + 1] - from != nick.length()) {
+            return false;
+        }
+        for (int i = 0; i < nick.length(); i++) {
+            if (chars[from + i] != fold(nick.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param nick nick of a voter, case is ignored
+     * @return true if the nick is eligible to vote
+     */
+    public boolean contains(final CharSequence nick) {
+        int slot = hash(nick) & mask;
+        while (slots[slot] != 0) {
+            if (equal(slots[slot] - 1, nick)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of eligible nicks
+     */
+    public int size() {
+        return size;
+    }
+}
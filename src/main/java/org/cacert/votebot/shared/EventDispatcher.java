@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.cacert.votebot.shared.exceptions.IRCClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers bot events on worker threads so that slow handlers do not hold up reading from the IRC connection.
+ * <p>
+ * Events with the same key, usually the channel or the nick name of a private conversation, are handled one after
+ * another in the order they were dispatched, events with different keys may be handled concurrently. Virtual threads
+ * are used when the JDK provides them, a small pool of platform threads otherwise. A handler that runs longer than the
+ * stall threshold is reported once with a warning and counted in {@code votebot.irc.dispatch.stalls}.
+ *
+ * @author Jan Dittberner
+ */
+public class EventDispatcher implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventDispatcher.class);
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService watchdog;
+    private final long stallNanos;
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Timer handlerTimer;
+    private final Counter stallCounter;
+    private final Counter failureCounter;
+    private boolean closed;
+
+    /**
+     * Event handler that may fail with an IRC client problem.
+     */
+    @FunctionalInterface
+    public interface Event {
+        /**
+         * Handle the event.
+         *
+         * @throws IRCClientException for IRC client problems
+         */
+        void handle() throws IRCClientException;
+    }
+
+    /**
+     * Events of one key waiting for delivery. All fields are guarded by the dispatcher's lane map.
+     */
+    private static final class Lane {
+        private final String key;
+        private final ArrayDeque<Event> events = new ArrayDeque<>();
+        private long startedNanos;
+        private boolean running;
+        private boolean stallReported;
+
+        private Lane(final String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * @param threads       number of platform threads used when the JDK has no virtual threads
+     * @param stallMillis   handler run time in milliseconds after which a handler is reported as stalled
+     * @param meterRegistry registry for dispatch metrics
+     */
+    public EventDispatcher(final int threads, final long stallMillis, final MeterRegistry meterRegistry) {
+        if (threads < 1 || stallMillis < 1) {
+            throw new IllegalArgumentException("invalid dispatcher settings");
+        }
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+        this.executor = createExecutor(threads);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "irc-dispatch-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long checkInterval = Math.max(1, stallMillis / 2);
+        watchdog.scheduleWithFixedDelay(this::checkStalls, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("votebot.irc.dispatch.pending", pending, AtomicInteger::get)
+             .description("Number of events waiting for or in delivery to the bot")
+             .register(meterRegistry);
+        handlerTimer = Timer.builder("votebot.irc.dispatch.duration")
+                            .description("Run time of bot event handlers")
+                            .register(meterRegistry);
+        stallCounter = Counter.builder("votebot.irc.dispatch.stalls")
+                              .description("Number of bot event handlers that exceeded the stall threshold")
+                              .register(meterRegistry);
+        failureCounter = Counter.builder("votebot.irc.dispatch.failures")
+                                .description("Number of bot event handlers that failed with an exception")
+                                .register(meterRegistry);
+    }
+
+    /**
+     * Use a virtual thread per task if the running JDK supports it, looked up reflectively because the code is
+     * compiled for an older release.
+     */
+    private static ExecutorService createExecutor(final int threads) {
+        try {
+            final ExecutorService virtual =
+                    (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            LOGGER.debug("dispatching events on virtual threads");
+            return virtual;
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("dispatching events on {} platform threads", threads);
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "irc-dispatch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue an event for delivery after all events previously dispatched with the same key.
+     *
+     * @param key   ordering key
+     * @param event event handler
+     * @return false if the dispatcher has been closed and the event is dropped
+     */
+    public boolean dispatch(final String key, final Event event) {
+        final Lane lane;
+        synchronized (lanes) {
+            if (closed) {
+                LOGGER.debug("dropping event for {} on closed dispatcher", key);
+                return false;
+            }
+            lane = lanes.computeIfAbsent(key, Lane::new);
+            lane.events.addLast(event);
+            pending.incrementAndGet();
+            if (lane.running) {
+                return true;
+            }
+            lane.running = true;
+        }
+        submit(lane);
+        return true;
+    }
+
+    private void submit(final Lane lane) {
+        try {
+            executor.execute(() -> drain(lane));
+        } catch (final RejectedExecutionException e) {
+            synchronized (lanes) {
+                pending.addAndGet(-lane.events.size());
+                lane.events.clear();
+                lane.running = false;
+                lanes.remove(lane.key, lane);
+            }
+            LOGGER.debug("dropping events for {} on closed dispatcher", lane.key);
+        }
+    }
+
+    private void drain(final Lane lane) {
+        while (true) {
+            final Event event;
+            synchronized (lanes) {
+                event = lane.events.pollFirst();
+                if (event == null) {
+                    lane.running = false;
+                    lanes.remove(lane.key, lane);
+                    return;
+                }
+                lane.startedNanos = System.nanoTime();
+                lane.stallReported = false;
+            }
+            final long started = System.nanoTime();
+            try {
+                event.handle();
+            } catch (final IRCClientException | RuntimeException e) {
+                failureCounter.increment();
+                LOGGER.error("error handling event for {}: {}", lane.key, e.getMessage(), e);
+            } finally {
+                handlerTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private void checkStalls() {
+        final long now = System.nanoTime();
+        synchronized (lanes) {
+            for (final Lane lane : lanes.values()) {
+                if (lane.running && !lane.stallReported && now - lane.startedNanos > stallNanos) {
+                    lane.stallReported = true;
+                    stallCounter.increment();
+                    LOGGER.warn("event handler for {} has been running for {} ms, {} events waiting", lane.key,
+                            TimeUnit.NANOSECONDS.toMillis(now - lane.startedNanos), lane.events.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of events waiting for or in delivery
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Deliver the events that have already been dispatched and stop the worker threads.
+     *
+     * @param timeoutMillis maximum time in milliseconds to wait for the delivery of pending events
+     */
+    public void close(final long timeoutMillis) {
+        synchronized (lanes) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("{} events have not been delivered", pending.get());
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Deliver the events that have already been dispatched, waiting at most five seconds, and stop the worker threads.
+     */
+    @Override
+    public void close() {
+        close(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -23,6 +23,8 @@ package org.cacert.votebot.shared;
 
 import org.cacert.votebot.shared.exceptions.IRCClientException;
 
+import java.time.Instant;
+
 /**
  * Base class for IRC bot implementations.
  *
@@ -46,6 +48,21 @@ public abstract class IRCBot {
     public abstract void publicMessage(String from, String channel,
                                        String message) throws IRCClientException;
 
+    /**
+     * Handle a received public message with the time the server received it. The default implementation delegates to
+     * {@link #publicMessage(String, String, String)}.
+     *
+     * @param from       sender nick name
+     * @param channel    channel name
+     * @param message    message text
+     * @param serverTime time from the IRCv3 server-time tag or null if the server did not send it
+     * @throws IRCClientException for IRC client problems
+     */
+    public void publicMessage(final String from, final String channel, final String message,
+                              final Instant serverTime) throws IRCClientException {
+        publicMessage(from, channel, message);
+    }
+
     /**
      * Handle a received private message.
      *
@@ -55,6 +72,54 @@ public abstract class IRCBot {
      */
     public abstract void privateMessage(String from, String message) throws IRCClientException;
 
+    /**
+     * Handle a parsed public message. The default implementation delegates to
+     * {@link #publicMessage(String, String, String, Instant)}.
+     *
+     * @param message parsed PRIVMSG to a channel, only valid during the call
+     * @throws IRCClientException for IRC client problems
+     */
+    public void publicMessage(final IRCMessage message) throws IRCClientException {
+        publicMessage(message.getNick(), channelName(message.getParam(0)), message.getParam(1),
+                message.getServerTime());
+    }
+
+    /**
+     * Key that orders the handling of a public message. Messages with the same key are handled one after another in
+     * the order they were received, messages with different keys may be handled concurrently. The default
+     * implementation handles all messages of a channel in order.
+     * <p>
+     * The message is the instance that is handed to {@link #publicMessage(IRCMessage)} later, so an implementation
+     * that parses the text to find the key may {@link IRCMessage#attach(Object) attach} the result.
+     *
+     * @param message parsed PRIVMSG to a channel
+     * @return ordering key
+     */
+    public String publicMessageOrder(final IRCMessage message) {
+        return message.getParam(0);
+    }
+
+    /**
+     * Handle a parsed private message. The default implementation delegates to
+     * {@link #privateMessage(String, String)}.
+     *
+     * @param message parsed PRIVMSG to the bot, only valid during the call
+     * @throws IRCClientException for IRC client problems
+     */
+    public void privateMessage(final IRCMessage message) throws IRCClientException {
+        privateMessage(message.getNick(), message.getParam(1));
+    }
+
+    /**
+     * Strip the channel prefix from a channel name parameter.
+     *
+     * @param channel channel name as sent by the server
+     * @return channel name without leading '#'
+     */
+    static String channelName(final String channel) {
+        return channel.startsWith("#") ? channel.substring(1) : channel;
+    }
+
     /**
      * Send a public message.
      *
@@ -66,6 +131,30 @@ public abstract class IRCBot {
         getIrcClient().send(message, channel);
     }
 
+    /**
+     * Send a vote acknowledgement to a channel.
+     *
+     * @param channel channel name
+     * @param voter   nick name of the voter the acknowledgement refers to
+     * @param message message text
+     * @throws IRCClientException for IRC client problems
+     */
+    protected final void sendPublicAck(final String channel, final String voter, final String message)
+            throws IRCClientException {
+        getIrcClient().sendAck(message, channel, voter);
+    }
+
+    /**
+     * Send a vote acknowledgement as NOTICE to the voter.
+     *
+     * @param voter   nick name of the voter
+     * @param message message text
+     * @throws IRCClientException for IRC client problems
+     */
+    protected final void sendPrivateAck(final String voter, final String message) throws IRCClientException {
+        getIrcClient().sendPrivateAck(message, voter);
+    }
+
     /**
      * Send a private message.
      *
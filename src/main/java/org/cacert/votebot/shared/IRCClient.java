@@ -20,6 +20,10 @@
  */
 package org.cacert.votebot.shared;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.cli.*;
 import org.cacert.votebot.shared.exceptions.IRCClientException;
 import org.cacert.votebot.shared.exceptions.InvalidChannelName;
@@ -27,25 +31,23 @@ import org.cacert.votebot.shared.exceptions.InvalidNickName;
 import org.cacert.votebot.shared.exceptions.NoBotAssigned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PreDestroy;
-import javax.net.ssl.SSLSocketFactory;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.FileAttribute;
-import java.nio.file.attribute.PosixFilePermission;
-import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 /**
@@ -69,12 +71,245 @@ public class IRCClient {
      * Regular expression to validate IRC channel names.
      */
     private static final Pattern CHANNEL_RE = Pattern.compile("[a-zA-Z0-9_-]+");
+    /**
+     * RPL_WELCOME numeric sent after successful registration.
+     */
+    private static final int RPL_WELCOME = 1;
+    /**
+     * RPL_ENDOFNAMES numeric sent after the names list of a joined channel.
+     */
+    private static final int RPL_ENDOFNAMES = 366;
+    /**
+     * ERR_ERRONEUSNICKNAME numeric sent when the server does not accept a nick name.
+     */
+    private static final int ERR_ERRONEUSNICKNAME = 432;
+    /**
+     * ERR_NICKNAMEINUSE numeric sent when the nick name is taken.
+     */
+    private static final int ERR_NICKNAMEINUSE = 433;
+    /**
+     * Numerics sent when a channel cannot be joined.
+     */
+    private static final Set<Integer> JOIN_ERRORS = new HashSet<>(Arrays.asList(
+            403, // ERR_NOSUCHCHANNEL
+            405, // ERR_TOOMANYCHANNELS
+            471, // ERR_CHANNELISFULL
+            473, // ERR_INVITEONLYCHAN
+            474, // ERR_BANNEDFROMCHAN
+            475  // ERR_BADCHANNELKEY
+    ));
+    /**
+     * Number of underscores that are appended to the nick name when it and all alternative nick names are in use.
+     */
+    private static final int MAX_NICK_SUFFIX = 3;
 
-    private final Semaphore loggedin = new Semaphore(1);
-    private PrintWriter out;
-    private final Set<String> joinedChannels = new HashSet<>();
+    /**
+     * Name of the non-blocking transport for the --transport command line option.
+     */
+    private static final String TRANSPORT_NIO = "nio";
+    /**
+     * Name of the blocking transport for the --transport command line option.
+     */
+    private static final String TRANSPORT_BLOCKING = "blocking";
+    /**
+     * Receive time of the message whose event is handled by the current dispatcher thread.
+     */
+    private static final ThreadLocal<Long> EVENT_RECEIVED = new ThreadLocal<>();
+    /**
+     * Separator of the entries of acknowledgement digests.
+     */
+    private static final String DIGEST_SEPARATOR = ", ";
+
+    private final CompletableFuture<Void> registration = new CompletableFuture<>();
+    private final Map<String, CompletableFuture<Void>> joinConfirmations = new ConcurrentHashMap<>();
+    private final Map<String, Counter> receivedLineCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final ChannelLogger channelLogger;
+    private final boolean ownsChannelLogger;
+    private volatile IRCConnection connection;
+    private IRCEventLoop eventLoop;
+    private OutboundQueue outboundQueue;
+    private EventDispatcher eventDispatcher;
+    private volatile SenderPool senderPool;
+    private LagMonitor lagMonitor;
+    private final CapabilityNegotiator capabilityNegotiator =
+            new CapabilityNegotiator(line -> connection.sendLine(line));
+    private EchoTracker echoTracker;
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+    private volatile MessagePacker messagePacker;
+    private volatile ServerReader serverReader;
+    private String nick;
+    private volatile String currentNick;
+    private volatile boolean registered;
+    private int nickAttempt;
+    private String server;
+    private int port;
+    private boolean ssl;
+    private String transport;
+    private IRCConnectionSettings connectionSettings;
+
+    private ScheduledExecutorService reconnectScheduler;
+    private ReconnectBackoff reconnectBackoff;
+    private volatile boolean quitting;
+    private boolean reconnecting;
+    private boolean reconnectScheduled;
+    private int reconnectAttempt;
+    private long disconnectedNanos;
+    private Counter outageCounter;
+    private Counter reconnectAttemptCounter;
+    private Timer reconnectTimer;
+    private final Set<String> joinedChannels = ConcurrentHashMap.newKeySet();
     private IRCBot targetBot;
 
+    /**
+     * Whether to disable Nagle's algorithm on the server connection.
+     */
+    @Value("${ircClient.tcpNoDelay:true}")
+    private boolean tcpNoDelay = true;
+
+    /**
+     * Whether to enable TCP keep alive probes on the server connection.
+     */
+    @Value("${ircClient.keepAlive:true}")
+    private boolean keepAlive = true;
+
+    /**
+     * Seconds without received data after which the server connection is considered broken, 0 disables the timeout.
+     */
+    @Value("${ircClient.readTimeoutSecs:0}")
+    private int readTimeoutSecs;
+
+    /**
+     * Socket receive buffer size in bytes, 0 keeps the operating system default.
+     */
+    @Value("${ircClient.receiveBufferSize:0}")
+    private int receiveBufferSize;
+
+    /**
+     * Socket send buffer size in bytes, 0 keeps the operating system default.
+     */
+    @Value("${ircClient.sendBufferSize:0}")
+    private int sendBufferSize;
+
+    /**
+     * Number of lines that may be sent without delay.
+     */
+    @Value("${ircClient.floodBurst:5}")
+    private int floodBurst = 5;
+
+    /**
+     * Milliseconds after which one more line may be sent once the burst has been used up.
+     */
+    @Value("${ircClient.floodIntervalMillis:2000}")
+    private long floodIntervalMillis = 2000;
+
+    /**
+     * Maximum number of queued announcement or acknowledgement lines.
+     */
+    @Value("${ircClient.sendQueueCapacity:1000}")
+    private int sendQueueCapacity = 1000;
+
+    /**
+     * Number of queued acknowledgements from which acknowledgements are merged and stale ones dropped.
+     */
+    @Value("${ircClient.ackMergeThreshold:20}")
+    private int ackMergeThreshold = 20;
+
+    /**
+     * Seconds after which a queued acknowledgement is considered stale.
+     */
+    @Value("${ircClient.ackMaxAgeSecs:30}")
+    private long ackMaxAgeSecs = 30;
+
+    /**
+     * Whether short lines of multi-line messages are merged into as few protocol lines as fit.
+     */
+    @Value("${ircClient.mergeLines:true}")
+    private boolean mergeLines = true;
+
+    /**
+     * Comma separated nick names that are tried when the nick name is in use.
+     */
+    @Value("${ircClient.altNicks:}")
+    private String altNicks = "";
+
+    /**
+     * Seconds to wait for the server to accept the registration.
+     */
+    @Value("${ircClient.registrationTimeoutSecs:30}")
+    private long registrationTimeoutSecs = 30;
+
+    /**
+     * Number of auxiliary send-only connections for private acknowledgements, 0 disables the sender pool.
+     */
+    @Value("${ircClient.senderPoolSize:0}")
+    private int senderPoolSize;
+
+    /**
+     * Number of platform threads that deliver events to the bot when the JDK has no virtual threads.
+     */
+    @Value("${ircClient.dispatchThreads:4}")
+    private int dispatchThreads = 4;
+
+    /**
+     * Milliseconds after which a running bot event handler is reported as stalled.
+     */
+    @Value("${ircClient.dispatchStallMillis:5000}")
+    private long dispatchStallMillis = 5000;
+
+    /**
+     * Seconds between client PINGs that measure the lag of the connection.
+     */
+    @Value("${ircClient.pingIntervalSecs:30}")
+    private long pingIntervalSecs = 30;
+
+    /**
+     * Seconds without any line from the server after which the connection is considered dead.
+     */
+    @Value("${ircClient.deadLinkSecs:120}")
+    private long deadLinkSecs = 120;
+
+    /**
+     * Whether to reconnect automatically after the server connection has been lost.
+     */
+    @Value("${ircClient.reconnect:true}")
+    private boolean reconnect = true;
+
+    /**
+     * Milliseconds to wait before the first reconnect attempt.
+     */
+    @Value("${ircClient.reconnectInitialDelayMillis:1000}")
+    private long reconnectInitialDelayMillis = 1000;
+
+    /**
+     * Maximum milliseconds to wait between reconnect attempts.
+     */
+    @Value("${ircClient.reconnectMaxDelayMillis:60000}")
+    private long reconnectMaxDelayMillis = 60000;
+
+    /**
+     * Create a client that records metrics in a private registry and writes channel logs with its own logger.
+     */
+    public IRCClient() {
+        this(new SimpleMeterRegistry(), new ChannelLogger(), true);
+    }
+
+    /**
+     * @param meterRegistry registry for client metrics
+     * @param channelLogger writer for channel log files
+     */
+    @Autowired
+    public IRCClient(final MeterRegistry meterRegistry, final ChannelLogger channelLogger) {
+        this(meterRegistry, channelLogger, false);
+    }
+
+    private IRCClient(
+            final MeterRegistry meterRegistry, final ChannelLogger channelLogger, final boolean ownsChannelLogger) {
+        this.meterRegistry = meterRegistry;
+        this.channelLogger = channelLogger;
+        this.ownsChannelLogger = ownsChannelLogger;
+    }
+
     /**
      * Initialize the IRC client based on command line arguments.
      *
@@ -100,6 +335,9 @@ public class IRCClient {
         opts.addOption(
                 Option.builder("n").longOpt("nick").hasArg(true).argName("nick").required()
                       .desc("IRC nick name").build());
+        opts.addOption(
+                Option.builder("t").longOpt("transport").hasArg(true).argName("transport")
+                      .desc("network transport, either 'blocking' (default) or 'nio'").build());
 
         final CommandLineParser commandLineParser = new DefaultParser();
         try {
@@ -108,7 +346,8 @@ public class IRCClient {
                     commandLine.getOptionValue("nick"),
                     commandLine.getOptionValue("host"),
                     Integer.parseInt(commandLine.getOptionValue("port", "7000")),
-                    !commandLine.hasOption("no-ssl"));
+                    !commandLine.hasOption("no-ssl"),
+                    commandLine.getOptionValue("transport", TRANSPORT_BLOCKING));
         } catch (final ParseException pe) {
             final HelpFormatter formatter = new HelpFormatter();
             formatter.printHelp("votebot", opts);
@@ -117,29 +356,357 @@ public class IRCClient {
         return this;
     }
 
-    private void initialize(final String nick, final String server, final int port, final boolean ssl)
+    private void initialize(
+            final String nick, final String server, final int port, final boolean ssl, final String transport)
     throws IOException,
             InterruptedException, IRCClientException {
         if (!NICK_RE.matcher(nick).matches()) {
             throw new IRCClientException(String.format("malformed nickname %s", nick));
         }
 
-        final Socket socket;
-        if (ssl) {
-            socket = SSLSocketFactory.getDefault().createSocket(server, port); //default-ssl = 7000
-        } else {
-            socket = new Socket(server, port); // default-plain = 6667
+        this.nick = nick;
+        this.server = server;
+        this.port = port;
+        this.ssl = ssl;
+        this.transport = transport;
+        connectionSettings = new IRCConnectionSettings(
+                tcpNoDelay, keepAlive, (int) Duration.ofSeconds(readTimeoutSecs).toMillis(),
+                receiveBufferSize, sendBufferSize);
+        messagePacker = new MessagePacker(nick, mergeLines);
+        channelLogger.start();
+        initializeReconnect();
+
+        if (echoTracker == null) {
+            echoTracker = new EchoTracker(sendQueueCapacity, meterRegistry);
+        }
+
+        if (outboundQueue == null) {
+            outboundQueue = new OutboundQueue(
+                    "primary", this::transmit,
+                    new TokenBucket(floodBurst, TimeUnit.MILLISECONDS.toNanos(floodIntervalMillis), System.nanoTime()),
+                    sendQueueCapacity, ackMergeThreshold, TimeUnit.SECONDS.toNanos(ackMaxAgeSecs), meterRegistry);
+        }
+
+        if (eventDispatcher == null) {
+            eventDispatcher = new EventDispatcher(dispatchThreads, dispatchStallMillis, meterRegistry);
+        }
+
+        if (lagMonitor == null) {
+            lagMonitor = new LagMonitor(
+                    TimeUnit.SECONDS.toMillis(pingIntervalSecs), TimeUnit.SECONDS.toMillis(deadLinkSecs),
+                    // PINGs bypass the outbound queue to measure the lag of the link only
+                    line -> connection.sendLine(line), this::linkDead, meterRegistry);
+        }
+
+        // lines are held back until the server accepted the registration
+        outboundQueue.setPaused(true);
+        connect();
+        register();
+
+        try {
+            registration.get(registrationTimeoutSecs, TimeUnit.SECONDS);
+        } catch (final ExecutionException e) {
+            throw (IRCClientException) e.getCause();
+        } catch (final TimeoutException e) {
+            throw new IRCClientException(
+                    String.format("registration not accepted within %d seconds", registrationTimeoutSecs));
+        }
+
+        startSenderPool();
+    }
+
+    /**
+     * Negotiate capabilities and register on the current connection. Registration and the PONGs answering PINGs of
+     * the server bypass the outbound queue, which is paused until the registration has been accepted.
+     */
+    private void register() {
+        registered = false;
+        nickAttempt = 0;
+        currentNick = nick;
+        capabilityNegotiator.begin();
+        connection.sendLine("NICK " + nick);
+        connection.sendLine("USER " + nick + " 0 * :CAcert Votebot");
+    }
+
+    /**
+     * Try the next alternative nick name after the server refused the current one during registration. The
+     * configured alternatives are tried first, then the nick name with up to {@link #MAX_NICK_SUFFIX} underscores.
+     * If all of them are refused while reconnecting, the connection is closed and the reconnect is retried with the
+     * delay of the {@link ReconnectBackoff}.
+     */
+    private synchronized void nickRefused() {
+        final List<String> alternatives = new ArrayList<>();
+        for (final String alternative : altNicks.split(",")) {
+            if (NICK_RE.matcher(alternative.trim()).matches()) {
+                alternatives.add(alternative.trim());
+            }
+        }
+        for (int i = 1; i <= MAX_NICK_SUFFIX; i++) {
+            alternatives.add(nick + String.join("", Collections.nCopies(i, "_")));
         }
+        if (nickAttempt >= alternatives.size()) {
+            LOGGER.error("nick name {} and all alternatives are in use", nick);
+            final String reason = String.format("nick name %s and all alternatives are in use", nick);
+            if (!registration.completeExceptionally(new IRCClientException(reason))) {
+                // the first registration succeeded, try again on a new connection after the reconnect delay
+                final IRCConnection refused = connection;
+                serverReader = null;
+                refused.close();
+                connectionLost(new IOException(reason));
+            }
+            return;
+        }
+        final String alternative = alternatives.get(nickAttempt++);
+        LOGGER.warn("nick name {} is in use, trying {}", currentNick, alternative);
+        currentNick = alternative;
+        connection.sendLine("NICK " + alternative);
+    }
 
-        out = new CRLFPrintWriter(socket.getOutputStream(), true);
-        final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+    /**
+     * @param channels channel names without '#'
+     * @return a single JOIN line for all given channels
+     */
+    private static String joinLine(final Collection<String> channels) {
+        final StringJoiner line = new StringJoiner(",#", "JOIN #", "");
+        channels.forEach(line::add);
+        return line.toString();
+    }
 
-        new ServerReader(in);
+    /**
+     * Send a line that left the outbound queue and remember it for delivery confirmation.
+     *
+     * @param line protocol line
+     */
+    private void transmit(final String line) {
+        if (capabilityNegotiator.isEnabled(CapabilityNegotiator.ECHO_MESSAGE)) {
+            echoTracker.sent(line);
+        }
+        connection.sendLine(line);
+    }
 
-        out.println("NICK " + nick);
-        out.println("USER " + nick + " 0 * :CAcert Votebot");
+    /**
+     * Open a new connection to the IRC server with the parameters given at initialization.
+     *
+     * @throws IOException        in case of network IO problems
+     * @throws IRCClientException if the transport is unknown
+     */
+    private void connect() throws IOException, IRCClientException {
+        final ServerReader reader = new ServerReader();
+        serverReader = reader;
+        connection = openConnection(reader);
+    }
 
-        loggedin.acquire();
+    /**
+     * Open a connection with the server, port and transport given at initialization.
+     *
+     * @param handler receiver of the connection's lines
+     * @return new connection
+     * @throws IOException        in case of network IO problems
+     * @throws IRCClientException if the transport is unknown
+     */
+    private IRCConnection openConnection(final IRCConnection.Handler handler) throws IOException, IRCClientException {
+        switch (transport) {
+            case TRANSPORT_NIO:
+                synchronized (this) {
+                    if (eventLoop == null) {
+                        eventLoop = new IRCEventLoop("irc-event-loop");
+                    }
+                }
+                return new NioIRCConnection(eventLoop, server, port, ssl, connectionSettings, handler);
+            case TRANSPORT_BLOCKING:
+                return new BlockingIRCConnection(server, port, ssl, connectionSettings, handler);
+            default:
+                throw new IRCClientException(String.format("unknown transport %s", transport));
+        }
+    }
+
+    /**
+     * Start the auxiliary sender connections if a pool size has been configured.
+     */
+    private synchronized void startSenderPool() {
+        if (senderPoolSize < 1 || senderPool != null) {
+            return;
+        }
+        senderPool = new SenderPool(
+                nick, senderPoolSize, mergeLines, this::openConnection,
+                (name, sender) -> new OutboundQueue(
+                        name, sender::sendLine,
+                        new TokenBucket(floodBurst, TimeUnit.MILLISECONDS.toNanos(floodIntervalMillis),
+                                System.nanoTime()),
+                        sendQueueCapacity, ackMergeThreshold, TimeUnit.SECONDS.toNanos(ackMaxAgeSecs),
+                        meterRegistry),
+                reconnectBackoff, meterRegistry);
+        senderPool.start();
+    }
+
+    private synchronized void initializeReconnect() {
+        if (reconnectScheduler != null) {
+            return;
+        }
+        reconnectBackoff = new ReconnectBackoff(reconnectInitialDelayMillis, reconnectMaxDelayMillis);
+        reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "irc-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+        outageCounter = Counter.builder("votebot.irc.outages")
+                               .description("Number of lost IRC server connections")
+                               .register(meterRegistry);
+        reconnectAttemptCounter = Counter.builder("votebot.irc.reconnect.attempts")
+                                         .description("Number of attempts to reconnect to the IRC server")
+                                         .register(meterRegistry);
+        reconnectTimer = Timer.builder("votebot.irc.reconnect.duration")
+                              .description("Time from losing the IRC server connection until registration succeeded")
+                              .register(meterRegistry);
+    }
+
+    /**
+     * Close a connection on which nothing has been received for too long and treat it as lost.
+     *
+     * @param silenceMillis milliseconds since the last received line
+     */
+    private void linkDead(final long silenceMillis) {
+        final IRCConnection dead = connection;
+        LOGGER.warn("no data from {}:{} for {} ms, closing connection", server, port, silenceMillis);
+        // the reader of the dead connection must not report the local close
+        serverReader = null;
+        dead.close();
+        connectionLost(new SocketTimeoutException(String.format("no data received for %d ms", silenceMillis)));
+    }
+
+    /**
+     * Start reconnecting after the current connection has been lost. Lines are kept in the outbound queue until
+     * registration on the new connection succeeded.
+     *
+     * @param cause reason for the connection loss
+     */
+    private synchronized void connectionLost(final IOException cause) {
+        registered = false;
+        lagMonitor.stop();
+        echoTracker.clear();
+        openBatches.clear();
+        if (quitting || !reconnect || reconnectScheduler == null) {
+            return;
+        }
+        if (!reconnecting) {
+            reconnecting = true;
+            reconnectAttempt = 0;
+            disconnectedNanos = System.nanoTime();
+            outageCounter.increment();
+            outboundQueue.setPaused(true);
+            LOGGER.warn("lost connection to {}:{}: {}", server, port, cause.getMessage());
+        }
+        scheduleReconnect();
+    }
+
+    private synchronized void scheduleReconnect() {
+        // a failed connect may be reported by the transport and by the caller of connect()
+        if (reconnectScheduled || quitting) {
+            return;
+        }
+        reconnectScheduled = true;
+        final long delay = reconnectBackoff.delayMillis(reconnectAttempt++);
+        LOGGER.info("reconnect attempt {} in {} ms", reconnectAttempt, delay);
+        reconnectScheduler.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void reconnect() {
+        synchronized (this) {
+            reconnectScheduled = false;
+        }
+        if (quitting) {
+            return;
+        }
+        reconnectAttemptCounter.increment();
+        try {
+            connect();
+            register();
+        } catch (final IOException | IRCClientException e) {
+            LOGGER.warn("reconnect to {}:{} failed: {}", server, port, e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * Resume sending queued lines after the server accepted the registration. After a reconnect all channels are
+     * rejoined first.
+     */
+    private synchronized void registered() {
+        registered = true;
+        if (reconnecting) {
+            if (!joinedChannels.isEmpty()) {
+                connection.sendLine(joinLine(joinedChannels));
+            }
+            final long outage = System.nanoTime() - disconnectedNanos;
+            reconnectTimer.record(outage, TimeUnit.NANOSECONDS);
+            LOGGER.info("reconnected to {}:{} after {} ms and {} attempts", server, port,
+                    TimeUnit.NANOSECONDS.toMillis(outage), reconnectAttempt);
+            reconnecting = false;
+        }
+        outboundQueue.setPaused(false);
+        registration.complete(null);
+    }
+
+    /**
+     * @param channel channel name as sent by the server
+     */
+    private void joinConfirmed(final String channel) {
+        final CompletableFuture<Void> confirmation = joinConfirmations.get(dispatchKey(IRCBot.channelName(channel)));
+        if (confirmation != null && confirmation.complete(null)) {
+            LOGGER.debug("joined {}", channel);
+        }
+    }
+
+    /**
+     * @param channel channel name as sent by the server
+     * @param reason  error message of the server
+     */
+    private void joinFailed(final String channel, final String reason) {
+        final CompletableFuture<Void> confirmation = joinConfirmations.get(dispatchKey(IRCBot.channelName(channel)));
+        LOGGER.error("cannot join {}: {}", channel, reason);
+        if (confirmation != null) {
+            confirmation.completeExceptionally(
+                    new IRCClientException(String.format("cannot join %s: %s", channel, reason)));
+        }
+    }
+
+    /**
+     * @param target channel or nick name, IRC compares both case-insensitively
+     * @return key for ordering events of the same conversation and for tracking joins
+     */
+    private static String dispatchKey(final String target) {
+        return target.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return true if the client is registered on a connection that is not known to be dead
+     */
+    public boolean isConnected() {
+        return lagMonitor != null && lagMonitor.isActive();
+    }
+
+    /**
+     * @return round-trip lag of the connection in milliseconds, see {@link LagMonitor#getLagMillis()}
+     */
+    public long getLagMillis() {
+        return lagMonitor != null ? lagMonitor.getLagMillis() : 0;
+    }
+
+    /**
+     * @return milliseconds since the last line has been received from the server
+     */
+    public long getSilenceMillis() {
+        return lagMonitor != null ? lagMonitor.getSilenceMillis() : 0;
+    }
+
+    /**
+     * Queue a raw protocol line for sending to the IRC server.
+     *
+     * @param line     protocol line
+     * @param priority send lane
+     */
+    private void sendLine(final String line, final OutboundPriority priority) {
+        outboundQueue.offer(line, priority, null);
     }
 
     /**
@@ -183,11 +750,34 @@ public class IRCClient {
      * @throws IRCClientException for IRC client issue
      */
     public void join(final String channel) throws IRCClientException {
-        checkChannelPreconditions(channel);
+        joinAll(channel);
+    }
+
+    /**
+     * Let the associated bot join the given channels with a single JOIN command.
+     *
+     * @param channels channel names
+     * @return future that completes when the server confirmed all joins and fails if a channel cannot be joined
+     * @throws IRCClientException for IRC client issue
+     */
+    public CompletableFuture<Void> joinAll(final String... channels) throws IRCClientException {
+        for (final String channel : channels) {
+            checkChannelPreconditions(channel);
+        }
 
-        if (joinedChannels.add(channel)) {
-            out.println("JOIN #" + channel);
+        final List<String> newChannels = new ArrayList<>();
+        final CompletableFuture<?>[] confirmations = new CompletableFuture<?>[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            confirmations[i] = joinConfirmations.computeIfAbsent(
+                    dispatchKey(channels[i]), key -> new CompletableFuture<>());
+            if (joinedChannels.add(channels[i])) {
+                newChannels.add(channels[i]);
+            }
+        }
+        if (!newChannels.isEmpty()) {
+            sendLine(joinLine(newChannels), OutboundPriority.PROTOCOL);
         }
+        return CompletableFuture.allOf(confirmations);
     }
 
     /**
@@ -200,11 +790,14 @@ public class IRCClient {
         checkChannelPreconditions(channel);
 
         if (joinedChannels.remove(channel)) {
-            out.println("PART #" + channel);
+            joinConfirmations.remove(dispatchKey(channel));
+            sendLine("PART #" + channel, OutboundPriority.ANNOUNCEMENT);
         }
     }
 
-    @PreDestroy
+    /**
+     * Leave all joined channels.
+     */
     public void leaveAll() {
         List<String> channels = new ArrayList<>(joinedChannels);
         for (String channel : channels) {
@@ -226,11 +819,166 @@ public class IRCClient {
     public void send(final String msg, final String channel) throws IRCClientException {
         checkChannelPreconditions(channel);
 
-        for (String line : msg.split("\n")) {
-            if (line.length() == 0) {
-                line = " ";
+        for (final String line : messagePacker.pack("PRIVMSG", "#" + channel, msg)) {
+            sendLine(line, OutboundPriority.ANNOUNCEMENT);
+        }
+    }
+
+    /**
+     * Send a vote acknowledgement to the given channel. Acknowledgements are sent after all other queued lines and
+     * a pending acknowledgement for the same voter is replaced when the queue is congested.
+     *
+     * @param msg     message
+     * @param channel channel name
+     * @param voter   nick name of the voter the acknowledgement refers to
+     * @throws IRCClientException for IRC client issues
+     */
+    public void sendAck(final String msg, final String channel, final String voter) throws IRCClientException {
+        checkChannelPreconditions(channel);
+
+        final List<String> lines = messagePacker.pack("PRIVMSG", "#" + channel, msg);
+        // only single line acknowledgements may replace each other without losing parts of a message
+        final String mergeKey = lines.size() == 1 ? channel + " " + voter : null;
+        final long received = eventReceived();
+        for (final String line : lines) {
+            outboundQueue.offer(line, OutboundPriority.ACK, mergeKey, received);
+        }
+    }
+
+    /**
+     * Send a vote acknowledgement as NOTICE to the voter. The acknowledgement is sent through the auxiliary sender
+     * pool if one is configured and ready, so that acknowledgements are not limited by the flood control of the
+     * primary connection.
+     *
+     * @param msg   message
+     * @param voter nick name of the voter
+     * @throws IRCClientException for IRC client issues
+     */
+    public void sendPrivateAck(final String msg, final String voter) throws IRCClientException {
+        checkPrivateMessagePreconditions(voter);
+
+        final long received = eventReceived();
+        final SenderPool pool = senderPool;
+        if (pool != null && pool.send("NOTICE", voter, msg, OutboundPriority.ACK, voter, received)) {
+            return;
+        }
+        final List<String> lines = messagePacker.pack("NOTICE", voter, msg);
+        final String mergeKey = lines.size() == 1 ? voter : null;
+        for (final String line : lines) {
+            outboundQueue.offer(line, OutboundPriority.ACK, mergeKey, received);
+        }
+    }
+
+    /**
+     * Send the acknowledgements of several votes to the given channel as digest lines. Each line starts with the
+     * prefix followed by as many entries as fit into the line, separated by commas.
+     *
+     * @param prefix  text at the start of each line
+     * @param entries acknowledged votes, e.g. "alice=AYE"
+     * @param channel channel name
+     * @throws IRCClientException for IRC client issues
+     */
+    public void sendAckDigest(final String prefix, final List<String> entries, final String channel)
+            throws IRCClientException {
+        checkChannelPreconditions(channel);
+
+        final String target = "#" + channel;
+        final int budget = messagePacker.getBudget("PRIVMSG", target);
+        final StringBuilder text = new StringBuilder(prefix);
+        int textBytes = MessagePacker.utf8Length(prefix);
+        boolean first = true;
+        for (final String entry : entries) {
+            final int entryBytes = MessagePacker.utf8Length(entry);
+            if (!first && textBytes + DIGEST_SEPARATOR.length() + entryBytes > budget) {
+                offerDigest(target, text.toString());
+                text.setLength(0);
+                text.append(prefix);
+                textBytes = MessagePacker.utf8Length(prefix);
+                first = true;
+            }
+            if (!first) {
+                text.append(DIGEST_SEPARATOR);
+                textBytes += DIGEST_SEPARATOR.length();
             }
-            out.println(String.format("PRIVMSG #%s :%s", channel, line));
+            text.append(entry);
+            textBytes += entryBytes;
+            first = false;
+        }
+        if (!first) {
+            offerDigest(target, text.toString());
+        }
+    }
+
+    /**
+     * Queue a digest line, packed like other messages so that an entry that does not fit into a line on its own is
+     * split instead of being truncated by the server.
+     */
+    private void offerDigest(final String target, final String text) {
+        for (final String line : messagePacker.pack("PRIVMSG", target, text)) {
+            outboundQueue.offer(line, OutboundPriority.ACK, null);
+        }
+    }
+
+    /**
+     * Send the same vote acknowledgement to several voters with NOTICEs that address up to the given number of
+     * voters each, as far as the targets fit into a line.
+     *
+     * @param msg        message
+     * @param voters     nick names of the voters
+     * @param maxTargets maximum number of targets the server accepts in one NOTICE
+     * @throws IRCClientException for IRC client issues
+     */
+    public void sendMultiTargetAck(final String msg, final List<String> voters, final int maxTargets)
+            throws IRCClientException {
+        for (final String voter : voters) {
+            checkPrivateMessagePreconditions(voter);
+        }
+
+        final int messageBytes = MessagePacker.utf8Length(msg);
+        final StringBuilder targets = new StringBuilder();
+        int count = 0;
+        for (final String voter : voters) {
+            if (count > 0 && (count >= maxTargets
+                    || messagePacker.getBudget("NOTICE", targets + "," + voter) < messageBytes)) {
+                offerAcks("NOTICE", targets.toString(), msg);
+                targets.setLength(0);
+                count = 0;
+            }
+            if (count > 0) {
+                targets.append(',');
+            }
+            targets.append(voter);
+            count++;
+        }
+        if (count > 0) {
+            offerAcks("NOTICE", targets.toString(), msg);
+        }
+    }
+
+    private void offerAcks(final String command, final String target, final String msg) {
+        for (final String line : messagePacker.pack(command, target, msg)) {
+            outboundQueue.offer(line, OutboundPriority.ACK, null);
+        }
+    }
+
+    /**
+     * @return receive time of the message that the current bot event answers or {@link OutboundQueue#NOT_RECEIVED}
+     * outside of dispatched bot events
+     */
+    private static long eventReceived() {
+        final Long received = EVENT_RECEIVED.get();
+        return received != null ? received : OutboundQueue.NOT_RECEIVED;
+    }
+
+    /**
+     * Handle a bot event and make the receive time of its message available to acknowledgements sent by the bot.
+     */
+    private static void answer(final long received, final EventDispatcher.Event event) throws IRCClientException {
+        EVENT_RECEIVED.set(received);
+        try {
+            event.handle();
+        } finally {
+            EVENT_RECEIVED.remove();
         }
     }
 
@@ -244,14 +992,30 @@ public class IRCClient {
     public void sendPrivate(final String msg, final String to) throws IRCClientException {
         checkPrivateMessagePreconditions(to);
 
-        for (String line : msg.split("\n")) {
-            if (line.length() == 0) {
-                line = " ";
-            }
-            out.println(String.format("PRIVMSG %s :%s", to, line));
+        for (final String line : messagePacker.pack("PRIVMSG", to, msg)) {
+            sendLine(line, OutboundPriority.ANNOUNCEMENT);
         }
     }
 
+    /**
+     * Record the start of a vote in the log of the given channel.
+     *
+     * @param channel channel name
+     * @param topic   vote topic
+     */
+    public void logVoteStart(final String channel, final String topic) {
+        channelLogger.logVoteStart("#" + channel, topic);
+    }
+
+    /**
+     * Record the end of the current vote in the log of the given channel.
+     *
+     * @param channel channel name
+     */
+    public void logVoteEnd(final String channel) {
+        channelLogger.logVoteEnd("#" + channel);
+    }
+
     /**
      * Assign a bot to this client.
      *
@@ -266,176 +1030,269 @@ public class IRCClient {
      * Quit the IRC session.
      */
     public void quit() {
-        out.println("QUIT");
+        quitting = true;
+        sendLine("QUIT", OutboundPriority.PROTOCOL);
     }
 
     /**
-     * Reader thread for handling the IRC connection.
+     * Leave all channels, stop the lag monitor, deliver dispatched events, send all queued lines, stop the event loop
+     * of the non-blocking transport if it has been used and close the channel logger if it has been created by this
+     * client.
      */
-    private class ServerReader implements Runnable {
-        private final BufferedReader bufferedReader;
-        private final Map<String, PrintWriter> logs = new HashMap<>();
+    @PreDestroy
+    public void shutdown() {
+        quitting = true;
+        leaveAll();
+        synchronized (this) {
+            if (reconnectScheduler != null) {
+                reconnectScheduler.shutdownNow();
+            }
+        }
+        if (lagMonitor != null) {
+            lagMonitor.close();
+        }
+        if (eventDispatcher != null) {
+            eventDispatcher.close();
+        }
+        if (senderPool != null) {
+            senderPool.close();
+        }
+        if (outboundQueue != null) {
+            outboundQueue.close();
+        }
+        if (eventLoop != null) {
+            eventLoop.close();
+            eventLoop = null;
+        }
+        if (ownsChannelLogger) {
+            channelLogger.close();
+        }
+    }
 
-        ServerReader(final BufferedReader bufferedReader) {
-            this.bufferedReader = bufferedReader;
+    /**
+     * Open IRCv3 batch of related messages.
+     */
+    private static final class Batch {
+        private final String type;
+        private int messages;
 
-            Thread serverReader = new Thread(this);
-            serverReader.setName("irc-client-thread");
-            serverReader.start();
+        private Batch(final String type) {
+            this.type = type;
         }
+    }
 
-        @Override
-        public void run() {
-            String line;
+    /**
+     * Handler for lines received from the IRC connection. Protocol messages are handled on the reading thread, bot
+     * events are handed to the {@link EventDispatcher} ordered by channel or by the nick name of private messages.
+     */
+    private class ServerReader implements IRCConnection.Handler {
+        private final IRCMessage message = new IRCMessage();
+        private long receivedNanos;
 
+        @Override
+        public void lineReceived(final byte[] buffer, final int offset, final int length) {
+            receivedNanos = System.nanoTime();
+            lagMonitor.lineReceived();
+            if (!message.parse(buffer, offset, length)) {
+                LOGGER.warn("malformed line: {}", new String(buffer, offset, length, StandardCharsets.UTF_8));
+                return;
+            }
+            receivedLineCounters.computeIfAbsent(message.getCommand(), command ->
+                    Counter.builder("votebot.irc.received.lines")
+                           .description("Lines received from the IRC server")
+                           .tag("command", command)
+                           .register(meterRegistry)).increment();
             try {
-                while ((line = bufferedReader.readLine()) != null) {
-                    final String fullLine = line;
-
-                    if (line.startsWith("PING ")) {
-                        handleIrcPing(line);
-                        continue;
-                    }
+                handleMessage();
+            } catch (final IRCClientException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+        }
 
-                    String referent = "";
+        @Override
+        public void connectionClosed(final IOException cause) {
+            if (cause == null || serverReader != this) {
+                return;
+            }
+            LOGGER.error(cause.getMessage(), cause);
+            connectionLost(cause);
+        }
 
-                    if (line.startsWith(":")) {
-                        final String[] parts = line.split(" ", 2);
-                        referent = parts[0];
-                        line = parts[1];
-                    }
+        private void handleMessage() throws IRCClientException {
+            if (message.isSkippableNumeric()) {
+                return;
+            }
 
-                    final String[] command = line.split(" ", 3);
+            if (message.getNumeric() == RPL_WELCOME) {
+                final String registeredNick = message.getParam(0);
+                if (registeredNick != null) {
+                    currentNick = registeredNick;
+                    messagePacker.setNick(registeredNick);
+                }
+                updateSource();
+                lagMonitor.start();
+                registered();
+                return;
+            }
 
-                    if (command[0].equals("001")) {
-                        loggedin.release();
-                    }
+            if (message.getNumeric() == ERR_NICKNAMEINUSE || message.getNumeric() == ERR_ERRONEUSNICKNAME) {
+                if (!registered) {
+                    nickRefused();
+                } else {
+                    LOGGER.warn("nick name change refused: {}", message);
+                }
+                return;
+            }
 
-                    switch (command[0]) {
-                        case "PRIVMSG":
-                            final String msg = command[2].substring(1);
-                            final String chnl = command[1];
-
-                            if (chnl.startsWith("#")) {
-                                handleMsg(referent, chnl, msg);
-                            } else {
-                                handlePrivMsg(referent, msg);
-                            }
-
-                            log(chnl, fullLine);
-                            break;
-                        case "JOIN": {
-                            final String channel = command[1].substring(1);
-                            targetBot.join(cleanReferent(referent), channel.substring(1));
-                            log(channel, fullLine);
-                            break;
-                        }
-                        case "PART":
-                            final String channel = command[1];
-                            targetBot.part(cleanReferent(referent), channel);
-                            log(channel, fullLine);
-                            break;
-                        default:
-                            LOGGER.info("unknown line: {}", line);
-                            break;
-                    }
+            if (message.getNumeric() == RPL_ENDOFNAMES) {
+                if (message.getParamCount() > 1) {
+                    joinConfirmed(message.getParam(1));
                 }
-            } catch (final IOException | IRCClientException e) {
-                LOGGER.error(e.getMessage(), e);
+                return;
             }
-        }
 
-        private void handleIrcPing(final String line) {
-            LOGGER.debug("PONG");
-            out.println("PONG " + line.substring("PING ".length()));
-        }
+            if (JOIN_ERRORS.contains(message.getNumeric())) {
+                if (message.getParamCount() > 1) {
+                    joinFailed(message.getParam(1), message.getParam(message.getParamCount() - 1));
+                }
+                return;
+            }
 
-        private String cleanReferent(final String referent) {
-            final String[] parts = referent.split("!");
+            if (message.isCommand("PING")) {
+                handleIrcPing();
+                return;
+            }
 
-            if (!parts[0].startsWith(":")) {
-                LOGGER.error("invalid public message");
-                return "unknown";
+            if (message.isCommand("CAP")) {
+                capabilityNegotiator.handle(message);
+                return;
             }
 
-            return parts[0];
-        }
+            if (message.isCommand("BATCH")) {
+                handleBatch();
+                return;
+            }
 
-        private void log(final String channel, final String logline) {
-            PrintWriter log = logs.get(channel);
+            if (message.isCommand("PONG")) {
+                if (message.getParamCount() > 0) {
+                    lagMonitor.pongReceived(message.getParam(message.getParamCount() - 1));
+                }
+                return;
+            }
 
-            if (log == null) {
-                final Path dirPath = Paths.get("irc");
-                if (!Files.exists(dirPath)) {
-                    final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
-                    final FileAttribute fileAttributes = PosixFilePermissions.asFileAttribute(permissions);
-                    try {
-                        Files.createDirectory(dirPath, fileAttributes);
-                    } catch (final IOException e) {
-                        LOGGER.error("error creating directory 'irc': {}", e.getMessage());
-                        return;
-                    }
+            if (message.isCommand("PRIVMSG")) {
+                checkBotAssigned();
+                final String target = message.getParam(0);
+                if (message.getNick() == null || target == null || message.getParamCount() < 2) {
+                    LOGGER.warn("invalid message: {}", message);
+                    return;
+                }
+                if (currentNick.equalsIgnoreCase(message.getNick())) {
+                    // echo-message confirms our own message, the bot must not react to it
+                    echoTracker.echoed(target, message.getParam(1));
+                    channelLogger.log(target, message.getLine());
+                    return;
+                }
+                final IRCMessage event = message.copy();
+                final long received = receivedNanos;
+                if (target.startsWith("#")) {
+                    eventDispatcher.dispatch(dispatchKey(targetBot.publicMessageOrder(event)),
+                            () -> answer(received, () -> targetBot.publicMessage(event)));
+                } else {
+                    eventDispatcher.dispatch(dispatchKey(message.getNick()),
+                            () -> answer(received, () -> targetBot.privateMessage(event)));
                 }
-                final Path filePath = dirPath.resolve(String.format("log_%s", channel));
-                try {
-                    log = new PrintWriter(Files
-                            .newBufferedWriter(filePath, StandardCharsets.UTF_8, StandardOpenOption.APPEND,
-                                    StandardOpenOption.CREATE, StandardOpenOption.WRITE));
-                } catch (final IOException e) {
-                    LOGGER.error("error opening log file '{}' for writing: {}", filePath, e.getMessage());
+                channelLogger.log(target, message.getLine());
+            } else if (message.isCommand("JOIN") || message.isCommand("PART")) {
+                checkBotAssigned();
+                final String channel = message.getParam(0);
+                if (message.getNick() == null || channel == null) {
+                    LOGGER.warn("invalid {} message: {}", message.getCommand(), message);
                     return;
                 }
-                logs.put(channel, log);
+                if (isNetsplitBurst()) {
+                    channelLogger.log(channel, message.getLine());
+                    return;
+                }
+                final String referent = message.getNick();
+                if (message.isCommand("JOIN") && currentNick.equalsIgnoreCase(referent)) {
+                    joinConfirmed(channel);
+                }
+                final String channelName = IRCBot.channelName(channel);
+                if (message.isCommand("JOIN")) {
+                    eventDispatcher.dispatch(dispatchKey(channel), () -> targetBot.join(referent, channelName));
+                } else {
+                    eventDispatcher.dispatch(dispatchKey(channel), () -> targetBot.part(referent, channelName));
+                }
+                channelLogger.log(channel, message.getLine());
+            } else {
+                LOGGER.debug("unknown line: {}", message);
             }
-
-            log.println(logline);
-            log.flush();
         }
 
-        @SuppressWarnings("unused")
-        @PreDestroy
-        private void closeLogs() {
-            for (final PrintWriter pwr : logs.values()) {
-                pwr.flush();
-                pwr.close();
+        /**
+         * Track the start and end of batches. Batches are started with {@code BATCH +reference type} and ended with
+         * {@code BATCH -reference}.
+         */
+        private void handleBatch() {
+            final String reference = message.getParam(0);
+            if (reference == null || reference.length() < 2) {
+                LOGGER.warn("invalid BATCH message: {}", message);
+                return;
+            }
+            if (reference.charAt(0) == '+') {
+                final String type = message.getParam(1);
+                openBatches.put(reference.substring(1), new Batch(type != null ? type : ""));
+            } else if (reference.charAt(0) == '-') {
+                final Batch batch = openBatches.remove(reference.substring(1));
+                if (batch != null && batch.messages > 0) {
+                    LOGGER.info("{} with {} JOIN/PART messages", batch.type, batch.messages);
+                }
             }
-            logs.clear();
         }
 
-        private void handlePrivMsg(final String referent, final String msg) throws IRCClientException {
-            if (targetBot == null) {
-                throw new NoBotAssigned();
+        /**
+         * JOINs and PARTs of a netsplit or netjoin are not handed to the bot individually, a burst of them would
+         * otherwise hold up the handling of votes.
+         *
+         * @return true if the current message belongs to a netsplit or netjoin batch
+         */
+        private boolean isNetsplitBurst() {
+            final String reference = message.getTag("batch");
+            final Batch batch = reference != null ? openBatches.get(reference) : null;
+            if (batch == null || !("netsplit".equals(batch.type) || "netjoin".equals(batch.type))) {
+                return false;
             }
+            batch.messages++;
+            return true;
+        }
 
-            final String[] parts = referent.split("!");
-
-            if (!parts[0].startsWith(":")) {
-                LOGGER.warn("invalid private message: {}", msg);
+        /**
+         * Use the source prefix announced in RPL_WELCOME for computing message sizes if the server sends it.
+         */
+        private void updateSource() {
+            final String welcome = message.getTrailing();
+            if (welcome == null) {
                 return;
             }
-
-            targetBot.privateMessage(parts[0].substring(1), msg);
+            final String source = welcome.substring(welcome.lastIndexOf(' ') + 1);
+            if (source.indexOf('!') > 0 && source.indexOf('@') > source.indexOf('!')) {
+                messagePacker.setSource(source);
+            }
         }
 
-        private void handleMsg(final String referent, final String chnl, final String msg) throws IRCClientException {
+        private void checkBotAssigned() throws NoBotAssigned {
             if (targetBot == null) {
                 throw new NoBotAssigned();
             }
-
-            final String[] parts = referent.split("!");
-
-            if (!parts[0].startsWith(":")) {
-                LOGGER.warn("invalid public message");
-                return;
-            }
-
-            if (!chnl.startsWith("#")) {
-                LOGGER.warn("invalid public message (chnl)");
-                return;
-            }
-
-            targetBot.publicMessage(parts[0].substring(1), chnl.substring(1), msg);
         }
 
+        /**
+         * Answer a PING directly, servers may send it before RPL_WELCOME while the outbound queue is paused.
+         */
+        private void handleIrcPing() {
+            LOGGER.debug("PONG");
+            connection.sendLine("PONG " + message.getRawParams());
+        }
     }
 }
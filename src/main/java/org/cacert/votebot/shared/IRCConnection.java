@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Line oriented transport for a single connection to an IRC server.
+ *
+ * @author Jan Dittberner
+ */
+public interface IRCConnection extends Closeable {
+    /**
+     * Queue a protocol line for sending. The line terminator is added by the transport.
+     * <p>
+     * Write errors are not thrown to the caller but reported to the {@link Handler} of the connection.
+     *
+     * @param line protocol line without line terminator
+     */
+    void sendLine(String line);
+
+    /**
+     * @return true if the connection has not been closed
+     */
+    boolean isOpen();
+
+    /**
+     * Close the connection. Closing an already closed connection has no effect.
+     */
+    @Override
+    void close();
+
+    /**
+     * Receiver of connection events.
+     */
+    interface Handler {
+        /**
+         * Handle a received line. The buffer content is only valid during the call.
+         *
+         * @param buffer buffer containing the line
+         * @param offset offset of the first byte of the line
+         * @param length length of the line without line terminator
+         */
+        void lineReceived(byte[] buffer, int offset, int length);
+
+        /**
+         * Handle the end of the connection.
+         *
+         * @param cause I/O problem that ended the connection or null if the connection has been closed locally
+         */
+        void connectionClosed(IOException cause);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Socket options for IRC server connections.
+ *
+ * @author Jan Dittberner
+ */
+public class IRCConnectionSettings {
+    /**
+     * Size of the receive buffer used for assembling lines. IRC lines including message tags fit into it.
+     */
+    static final int LINE_BUFFER_SIZE = 8192 + 512;
+
+    private final boolean tcpNoDelay;
+    private final boolean keepAlive;
+    private final int readTimeoutMillis;
+    private final int receiveBufferSize;
+    private final int sendBufferSize;
+
+    /**
+     * @param tcpNoDelay        whether to disable Nagle's algorithm
+     * @param keepAlive         whether to enable TCP keep alive probes
+     * @param readTimeoutMillis milliseconds without received data after which the connection is considered broken,
+     *                          0 disables the timeout
+     * @param receiveBufferSize socket receive buffer size in bytes, 0 keeps the operating system default
+     * @param sendBufferSize    socket send buffer size in bytes, 0 keeps the operating system default
+     */
+    public IRCConnectionSettings(
+            final boolean tcpNoDelay, final boolean keepAlive, final int readTimeoutMillis,
+            final int receiveBufferSize, final int sendBufferSize) {
+        this.tcpNoDelay = tcpNoDelay;
+        this.keepAlive = keepAlive;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.receiveBufferSize = receiveBufferSize;
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+     * @return default settings with TCP_NODELAY and SO_KEEPALIVE enabled and no read timeout
+     */
+    public static IRCConnectionSettings defaults() {
+        return new IRCConnectionSettings(true, true, 0, 0, 0);
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Apply the settings to a blocking socket.
+     *
+     * @param socket socket
+     * @throws IOException if an option cannot be set
+     */
+    void applyTo(final Socket socket) throws IOException {
+        socket.setTcpNoDelay(tcpNoDelay);
+        socket.setKeepAlive(keepAlive);
+        socket.setSoTimeout(readTimeoutMillis);
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        if (sendBufferSize > 0) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+    }
+
+    /**
+     * Apply the settings to a socket channel. The read timeout is enforced by the event loop.
+     *
+     * @param channel socket channel
+     * @throws IOException if an option cannot be set
+     */
+    void applyTo(final SocketChannel channel) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+        channel.setOption(StandardSocketOptions.SO_KEEPALIVE, keepAlive);
+        if (receiveBufferSize > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+        }
+        if (sendBufferSize > 0) {
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+        }
+    }
+}
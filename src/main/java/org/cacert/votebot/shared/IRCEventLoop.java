@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Selector thread that performs reads and writes for any number of {@link NioIRCConnection} instances.
+ *
+ * @author Jan Dittberner
+ */
+public class IRCEventLoop implements Runnable, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IRCEventLoop.class);
+    /**
+     * Maximum time the selector waits before read timeouts are checked.
+     */
+    private static final long TIMEOUT_CHECK_MILLIS = 1000;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Open a selector and start the event loop thread.
+     *
+     * @param name thread name
+     * @throws IOException if the selector cannot be opened
+     */
+    public IRCEventLoop(final String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Run a task on the event loop thread.
+     *
+     * @param task task
+     */
+    void execute(final Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    Selector getSelector() {
+        return selector;
+    }
+
+    boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(TIMEOUT_CHECK_MILLIS);
+            } catch (final IOException e) {
+                LOGGER.error("selector failed: {}", e.getMessage(), e);
+                break;
+            }
+
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (final RuntimeException e) {
+                    LOGGER.error("error in event loop task", e);
+                }
+            }
+
+            final Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                final SelectionKey key = selected.next();
+                selected.remove();
+                ((NioIRCConnection) key.attachment()).handle(key);
+            }
+
+            final long now = System.nanoTime();
+            for (final SelectionKey key : selector.keys()) {
+                if (key.isValid()) {
+                    ((NioIRCConnection) key.attachment()).checkReadTimeout(now);
+                }
+            }
+        }
+
+        for (final SelectionKey key : selector.keys()) {
+            ((NioIRCConnection) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (final IOException e) {
+            LOGGER.debug("error closing selector: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the event loop and close all connections handled by it.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator health of the IRC connection.
+ * <p>
+ * The connection is DOWN while the client is not registered or the lag exceeds {@code ircClient.lagDownMillis} and
+ * DEGRADED while the lag exceeds {@code ircClient.lagDegradedMillis}.
+ *
+ * @author Jan Dittberner
+ */
+@Component("irc")
+public class IRCHealthIndicator implements HealthIndicator {
+    /**
+     * Status of a connection that works with a noticeable lag.
+     */
+    public static final Status DEGRADED = new Status("DEGRADED", "IRC connection lags");
+
+    private final IRCClient ircClient;
+
+    /**
+     * Lag in milliseconds from which the connection is reported as degraded.
+     */
+    @Value("${ircClient.lagDegradedMillis:5000}")
+    private long lagDegradedMillis = 5000;
+
+    /**
+     * Lag in milliseconds from which the connection is reported as down.
+     */
+    @Value("${ircClient.lagDownMillis:30000}")
+    private long lagDownMillis = 30000;
+
+    /**
+     * @param ircClient monitored IRC client
+     */
+    @Autowired
+    public IRCHealthIndicator(final IRCClient ircClient) {
+        this.ircClient = ircClient;
+    }
+
+    @Override
+    public Health health() {
+        if (!ircClient.isConnected()) {
+            return Health.down().withDetail("connected", false).build();
+        }
+        final long lag = ircClient.getLagMillis();
+        final Health.Builder builder;
+        if (lag >= lagDownMillis) {
+            builder = Health.down();
+        } else if (lag >= lagDegradedMillis) {
+            builder = Health.status(DEGRADED);
+        } else {
+            builder = Health.up();
+        }
+        return builder.withDetail("connected", true)
+                      .withDetail("lagMillis", lag)
+                      .withDetail("silenceMillis", ircClient.getSilenceMillis())
+                      .build();
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Reusable view of a parsed IRC protocol line.
+ * <p>
+ * {@link #parse(byte[], int, int)} locates message tags, source prefix and command in a single pass over the raw
+ * bytes. Parameters are only located when they are first accessed and strings are only materialized on access, so
+ * lines that are skipped after looking at their command cost no allocations. The view refers to the parsed buffer
+ * and is only valid until the buffer is reused; see {@link #copy()} for a detached instance.
+ *
+ * @author Jan Dittberner
+ */
+public class IRCMessage {
+    /**
+     * Maximum number of parameters of an IRC message.
+     */
+    private static final int MAX_PARAMS = 15;
+    /**
+     * RPL_NAMREPLY numeric.
+     */
+    public static final int RPL_NAMREPLY = 353;
+    /**
+     * RPL_MOTD numeric.
+     */
+    public static final int RPL_MOTD = 372;
+    /**
+     * RPL_MOTDSTART numeric.
+     */
+    public static final int RPL_MOTDSTART = 375;
+    /**
+     * RPL_ENDOFMOTD numeric.
+     */
+    public static final int RPL_ENDOFMOTD = 376;
+
+    private byte[] buffer;
+    private int start;
+    private int end;
+
+    private int tagsStart;
+    private int tagsEnd;
+    private int sourceStart;
+    private int sourceEnd;
+    private int userStart;
+    private int hostStart;
+    private int commandStart;
+    private int commandEnd;
+    private int numeric;
+
+    private boolean paramsParsed;
+    private int paramCount;
+    private boolean trailing;
+    private final int[] paramStarts = new int[MAX_PARAMS];
+    private final int[] paramEnds = new int[MAX_PARAMS];
+
+    private String line;
+    private String nick;
+    private String command;
+    private final String[] params = new String[MAX_PARAMS];
+    private Object attachment;
+
+    /**
+     * Parse a protocol line. Any previously parsed content of this instance is discarded.
+     *
+     * @param data   buffer containing the line
+     * @param offset offset of the first byte of the line
+     * @param length length of the line without line terminator
+     * @return true if the line contains a command, false if it is malformed
+     */
+    public boolean parse(final byte[] data, final int offset, final int length) {
+        reset(data, offset, offset + length);
+
+        int pos = start;
+        if (pos < end && buffer[pos] == '@') {
+            tagsStart = pos + 1;
+            pos = skipToSpace(pos);
+            tagsEnd = pos;
+            pos = skipSpaces(pos);
+        }
+
+        if (pos < end && buffer[pos] == ':') {
+            sourceStart = ++pos;
+            for (; pos < end && buffer[pos] != ' '; pos++) {
+                if (buffer[pos] == '!' && userStart < 0) {
+                    userStart = pos + 1;
+                } else if (buffer[pos] == '@' && hostStart < 0) {
+                    hostStart = pos + 1;
+                }
+            }
+            sourceEnd = pos;
+            pos = skipSpaces(pos);
+        }
+
+        commandStart = pos;
+        commandEnd = skipToSpace(pos);
+        if (commandEnd == commandStart) {
+            return false;
+        }
+        if (commandEnd - commandStart == 3 && isDigit(commandStart) && isDigit(commandStart + 1)
+                && isDigit(commandStart + 2)) {
+            numeric = (buffer[commandStart] - '0') * 100 + (buffer[commandStart + 1] - '0') * 10
+                    + buffer[commandStart + 2] - '0';
+        }
+        return true;
+    }
+
+    private void reset(final byte[] data, final int from, final int to) {
+        buffer = data;
+        start = from;
+        end = to;
+        tagsStart = -1;
+        tagsEnd = -1;
+        sourceStart = -1;
+        sourceEnd = -1;
+        userStart = -1;
+        hostStart = -1;
+        numeric = -1;
+        paramsParsed = false;
+        paramCount = 0;
+        trailing = false;
+        line = null;
+        nick = null;
+        command = null;
+        for (int i = 0; i < MAX_PARAMS; i++) {
+            params[i] = null;
+        }
+        attachment = null;
+    }
+
+    private int skipToSpace(final int from) {
+        int pos = from;
+        while (pos < end && buffer[pos] != ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int skipSpaces(final int from) {
+        int pos = from;
+        while (pos < end && buffer[pos] == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private boolean isDigit(final int pos) {
+        return buffer[pos] >= '0' && buffer[pos] <= '9';
+    }
+
+    private String string(final int from, final int to) {
+        return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private void parseParams() {
+        if (paramsParsed) {
+            return;
+        }
+        paramsParsed = true;
+        int pos = skipSpaces(commandEnd);
+        while (pos < end && paramCount < MAX_PARAMS) {
+            if (buffer[pos] == ':' || paramCount == MAX_PARAMS - 1) {
+                if (buffer[pos] == ':') {
+                    pos++;
+                    trailing = true;
+                }
+                paramStarts[paramCount] = pos;
+                paramEnds[paramCount++] = end;
+                return;
+            }
+            paramStarts[paramCount] = pos;
+            pos = skipToSpace(pos);
+            paramEnds[paramCount++] = pos;
+            pos = skipSpaces(pos);
+        }
+    }
+
+    /**
+     * @return true if this message is a numeric reply whose content is not needed by the client (MOTD and NAMES
+     * lists)
+     */
+    public boolean isSkippableNumeric() {
+        return numeric == RPL_MOTD || numeric == RPL_MOTDSTART || numeric == RPL_ENDOFMOTD
+                || numeric == RPL_NAMREPLY;
+    }
+
+    /**
+     * @return numeric reply code or -1 if the command is not numeric
+     */
+    public int getNumeric() {
+        return numeric;
+    }
+
+    /**
+     * Compare the command without materializing it.
+     *
+     * @param name upper case command name
+     * @return true if the command of this message matches the given name ignoring case
+     */
+    public boolean isCommand(final String name) {
+        if (commandEnd - commandStart != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            int c = buffer[commandStart + i];
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return command of the message
+     */
+    public String getCommand() {
+        if (command == null) {
+            command = string(commandStart, commandEnd);
+        }
+        return command;
+    }
+
+    /**
+     * @return true if the message has a source prefix
+     */
+    public boolean hasSource() {
+        return sourceStart >= 0;
+    }
+
+    /**
+     * @return source prefix without the leading colon or null if the message has no source
+     */
+    public String getSource() {
+        return sourceStart < 0 ? null : string(sourceStart, sourceEnd);
+    }
+
+    /**
+     * @return nick name (or server name) of the source or null if the message has no source
+     */
+    public String getNick() {
+        if (nick == null && sourceStart >= 0) {
+            int nickEnd = sourceEnd;
+            if (userStart >= 0) {
+                nickEnd = userStart - 1;
+            } else if (hostStart >= 0) {
+                nickEnd = hostStart - 1;
+            }
+            nick = string(sourceStart, nickEnd);
+        }
+        return nick;
+    }
+
+    /**
+     * @return user name of the source or null if the source contains no user name
+     */
+    public String getUser() {
+        if (userStart < 0) {
+            return null;
+        }
+        return string(userStart, hostStart >= 0 ? hostStart - 1 : sourceEnd);
+    }
+
+    /**
+     * @return host name of the source or null if the source contains no host name
+     */
+    public String getHost() {
+        return hostStart < 0 ? null : string(hostStart, sourceEnd);
+    }
+
+    /**
+     * @return number of parameters
+     */
+    public int getParamCount() {
+        parseParams();
+        return paramCount;
+    }
+
+    /**
+     * @param index parameter index
+     * @return parameter value without a trailing parameter's colon or null if there is no such parameter
+     */
+    public String getParam(final int index) {
+        parseParams();
+        if (index >= paramCount) {
+            return null;
+        }
+        if (params[index] == null) {
+            params[index] = string(paramStarts[index], paramEnds[index]);
+        }
+        return params[index];
+    }
+
+    /**
+     * @return last parameter if it has been introduced by a colon, null otherwise
+     */
+    public String getTrailing() {
+        parseParams();
+        return trailing ? getParam(paramCount - 1) : null;
+    }
+
+    /**
+     * @return everything after the command as sent by the server
+     */
+    public String getRawParams() {
+        return string(skipSpaces(commandEnd), end);
+    }
+
+    /**
+     * @return true if the message has message tags
+     */
+    public boolean hasTags() {
+        return tagsStart >= 0;
+    }
+
+    /**
+     * @return raw message tags without the leading '@' or null if the message has no tags
+     */
+    public String getRawTags() {
+        return tagsStart < 0 ? null : string(tagsStart, tagsEnd);
+    }
+
+    /**
+     * Look up a message tag without materializing the other tags.
+     *
+     * @param key tag key including a vendor prefix if there is one
+     * @return unescaped tag value, an empty string for a tag without value or null if the message has no such tag
+     */
+    public String getTag(final String key) {
+        int pos = tagsStart;
+        while (pos >= 0 && pos < tagsEnd) {
+            int tagEnd = pos;
+            while (tagEnd < tagsEnd && buffer[tagEnd] != ';') {
+                tagEnd++;
+            }
+            int keyEnd = pos;
+            while (keyEnd < tagEnd && buffer[keyEnd] != '=') {
+                keyEnd++;
+            }
+            if (regionEquals(pos, keyEnd, key)) {
+                return keyEnd < tagEnd ? unescapeTagValue(keyEnd + 1, tagEnd) : "";
+            }
+            pos = tagEnd + 1;
+        }
+        return null;
+    }
+
+    private boolean regionEquals(final int from, final int to, final String value) {
+        if (to - from != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer[from + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String unescapeTagValue(final int from, final int to) {
+        final String raw = string(from, to);
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+        final StringBuilder value = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            final char c = raw.charAt(i);
+            if (c != '\\') {
+                value.append(c);
+            } else if (++i < raw.length()) {
+                switch (raw.charAt(i)) {
+                    case ':':
+                        value.append(';');
+                        break;
+                    case 's':
+                        value.append(' ');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    default:
+                        value.append(raw.charAt(i));
+                }
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return time from the IRCv3 server-time tag or null if the message has no valid time tag
+     */
+    public Instant getServerTime() {
+        final String time = getTag("time");
+        if (time == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(time);
+        } catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the complete line
+     */
+    public String getLine() {
+        if (line == null) {
+            line = string(start, end);
+        }
+        return line;
+    }
+
+    /**
+     * Attach what a handler learned from the message, so that later handlers of the same message need not work it
+     * out again. The attachment is discarded when another line is parsed into this instance.
+     *
+     * @param attachment attached object or null
+     */
+    public void attach(final Object attachment) {
+        this.attachment = attachment;
+    }
+
+    /**
+     * @return the object attached with {@link #attach(Object)} or null
+     */
+    public Object attachment() {
+        return attachment;
+    }
+
+    /**
+     * @return a parsed copy of this message that does not share the buffer and has no attachment
+     */
+    public IRCMessage copy() {
+        final byte[] data = Arrays.copyOfRange(buffer, start, end);
+        final IRCMessage copy = new IRCMessage();
+        copy.parse(data, 0, data.length);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return getLine();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Measures the round-trip lag of an IRC connection with client-side PING tokens and detects dead links.
+ * <p>
+ * While the monitor is active a PING with a fresh token is sent every ping interval and the time until the matching
+ * PONG arrives is recorded in the {@code votebot.irc.lag} histogram. The current lag also grows while a PING is
+ * unanswered, so a stalling link is visible before it is declared dead. When no line at all has been received for the
+ * dead link timeout, the monitor deactivates itself and notifies the dead link handler.
+ *
+ * @author Jan Dittberner
+ */
+public class LagMonitor implements Closeable {
+    private static final String TOKEN_PREFIX = "votebot-";
+
+    private final long pingIntervalNanos;
+    private final long deadLinkNanos;
+    private final Consumer<String> pinger;
+    private final LongConsumer deadLinkHandler;
+    private final ScheduledExecutorService scheduler;
+    private final Timer lagTimer;
+    private final Counter deadLinkCounter;
+
+    private volatile long lastReceivedNanos;
+    private ScheduledFuture<?> ticker;
+    private boolean active;
+    private long sequence;
+    private String pendingToken;
+    private long pendingSentNanos;
+    private long lastLagNanos;
+
+    /**
+     * @param pingIntervalMillis milliseconds between client PINGs
+     * @param deadLinkMillis     milliseconds without any received line after which the link is considered dead
+     * @param pinger             sender of PING protocol lines
+     * @param deadLinkHandler    receiver of the silence in milliseconds when a dead link has been detected
+     * @param meterRegistry      registry for lag metrics
+     */
+    public LagMonitor(
+            final long pingIntervalMillis, final long deadLinkMillis, final Consumer<String> pinger,
+            final LongConsumer deadLinkHandler, final MeterRegistry meterRegistry) {
+        if (pingIntervalMillis < 1 || deadLinkMillis <= pingIntervalMillis) {
+            throw new IllegalArgumentException("dead link timeout must be longer than the ping interval");
+        }
+        this.pingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(pingIntervalMillis);
+        this.deadLinkNanos = TimeUnit.MILLISECONDS.toNanos(deadLinkMillis);
+        this.pinger = pinger;
+        this.deadLinkHandler = deadLinkHandler;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "irc-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        lagTimer = Timer.builder("votebot.irc.lag")
+                        .description("Round-trip time of client PINGs to the IRC server")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry);
+        Gauge.builder("votebot.irc.lag.current", this, monitor -> monitor.getLagMillis(System.nanoTime()))
+             .description("Lag of the last PING or the age of the unanswered PING in milliseconds")
+             .register(meterRegistry);
+        deadLinkCounter = Counter.builder("votebot.irc.deadlinks")
+                                 .description("Number of connections declared dead after a silence")
+                                 .register(meterRegistry);
+    }
+
+    /**
+     * Start measuring after registration on a connection succeeded.
+     */
+    public synchronized void start() {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        stop();
+        active = true;
+        lastReceivedNanos = System.nanoTime();
+        ticker = scheduler.scheduleAtFixedRate(
+                () -> tick(System.nanoTime()), pingIntervalNanos, pingIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop measuring, for example when the connection has been lost.
+     */
+    public synchronized void stop() {
+        active = false;
+        pendingToken = null;
+        lastLagNanos = 0;
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    /**
+     * Note that a line has been received. Called for every line, so this only performs a volatile write.
+     */
+    public void lineReceived() {
+        lastReceivedNanos = System.nanoTime();
+    }
+
+    /**
+     * Handle a PONG from the server.
+     *
+     * @param token token parameter of the PONG
+     */
+    public void pongReceived(final String token) {
+        pongReceived(token, System.nanoTime());
+    }
+
+    synchronized void pongReceived(final String token, final long now) {
+        if (pendingToken == null || !pendingToken.equals(token)) {
+            return;
+        }
+        lastLagNanos = now - pendingSentNanos;
+        pendingToken = null;
+        lagTimer.record(lastLagNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Send the next PING or declare the link dead.
+     *
+     * @param now current value of {@link System#nanoTime()}
+     */
+    void tick(final long now) {
+        final long silence;
+        synchronized (this) {
+            if (!active) {
+                return;
+            }
+            silence = now - lastReceivedNanos;
+            if (silence < deadLinkNanos) {
+                if (pendingToken != null) {
+                    // the previous PING is still unanswered, keep measuring from its send time
+                    lastLagNanos = Math.max(lastLagNanos, now - pendingSentNanos);
+                }
+                pendingToken = TOKEN_PREFIX + ++sequence;
+                pendingSentNanos = now;
+                pinger.accept("PING :" + pendingToken);
+                return;
+            }
+            stop();
+            deadLinkCounter.increment();
+        }
+        deadLinkHandler.accept(TimeUnit.NANOSECONDS.toMillis(silence));
+    }
+
+    /**
+     * @return true between {@link #start()} and {@link #stop()} or the detection of a dead link
+     */
+    public synchronized boolean isActive() {
+        return active;
+    }
+
+    /**
+     * @return lag in milliseconds, the age of an unanswered PING if that is larger than the last measured lag
+     */
+    public long getLagMillis() {
+        return getLagMillis(System.nanoTime());
+    }
+
+    synchronized long getLagMillis(final long now) {
+        long lag = lastLagNanos;
+        if (pendingToken != null) {
+            lag = Math.max(lag, now - pendingSentNanos);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(lag);
+    }
+
+    /**
+     * @return milliseconds since the last line has been received
+     */
+    public long getSilenceMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReceivedNanos);
+    }
+
+    /**
+     * Stop measuring and the scheduler thread.
+     */
+    @Override
+    public synchronized void close() {
+        stop();
+        scheduler.shutdownNow();
+    }
+}
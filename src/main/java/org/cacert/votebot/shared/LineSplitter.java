@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+/**
+ * Splits received bytes into IRC protocol lines.
+ *
+ * @author Jan Dittberner
+ */
+final class LineSplitter {
+    private LineSplitter() {
+    }
+
+    /**
+     * Deliver all complete lines in the given buffer region to the handler. Lines may be terminated by LF or CRLF,
+     * empty lines are skipped.
+     *
+     * @param buffer  buffer
+     * @param start   offset of the first unprocessed byte
+     * @param end     offset after the last valid byte
+     * @param handler receiver of the lines
+     * @return offset of the first byte that does not belong to a complete line
+     */
+    static int deliverLines(final byte[] buffer, final int start, final int end, final IRCConnection.Handler handler) {
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == '\n') {
+                int lineEnd = i;
+                if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd > lineStart) {
+                    handler.lineReceived(buffer, lineStart, lineEnd - lineStart);
+                }
+                lineStart = i + 1;
+            }
+        }
+        return lineStart;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Packs multi-line messages into as few IRC protocol lines as fit into the 512 byte line limit.
+ * <p>
+ * The budget for the message text is computed from the UTF-8 encoded size of the source prefix the server adds when
+ * relaying the message and the command with its target. Logical lines that exceed the budget are split at the last
+ * space that fits or at a code point boundary, short logical lines are joined with {@link #SEPARATOR}.
+ *
+ * @author Jan Dittberner
+ */
+public class MessagePacker {
+    /**
+     * Separator for merged logical lines.
+     */
+    public static final String SEPARATOR = " | ";
+    /**
+     * Maximum length of an IRC line including the line terminator.
+     */
+    static final int MAX_LINE_BYTES = 512;
+    private static final int CRLF_BYTES = 2;
+    /**
+     * Maximum user name length assumed as long as the real source prefix is unknown, including a '~' prefix.
+     */
+    private static final int USER_LENGTH_ESTIMATE = 11;
+    /**
+     * Maximum host name length assumed as long as the real source prefix is unknown.
+     */
+    private static final int HOST_LENGTH_ESTIMATE = 63;
+
+    private final boolean mergeLines;
+    private volatile int sourcePrefixBytes;
+
+    /**
+     * @param nick       own nick name used for estimating the source prefix
+     * @param mergeLines whether short logical lines should be merged
+     */
+    public MessagePacker(final String nick, final boolean mergeLines) {
+        this.mergeLines = mergeLines;
+        setNick(nick);
+    }
+
+    /**
+     * Estimate the source prefix for a nick name with the maximum user and host name lengths.
+     *
+     * @param nick own nick name
+     */
+    public void setNick(final String nick) {
+        // ":" nick "!" user "@" host " "
+        sourcePrefixBytes = 1 + utf8Length(nick) + 1 + USER_LENGTH_ESTIMATE + 1 + HOST_LENGTH_ESTIMATE + 1;
+    }
+
+    /**
+     * Use the exact source prefix the server uses when relaying our messages.
+     *
+     * @param source source in the form nick!user@host
+     */
+    public void setSource(final String source) {
+        sourcePrefixBytes = 1 + utf8Length(source) + 1;
+    }
+
+    /**
+     * @param command IRC command, e.g. PRIVMSG or NOTICE
+     * @param target  message target
+     * @return number of bytes available for the message text of a single line
+     */
+    public int getBudget(final String command, final String target) {
+        return MAX_LINE_BYTES - CRLF_BYTES - sourcePrefixBytes - utf8Length(command) - utf8Length(target) - 3;
+    }
+
+    /**
+     * Pack a message into protocol lines.
+     *
+     * @param command IRC command, e.g. PRIVMSG or NOTICE
+     * @param target  message target
+     * @param message message text, logical lines are separated by '\n'
+     * @return complete protocol lines without line terminator
+     */
+    public List<String> pack(final String command, final String target, final String message) {
+        final String head = command + " " + target + " :";
+        final int budget = getBudget(command, target);
+        final int separatorBytes = utf8Length(SEPARATOR);
+
+        final List<String> lines = new ArrayList<>();
+        final StringBuilder current = new StringBuilder();
+        int currentBytes = 0;
+
+        for (final String logical : message.split("\n")) {
+            if (logical.trim().isEmpty()) {
+                if (!mergeLines) {
+                    if (current.length() > 0) {
+                        lines.add(head + current);
+                        current.setLength(0);
+                    }
+                    lines.add(head + " ");
+                }
+                continue;
+            }
+            for (final String chunk : split(logical, budget)) {
+                final int chunkBytes = utf8Length(chunk);
+                if (mergeLines && current.length() > 0 && currentBytes + separatorBytes + chunkBytes <= budget) {
+                    current.append(SEPARATOR).append(chunk);
+                    currentBytes += separatorBytes + chunkBytes;
+                } else {
+                    if (current.length() > 0) {
+                        lines.add(head + current);
+                    }
+                    current.setLength(0);
+                    current.append(chunk);
+                    currentBytes = chunkBytes;
+                }
+            }
+        }
+        if (current.length() > 0) {
+            lines.add(head + current);
+        }
+        if (lines.isEmpty()) {
+            lines.add(head + " ");
+        }
+        return lines;
+    }
+
+    /**
+     * Split a logical line into chunks that fit into the budget.
+     *
+     * @param text   logical line
+     * @param budget maximum number of UTF-8 bytes per chunk
+     * @return chunks
+     */
+    static List<String> split(final String text, final int budget) {
+        if (utf8Length(text) <= budget) {
+            return Collections.singletonList(text);
+        }
+
+        final List<String> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        int chunkBytes = 0;
+        int lastSpace = -1;
+        int i = 0;
+        while (i < text.length()) {
+            final int codePoint = text.codePointAt(i);
+            final int codePointBytes = utf8Length(codePoint);
+
+            if (chunkBytes + codePointBytes > budget) {
+                if (lastSpace > chunkStart) {
+                    chunks.add(text.substring(chunkStart, lastSpace));
+                    i = lastSpace + 1;
+                } else {
+                    chunks.add(text.substring(chunkStart, i));
+                }
+                chunkStart = i;
+                chunkBytes = 0;
+                lastSpace = -1;
+                continue;
+            }
+
+            if (codePoint == ' ') {
+                lastSpace = i;
+            }
+            chunkBytes += codePointBytes;
+            i += Character.charCount(codePoint);
+        }
+        if (chunkStart < text.length()) {
+            chunks.add(text.substring(chunkStart));
+        }
+        return chunks;
+    }
+
+    private static int utf8Length(final int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        } else if (codePoint < 0x800) {
+            return 2;
+        } else if (codePoint < 0x10000) {
+            return 3;
+        }
+        return 4;
+    }
+
+    /**
+     * @param text text
+     * @return length of the UTF-8 encoding of the text
+     */
+    static int utf8Length(final CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking IRC connection driven by an {@link IRCEventLoop}. TLS is implemented with an {@link SSLEngine}.
+ * <p>
+ * {@link #sendLine(String)} only queues the encoded line, the actual socket write is performed on the event loop
+ * thread. Received lines are delivered to the handler on the event loop thread.
+ *
+ * @author Jan Dittberner
+ */
+public class NioIRCConnection implements IRCConnection {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioIRCConnection.class);
+    private static final long CONNECT_TIMEOUT_SECONDS = 30;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final IRCEventLoop loop;
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+    private final Handler handler;
+    private final long readTimeoutNanos;
+    private final Queue<ByteBuffer> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+
+    private SelectionKey key;
+    private ByteBuffer appIn = ByteBuffer.allocate(IRCConnectionSettings.LINE_BUFFER_SIZE);
+    private ByteBuffer netIn;
+    private ByteBuffer netOut;
+    private long lastReadNanos = System.nanoTime();
+
+    /**
+     * Connect to an IRC server. The constructor returns when the TCP connection has been established, the TLS
+     * handshake continues asynchronously and lines sent before its completion are queued.
+     *
+     * @param loop     event loop that performs the I/O for this connection
+     * @param server   host name of the IRC server
+     * @param port     TCP port of the IRC server
+     * @param ssl      whether to use TLS
+     * @param settings socket options
+     * @param handler  receiver of received lines and connection events
+     * @throws IOException if the connection cannot be established
+     */
+    public NioIRCConnection(
+            final IRCEventLoop loop, final String server, final int port, final boolean ssl,
+            final IRCConnectionSettings settings, final Handler handler) throws IOException {
+        this.loop = loop;
+        this.handler = handler;
+        this.readTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getReadTimeoutMillis());
+
+        if (ssl) {
+            try {
+                engine = SSLContext.getDefault().createSSLEngine(server, port);
+            } catch (final NoSuchAlgorithmException e) {
+                throw new SSLException("no default SSL context available", e);
+            }
+            engine.setUseClientMode(true);
+            netIn = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+            netOut = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+            netOut.flip();
+        } else {
+            engine = null;
+        }
+
+        channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            settings.applyTo(channel);
+            channel.connect(new InetSocketAddress(server, port));
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        loop.execute(this::register);
+        awaitConnected();
+    }
+
+    private void awaitConnected() throws IOException {
+        try {
+            connected.get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("interrupted while connecting");
+        } catch (final TimeoutException e) {
+            close();
+            throw new SocketTimeoutException("connect timed out");
+        } catch (final ExecutionException e) {
+            close();
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void register() {
+        try {
+            key = channel.register(loop.getSelector(), SelectionKey.OP_CONNECT, this);
+            if (channel.isConnected() || channel.finishConnect()) {
+                connectionEstablished();
+            }
+        } catch (final IOException e) {
+            fail(e);
+        }
+    }
+
+    private void connectionEstablished() throws IOException {
+        lastReadNanos = System.nanoTime();
+        key.interestOps(SelectionKey.OP_READ);
+        if (engine != null) {
+            engine.beginHandshake();
+            handshake();
+        }
+        connected.complete(null);
+        flush();
+    }
+
+    @Override
+    public void sendLine(final String line) {
+        if (closed.get()) {
+            LOGGER.debug("dropping line for closed connection: {}", line);
+            return;
+        }
+        final byte[] encoded = line.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer = ByteBuffer.allocate(encoded.length + CRLF.length);
+        buffer.put(encoded).put(CRLF).flip();
+        pendingWrites.add(buffer);
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(() -> {
+                flushScheduled.set(false);
+                if (!closed.get() && key != null && channel.isConnected()) {
+                    try {
+                        flush();
+                    } catch (final IOException e) {
+                        fail(e);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed.get();
+    }
+
+    @Override
+    public void close() {
+        if (loop.inEventLoop()) {
+            shutdown(null);
+        } else if (!closed.get()) {
+            loop.execute(() -> shutdown(null));
+        }
+    }
+
+    private void fail(final IOException cause) {
+        connected.completeExceptionally(cause);
+        shutdown(cause);
+    }
+
+    private void shutdown(final IOException cause) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        if (engine != null) {
+            engine.closeOutbound();
+        }
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            LOGGER.debug("error closing channel: {}", e.getMessage());
+        }
+        pendingWrites.clear();
+        connected.completeExceptionally(new EOFException("connection closed"));
+        handler.connectionClosed(cause);
+    }
+
+    /**
+     * Handle readiness of the channel. Called on the event loop thread.
+     *
+     * @param selectionKey selected key
+     */
+    void handle(final SelectionKey selectionKey) {
+        try {
+            if (selectionKey.isConnectable() && channel.finishConnect()) {
+                connectionEstablished();
+            }
+            if (selectionKey.isValid() && selectionKey.isReadable()) {
+                read();
+            }
+            if (selectionKey.isValid() && selectionKey.isWritable()) {
+                flush();
+            }
+        } catch (final IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Close the connection if no data has been received within the configured read timeout. Called on the event loop
+     * thread.
+     *
+     * @param now current value of {@link System#nanoTime()}
+     */
+    void checkReadTimeout(final long now) {
+        if (readTimeoutNanos > 0 && channel.isConnected() && now - lastReadNanos > readTimeoutNanos) {
+            fail(new SocketTimeoutException("read timed out"));
+        }
+    }
+
+    private void read() throws IOException {
+        final int read = channel.read(engine == null ? appIn : netIn);
+        if (read < 0) {
+            fail(new EOFException("connection closed by server"));
+            return;
+        }
+        lastReadNanos = System.nanoTime();
+
+        if (engine != null) {
+            if (isHandshaking()) {
+                handshake();
+            }
+            unwrapApplicationData();
+            if (!isHandshaking()) {
+                flush();
+            }
+        }
+        deliverLines();
+    }
+
+    private void deliverLines() {
+        appIn.flip();
+        final int consumed = LineSplitter.deliverLines(
+                appIn.array(), appIn.position(), appIn.limit(), handler);
+        appIn.position(consumed);
+        if (consumed == 0 && appIn.limit() == appIn.capacity()) {
+            LOGGER.warn("discarding overlong line");
+            appIn.clear();
+        } else {
+            appIn.compact();
+        }
+    }
+
+    private boolean isHandshaking() {
+        final SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+        return status != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+                && status != SSLEngineResult.HandshakeStatus.FINISHED;
+    }
+
+    private void handshake() throws IOException {
+        while (!closed.get()) {
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK:
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    break;
+                case NEED_WRAP:
+                    netOut.compact();
+                    final SSLEngineResult wrapResult;
+                    try {
+                        wrapResult = engine.wrap(EMPTY, netOut);
+                    } finally {
+                        netOut.flip();
+                    }
+                    if (wrapResult.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new EOFException("TLS session closed during handshake");
+                    }
+                    if (!writeNet()) {
+                        return;
+                    }
+                    break;
+                case NEED_UNWRAP:
+                case NEED_UNWRAP_AGAIN:
+                    if (!unwrap()) {
+                        return;
+                    }
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private void unwrapApplicationData() throws IOException {
+        while (!closed.get() && netIn.position() > 0 && unwrap()) {
+            if (isHandshaking()) {
+                handshake();
+            }
+        }
+    }
+
+    /**
+     * Unwrap received TLS data into the application buffer.
+     *
+     * @return true if progress has been made
+     * @throws IOException if the TLS session is broken
+     */
+    private boolean unwrap() throws IOException {
+        netIn.flip();
+        final SSLEngineResult result;
+        try {
+            result = engine.unwrap(netIn, appIn);
+        } finally {
+            netIn.compact();
+        }
+        switch (result.getStatus()) {
+            case OK:
+                return result.bytesConsumed() > 0 || result.bytesProduced() > 0
+                        || result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK
+                        || result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP;
+            case BUFFER_OVERFLOW:
+                deliverLines();
+                if (appIn.remaining() < engine.getSession().getApplicationBufferSize()) {
+                    final ByteBuffer larger = ByteBuffer.allocate(
+                            appIn.position() + engine.getSession().getApplicationBufferSize());
+                    appIn.flip();
+                    larger.put(appIn);
+                    appIn = larger;
+                }
+                return true;
+            case BUFFER_UNDERFLOW:
+                if (netIn.capacity() < engine.getSession().getPacketBufferSize()) {
+                    final ByteBuffer larger = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+                    netIn.flip();
+                    larger.put(netIn);
+                    netIn = larger;
+                }
+                return false;
+            case CLOSED:
+            default:
+                throw new EOFException("TLS session closed by server");
+        }
+    }
+
+    /**
+     * Write pending encrypted data.
+     *
+     * @return true if all encrypted data has been written
+     * @throws IOException on write errors
+     */
+    private boolean writeNet() throws IOException {
+        channel.write(netOut);
+        if (netOut.hasRemaining()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            return false;
+        }
+        return true;
+    }
+
+    private void flush() throws IOException {
+        if (engine != null) {
+            if (!writeNet()) {
+                return;
+            }
+            if (isHandshaking()) {
+                handshake();
+                if (isHandshaking()) {
+                    return;
+                }
+            }
+        }
+
+        ByteBuffer buffer;
+        while ((buffer = pendingWrites.peek()) != null) {
+            if (engine != null) {
+                netOut.compact();
+                final SSLEngineResult result;
+                try {
+                    result = engine.wrap(buffer, netOut);
+                } finally {
+                    netOut.flip();
+                }
+                if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new EOFException("TLS session closed");
+                }
+                if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    throw new SSLException("TLS packet does not fit into the network buffer");
+                }
+                if (!buffer.hasRemaining()) {
+                    pendingWrites.poll();
+                }
+                if (!writeNet()) {
+                    return;
+                }
+            } else {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                pendingWrites.poll();
+            }
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+/**
+ * Send lanes of the outbound queue in the order in which they are drained.
+ *
+ * @author Jan Dittberner
+ */
+public enum OutboundPriority {
+    /**
+     * Protocol-critical lines like PONG, JOIN and QUIT.
+     */
+    PROTOCOL,
+    /**
+     * Announcements, results and replies to commands.
+     */
+    ANNOUNCEMENT,
+    /**
+     * Acknowledgements of single votes.
+     */
+    ACK
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded outbound line queue with priority lanes that is drained by a scheduler under control of a
+ * {@link TokenBucket}.
+ * <p>
+ * Lanes are drained in the order of {@link OutboundPriority}. Once the acknowledgement lane holds more than the merge
+ * threshold, a new acknowledgement replaces a pending one with the same merge key and acknowledgements older than the
+ * maximum age are dropped instead of being sent.
+ *
+ * @author Jan Dittberner
+ */
+public class OutboundQueue implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboundQueue.class);
+    /**
+     * Receive time of lines that do not answer a received message.
+     */
+    public static final long NOT_RECEIVED = Long.MIN_VALUE;
+
+    private final Consumer<String> sink;
+    private final TokenBucket bucket;
+    private final int capacity;
+    private final int mergeThreshold;
+    private final long maxAckAgeNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Map<OutboundPriority, ArrayDeque<Entry>> lanes = new EnumMap<>(OutboundPriority.class);
+    private final Map<String, Entry> pendingAcks = new HashMap<>();
+    private final Map<OutboundPriority, Timer> waitTimers = new EnumMap<>(OutboundPriority.class);
+    private final Map<OutboundPriority, Counter> overflowCounters = new EnumMap<>(OutboundPriority.class);
+    private final Counter staleCounter;
+    private final Counter mergedCounter;
+    private final Counter sentCounter;
+    private final Timer ackLatencyTimer;
+    private boolean drainScheduled;
+    private boolean closed;
+    private boolean paused;
+
+    private static final class Entry {
+        private String line;
+        private final OutboundPriority priority;
+        private final String mergeKey;
+        private final long enqueued;
+        private long received;
+
+        private Entry(
+                final String line, final OutboundPriority priority, final String mergeKey, final long enqueued,
+                final long received) {
+            this.line = line;
+            this.priority = priority;
+            this.mergeKey = mergeKey;
+            this.enqueued = enqueued;
+            this.received = received;
+        }
+    }
+
+    /**
+     * @param name           name of the queue used for the drain thread and as metrics tag
+     * @param sink           receiver of lines that leave the queue
+     * @param bucket         flood control token bucket
+     * @param capacity       maximum number of lines per announcement and acknowledgement lane
+     * @param mergeThreshold acknowledgement lane depth from which acknowledgements are merged and stale ones dropped
+     * @param maxAckAgeNanos age in nanoseconds after which an acknowledgement is considered stale
+     * @param meterRegistry  registry for queue metrics
+     */
+    public OutboundQueue(
+            final String name, final Consumer<String> sink, final TokenBucket bucket, final int capacity,
+            final int mergeThreshold, final long maxAckAgeNanos, final MeterRegistry meterRegistry) {
+        this.sink = sink;
+        this.bucket = bucket;
+        this.capacity = capacity;
+        this.mergeThreshold = mergeThreshold;
+        this.maxAckAgeNanos = maxAckAgeNanos;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "irc-send-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (final OutboundPriority priority : OutboundPriority.values()) {
+            final String lane = priority.name().toLowerCase(Locale.ENGLISH);
+            lanes.put(priority, new ArrayDeque<>());
+            Gauge.builder("votebot.irc.send.queue.depth", this, queue -> queue.getDepth(priority))
+                 .description("Number of lines waiting in the outbound queue")
+                 .tags("connection", name, "lane", lane)
+                 .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("votebot.irc.send.queue.wait")
+                                          .description("Time lines spent in the outbound queue")
+                                          .tags("connection", name, "lane", lane)
+                                          .register(meterRegistry));
+            overflowCounters.put(priority, Counter.builder("votebot.irc.send.queue.dropped")
+                                                  .tags("connection", name, "lane", lane, "reason", "overflow")
+                                                  .register(meterRegistry));
+        }
+        staleCounter = Counter.builder("votebot.irc.send.queue.dropped")
+                              .tags("connection", name, "lane", "ack", "reason", "stale")
+                              .register(meterRegistry);
+        mergedCounter = Counter.builder("votebot.irc.send.queue.merged")
+                               .description("Acknowledgements replaced by a newer one for the same key")
+                               .tags("connection", name)
+                               .register(meterRegistry);
+        sentCounter = Counter.builder("votebot.irc.send.lines")
+                             .description("Lines that left the outbound queue")
+                             .tags("connection", name)
+                             .register(meterRegistry);
+        ackLatencyTimer = Timer.builder("votebot.irc.ack.latency")
+                               .description("Time from receiving a message until its answer has been sent")
+                               .tags("connection", name)
+                               .publishPercentileHistogram()
+                               .register(meterRegistry);
+    }
+
+    /**
+     * @param priority send lane
+     * @return number of lines waiting in the lane
+     */
+    public synchronized int getDepth(final OutboundPriority priority) {
+        return lanes.get(priority).size();
+    }
+
+    /**
+     * Queue a line for sending.
+     *
+     * @param line     protocol line
+     * @param priority send lane
+     * @param mergeKey key identifying acknowledgements that supersede each other, may be null
+     * @return true if the line has been queued or merged, false if it has been dropped
+     */
+    public boolean offer(final String line, final OutboundPriority priority, final String mergeKey) {
+        return offer(line, priority, mergeKey, NOT_RECEIVED);
+    }
+
+    /**
+     * Queue a line that answers a received message. The time from receiving the message until the line has been
+     * sent is recorded in the {@code votebot.irc.ack.latency} timer.
+     *
+     * @param line     protocol line
+     * @param priority send lane
+     * @param mergeKey key identifying acknowledgements that supersede each other, may be null
+     * @param received {@link System#nanoTime()} when the answered message was received or {@link #NOT_RECEIVED}
+     * @return true if the line has been queued or merged, false if it has been dropped
+     */
+    public synchronized boolean offer(
+            final String line, final OutboundPriority priority, final String mergeKey, final long received) {
+        if (closed) {
+            LOGGER.debug("dropping line for closed queue: {}", line);
+            return false;
+        }
+        final ArrayDeque<Entry> lane = lanes.get(priority);
+
+        if (priority == OutboundPriority.ACK && mergeKey != null && lane.size() >= mergeThreshold) {
+            final Entry pending = pendingAcks.get(mergeKey);
+            if (pending != null) {
+                pending.line = line;
+                pending.received = received;
+                mergedCounter.increment();
+                return true;
+            }
+        }
+
+        if (priority != OutboundPriority.PROTOCOL && lane.size() >= capacity) {
+            overflowCounters.get(priority).increment();
+            if (priority != OutboundPriority.ACK) {
+                LOGGER.warn("outbound queue full, dropping line: {}", line);
+                return false;
+            }
+            forget(lane.pollFirst());
+        }
+
+        final Entry entry = new Entry(line, priority, mergeKey, System.nanoTime(), received);
+        lane.addLast(entry);
+        if (priority == OutboundPriority.ACK && mergeKey != null) {
+            pendingAcks.put(mergeKey, entry);
+        }
+        scheduleDrain(0);
+        return true;
+    }
+
+    private void forget(final Entry entry) {
+        if (entry != null && entry.mergeKey != null) {
+            pendingAcks.remove(entry.mergeKey, entry);
+        }
+    }
+
+    /**
+     * Stop or resume sending. Lines offered while the queue is paused are kept according to the lane rules and sent
+     * when it is resumed.
+     *
+     * @param paused true to stop sending, false to resume
+     */
+    public synchronized void setPaused(final boolean paused) {
+        this.paused = paused;
+        if (!paused) {
+            scheduleDrain(0);
+        }
+    }
+
+    private void scheduleDrain(final long delayNanos) {
+        if (!drainScheduled && !closed && !paused) {
+            drainScheduled = true;
+            scheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Entry peek(final long now) {
+        final ArrayDeque<Entry> acks = lanes.get(OutboundPriority.ACK);
+        while (acks.size() > mergeThreshold && now - acks.peekFirst().enqueued > maxAckAgeNanos) {
+            forget(acks.pollFirst());
+            staleCounter.increment();
+        }
+        for (final ArrayDeque<Entry> lane : lanes.values()) {
+            if (!lane.isEmpty()) {
+                return lane.peekFirst();
+            }
+        }
+        return null;
+    }
+
+    private void drain() {
+        synchronized (this) {
+            drainScheduled = false;
+        }
+        while (true) {
+            final Entry entry;
+            final long now = System.nanoTime();
+            synchronized (this) {
+                if (paused) {
+                    return;
+                }
+                entry = peek(now);
+                if (entry == null) {
+                    return;
+                }
+                final long wait = bucket.tryAcquire(now);
+                if (wait > 0) {
+                    scheduleDrain(wait);
+                    return;
+                }
+                lanes.get(entry.priority).pollFirst();
+                forget(entry);
+            }
+            waitTimers.get(entry.priority).record(now - entry.enqueued, TimeUnit.NANOSECONDS);
+            send(entry);
+        }
+    }
+
+    private void send(final Entry entry) {
+        try {
+            sink.accept(entry.line);
+            sentCounter.increment();
+            if (entry.received != NOT_RECEIVED) {
+                ackLatencyTimer.record(System.nanoTime() - entry.received, TimeUnit.NANOSECONDS);
+            }
+        } catch (final RuntimeException e) {
+            LOGGER.error("error sending line: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Send the queued lines under flood control, waiting at most for the given time, and stop the drain thread. Lines
+     * that cannot be sent in time are dropped, so that a backlog does not get the connection killed for flooding.
+     *
+     * @param timeoutMillis maximum time in milliseconds to wait for sending the queued lines
+     */
+    public void close(final long timeoutMillis) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        scheduler.shutdownNow();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            final Entry entry;
+            final long now = System.nanoTime();
+            final long wait;
+            synchronized (this) {
+                entry = peek(now);
+                if (entry == null) {
+                    return;
+                }
+                wait = bucket.tryAcquire(now);
+                if (wait > 0 && now + wait - deadline > 0) {
+                    dropRemaining();
+                    return;
+                }
+                if (wait == 0) {
+                    lanes.get(entry.priority).pollFirst();
+                    forget(entry);
+                }
+            }
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            waitTimers.get(entry.priority).record(now - entry.enqueued, TimeUnit.NANOSECONDS);
+            send(entry);
+        }
+    }
+
+    private void dropRemaining() {
+        int dropped = 0;
+        for (final ArrayDeque<Entry> lane : lanes.values()) {
+            dropped += lane.size();
+            lane.clear();
+        }
+        pendingAcks.clear();
+        LOGGER.warn("dropped {} queued lines that could not be sent in time on close", dropped);
+    }
+
+    /**
+     * Send the queued lines under flood control, waiting at most five seconds, and stop the drain thread.
+     */
+    @Override
+    public void close() {
+        close(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for reconnect attempts.
+ * <p>
+ * The delay for an attempt is chosen randomly from the upper half of the exponentially growing, capped base delay so
+ * that clients that lost their connection at the same time do not reconnect in lockstep.
+ *
+ * @author Jan Dittberner
+ */
+final class ReconnectBackoff {
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param initialDelayMillis base delay of the first attempt
+     * @param maxDelayMillis     maximum base delay
+     */
+    ReconnectBackoff(final long initialDelayMillis, final long maxDelayMillis) {
+        if (initialDelayMillis < 1 || maxDelayMillis < initialDelayMillis) {
+            throw new IllegalArgumentException("invalid reconnect delays");
+        }
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * @param attempt number of failed attempts so far
+     * @return base delay without jitter
+     */
+    long baseDelayMillis(final int attempt) {
+        if (attempt >= Long.numberOfLeadingZeros(initialDelayMillis) - 1) {
+            return maxDelayMillis;
+        }
+        return Math.min(maxDelayMillis, initialDelayMillis << attempt);
+    }
+
+    /**
+     * @param attempt number of failed attempts so far
+     * @return delay before the next attempt in milliseconds
+     */
+    long delayMillis(final int attempt) {
+        final long base = baseDelayMillis(attempt);
+        return base - ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writer for the segmented log of one channel.
+ * <p>
+ * The log of a channel is a directory that contains segment files named {@code <yyyy-MM-dd>-<sequence>.log}. A new
+ * segment is started when the UTC day changes or the current segment exceeds the maximum size, the previous segment is
+ * then compressed to {@code <name>.log.gz}. Every line of a segment starts with the epoch milliseconds of the logged
+ * line followed by a space. The sidecar file {@code index} records the segment and byte offset of vote starts and
+ * ends so that a vote can be read without scanning the whole log, see {@link ChannelLogReader}.
+ *
+ * @author Jan Dittberner
+ */
+final class SegmentedChannelLog implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedChannelLog.class);
+    /**
+     * Name of the sidecar index file.
+     */
+    static final String INDEX_FILE = "index";
+    /**
+     * Suffix of uncompressed segments.
+     */
+    static final String SEGMENT_SUFFIX = ".log";
+    /**
+     * Suffix of compressed segments.
+     */
+    static final String COMPRESSED_SUFFIX = ".log.gz";
+    /**
+     * Index record type of a vote start.
+     */
+    static final String INDEX_START = "START";
+    /**
+     * Index record type of a vote end.
+     */
+    static final String INDEX_END = "END";
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final boolean compress;
+
+    private OutputStream segment;
+    private OutputStream index;
+    private String segmentName;
+    private LocalDate segmentDay;
+    private long position;
+
+    /**
+     * @param directory       directory of the channel log
+     * @param maxSegmentBytes size from which a new segment is started
+     * @param compress        whether closed segments are compressed
+     */
+    SegmentedChannelLog(final Path directory, final long maxSegmentBytes, final boolean compress) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.compress = compress;
+    }
+
+    /**
+     * Append a line.
+     *
+     * @param timestamp epoch milliseconds of the line
+     * @param line      log line
+     * @throws IOException in case of I/O errors
+     */
+    void append(final long timestamp, final String line) throws IOException {
+        final byte[] data = (timestamp + " " + line + "\n").getBytes(StandardCharsets.UTF_8);
+        ensureSegment(timestamp);
+        segment.write(data);
+        position += data.length;
+    }
+
+    /**
+     * Record the start of a vote in the index. The recorded offset is the position of the next appended line.
+     *
+     * @param timestamp epoch milliseconds of the vote start
+     * @param topic     vote topic
+     * @throws IOException in case of I/O errors
+     */
+    void markVoteStart(final long timestamp, final String topic) throws IOException {
+        ensureSegment(timestamp);
+        writeIndex(INDEX_START + "\t" + timestamp + "\t" + segmentName + "\t" + position + "\t"
+                + topic.replace('\t', ' ').replace('\n', ' '));
+    }
+
+    /**
+     * Record the end of a vote in the index. The recorded offset is the position after the last appended line.
+     *
+     * @param timestamp epoch milliseconds of the vote end
+     * @throws IOException in case of I/O errors
+     */
+    void markVoteEnd(final long timestamp) throws IOException {
+        if (segment == null) {
+            ensureSegment(timestamp);
+        }
+        writeIndex(INDEX_END + "\t" + timestamp + "\t" + segmentName + "\t" + position);
+    }
+
+    private void writeIndex(final String record) throws IOException {
+        if (index == null) {
+            index = Files.newOutputStream(
+                    directory.resolve(INDEX_FILE), StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                    StandardOpenOption.WRITE);
+        }
+        index.write((record + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void ensureSegment(final long timestamp) throws IOException {
+        final LocalDate day = Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC).toLocalDate();
+        if (segment != null && (day.isAfter(segmentDay) || position >= maxSegmentBytes)) {
+            roll();
+        }
+        if (segment == null) {
+            open(day);
+        }
+    }
+
+    private void open(final LocalDate day) throws IOException {
+        Files.createDirectories(directory);
+
+        final List<String> segments = ChannelLogReader.listSegments(directory);
+        final String prefix = day.toString() + "-";
+        int sequence = 0;
+        if (!segments.isEmpty()) {
+            final String last = segments.get(segments.size() - 1);
+            final Path lastPath = directory.resolve(last + SEGMENT_SUFFIX);
+            if (last.startsWith(prefix)) {
+                sequence = Integer.parseInt(last.substring(prefix.length()));
+                if (!Files.exists(lastPath) || Files.size(lastPath) >= maxSegmentBytes) {
+                    sequence++;
+                }
+            } else if (compress && Files.exists(lastPath)) {
+                // segment of an earlier day that has not been rolled before the last shutdown
+                compress(last);
+            }
+        }
+
+        segmentName = String.format("%s%03d", prefix, sequence);
+        segmentDay = day;
+        final Path path = directory.resolve(segmentName + SEGMENT_SUFFIX);
+        position = Files.exists(path) ? Files.size(path) : 0;
+        segment = new BufferedOutputStream(Files.newOutputStream(
+                path, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE));
+    }
+
+    private void roll() throws IOException {
+        final String closed = segmentName;
+        segment.close();
+        segment = null;
+        if (compress) {
+            compress(closed);
+        }
+    }
+
+    private void compress(final String name) {
+        final Path source = directory.resolve(name + SEGMENT_SUFFIX);
+        final Path target = directory.resolve(name + COMPRESSED_SUFFIX);
+        final Path temporary = directory.resolve(name + COMPRESSED_SUFFIX + ".tmp");
+        try {
+            try (InputStream in = Files.newInputStream(source);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(source);
+        } catch (final IOException e) {
+            LOGGER.error("error compressing log segment '{}': {}", source, e.getMessage());
+        }
+    }
+
+    /**
+     * Flush written lines and index records.
+     *
+     * @throws IOException in case of I/O errors
+     */
+    void flush() throws IOException {
+        if (segment != null) {
+            segment.flush();
+        }
+        if (index != null) {
+            index.flush();
+        }
+    }
+
+    /**
+     * Close the open files. The current segment is not compressed, appending to the log reopens it.
+     *
+     * @throws IOException in case of I/O errors
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (segment != null) {
+                segment.close();
+            }
+        } finally {
+            segment = null;
+            if (index != null) {
+                index.close();
+                index = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cacert.votebot.shared.exceptions.IRCClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of auxiliary send-only connections that spread private acknowledgements over several flood limits.
+ * <p>
+ * Each sender registers with its own nick name, answers PINGs and otherwise ignores what it receives; it joins no
+ * channels. Lines are routed by the recipient, so the lines for one recipient keep their order. Each sender has its
+ * own {@link OutboundQueue} whose metrics are tagged with the sender name. A lost sender is reconnected with backoff,
+ * while it is down its recipients are routed to the remaining senders.
+ *
+ * @author Jan Dittberner
+ */
+public class SenderPool implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SenderPool.class);
+    private static final int RPL_WELCOME = 1;
+    private static final int ERR_NICKNAMEINUSE = 433;
+
+    /**
+     * Opens connections to the IRC server of the primary client.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        /**
+         * @param handler receiver of the connection's lines
+         * @return a new connection
+         * @throws IOException        in case of network IO problems
+         * @throws IRCClientException if the connection cannot be created
+         */
+        IRCConnection open(IRCConnection.Handler handler) throws IOException, IRCClientException;
+    }
+
+    /**
+     * Creates the outbound queue of a sender.
+     */
+    @FunctionalInterface
+    public interface QueueFactory {
+        /**
+         * @param name   sender name used as metrics tag
+         * @param sender sender whose connection receives the lines
+         * @return a new outbound queue
+         */
+        OutboundQueue create(String name, Sender sender);
+    }
+
+    private final List<Sender> senders = new ArrayList<>();
+    private final ConnectionFactory connectionFactory;
+    private final ReconnectBackoff backoff;
+    private final ScheduledExecutorService scheduler;
+    private final boolean mergeLines;
+    private volatile boolean closed;
+
+    /**
+     * @param baseNick          nick name of the primary client, sender nick names are derived from it
+     * @param size              number of senders
+     * @param mergeLines        whether to merge short lines of multi-line messages
+     * @param connectionFactory factory for sender connections
+     * @param queueFactory      factory for sender queues
+     * @param backoff           reconnect delays of lost senders
+     * @param meterRegistry     registry for pool metrics
+     */
+    public SenderPool(
+            final String baseNick, final int size, final boolean mergeLines, final ConnectionFactory connectionFactory,
+            final QueueFactory queueFactory, final ReconnectBackoff backoff, final MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.backoff = backoff;
+        this.mergeLines = mergeLines;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "irc-sender-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 1; i <= size; i++) {
+            final Sender sender = new Sender(baseNick + "-" + i);
+            sender.queue = queueFactory.create("sender-" + i, sender);
+            // lines wait in the queue until the sender is registered
+            sender.queue.setPaused(true);
+            senders.add(sender);
+        }
+        Gauge.builder("votebot.irc.senders.registered", this, SenderPool::getRegisteredCount)
+             .description("Number of auxiliary sender connections that are ready to send")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Connect all senders. Senders that cannot connect are retried in the background.
+     */
+    public void start() {
+        for (final Sender sender : senders) {
+            sender.connect();
+        }
+    }
+
+    /**
+     * @return number of registered senders
+     */
+    public int getRegisteredCount() {
+        int count = 0;
+        for (final Sender sender : senders) {
+            if (sender.registered) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Send a message through the sender that is responsible for the target.
+     *
+     * @param command  PRIVMSG or NOTICE
+     * @param target   recipient nick name
+     * @param message  message text
+     * @param priority send lane
+     * @param mergeKey key identifying acknowledgements that supersede each other, may be null
+     * @return false if no sender is registered and the caller has to send the message itself
+     */
+    public boolean send(
+            final String command, final String target, final String message, final OutboundPriority priority,
+            final String mergeKey) {
+        return send(command, target, message, priority, mergeKey, OutboundQueue.NOT_RECEIVED);
+    }
+
+    /**
+     * Send an answer to a received message through the sender that is responsible for the target.
+     *
+     * @param command  PRIVMSG or NOTICE
+     * @param target   recipient nick name
+     * @param message  message text
+     * @param priority send lane
+     * @param mergeKey key identifying acknowledgements that supersede each other, may be null
+     * @param received {@link System#nanoTime()} when the answered message was received
+     * @return false if no sender is registered and the caller has to send the message itself
+     */
+    public boolean send(
+            final String command, final String target, final String message, final OutboundPriority priority,
+            final String mergeKey, final long received) {
+        final Sender sender = route(target);
+        if (sender == null) {
+            return false;
+        }
+        final List<String> lines = sender.packer.pack(command, target, message);
+        for (final String line : lines) {
+            sender.queue.offer(line, priority, lines.size() == 1 ? mergeKey : null, received);
+        }
+        return true;
+    }
+
+    /**
+     * Pick the sender for a target by hash, probing the following senders if it is not registered.
+     */
+    private Sender route(final String target) {
+        final int size = senders.size();
+        if (size == 0 || closed) {
+            return null;
+        }
+        final int first = Math.floorMod(target.toLowerCase(Locale.ENGLISH).hashCode(), size);
+        for (int i = 0; i < size; i++) {
+            final Sender sender = senders.get((first + i) % size);
+            if (sender.registered) {
+                return sender;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Send pending lines and quit all senders.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        for (final Sender sender : senders) {
+            sender.queue.close();
+            final IRCConnection connection = sender.connection;
+            if (connection != null) {
+                connection.sendLine("QUIT");
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * A single send-only connection.
+     */
+    public final class Sender implements IRCConnection.Handler {
+        private final String baseNick;
+        private final IRCMessage message = new IRCMessage();
+        private final MessagePacker packer;
+        private OutboundQueue queue;
+        private volatile IRCConnection connection;
+        private volatile boolean registered;
+        private String nick;
+        private int attempt;
+
+        private Sender(final String nick) {
+            this.baseNick = nick;
+            this.nick = nick;
+            this.packer = new MessagePacker(nick, mergeLines);
+        }
+
+        /**
+         * @param line protocol line that left the sender's queue
+         */
+        public void sendLine(final String line) {
+            final IRCConnection current = connection;
+            if (current != null) {
+                current.sendLine(line);
+            }
+        }
+
+        private void connect() {
+            if (closed) {
+                return;
+            }
+            try {
+                nick = baseNick;
+                connection = connectionFactory.open(this);
+                connection.sendLine("NICK " + nick);
+                connection.sendLine("USER " + nick + " 0 * :CAcert Votebot sender");
+            } catch (final IOException | IRCClientException e) {
+                LOGGER.warn("sender {} cannot connect: {}", baseNick, e.getMessage());
+                scheduleReconnect();
+            }
+        }
+
+        private void scheduleReconnect() {
+            if (closed) {
+                return;
+            }
+            final long delay = backoff.delayMillis(attempt++);
+            scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void lineReceived(final byte[] buffer, final int offset, final int length) {
+            if (!message.parse(buffer, offset, length)) {
+                LOGGER.warn("sender {} received malformed line: {}", nick,
+                        new String(buffer, offset, length, StandardCharsets.UTF_8));
+                return;
+            }
+            if (message.isCommand("PING")) {
+                connection.sendLine("PONG " + message.getRawParams());
+            } else if (message.getNumeric() == RPL_WELCOME) {
+                attempt = 0;
+                registered = true;
+                queue.setPaused(false);
+                LOGGER.info("sender {} registered", nick);
+            } else if (message.getNumeric() == ERR_NICKNAMEINUSE && !registered) {
+                nick = nick + "_";
+                packer.setNick(nick);
+                connection.sendLine("NICK " + nick);
+            }
+        }
+
+        @Override
+        public void connectionClosed(final IOException cause) {
+            registered = false;
+            queue.setPaused(true);
+            if (cause != null && !closed) {
+                LOGGER.warn("sender {} lost its connection: {}", nick, cause.getMessage());
+                scheduleReconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+/**
+ * Token bucket for client side flood control. Each sent line consumes one token, tokens are refilled at a fixed
+ * interval up to the burst size.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Jan Dittberner
+ */
+public class TokenBucket {
+    private final int burst;
+    private final long refillNanos;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param burst       maximum number of lines that can be sent without delay
+     * @param refillNanos nanoseconds after which one token is refilled
+     * @param now         current value of {@link System#nanoTime()}
+     */
+    public TokenBucket(final int burst, final long refillNanos, final long now) {
+        if (burst < 1 || refillNanos < 0) {
+            throw new IllegalArgumentException("burst must be positive and refill interval must not be negative");
+        }
+        this.burst = burst;
+        this.refillNanos = refillNanos;
+        this.tokens = burst;
+        this.lastRefill = now;
+    }
+
+    private void refill(final long now) {
+        if (refillNanos == 0) {
+            tokens = burst;
+        } else {
+            tokens = Math.min(burst, tokens + (double) (now - lastRefill) / refillNanos);
+        }
+        lastRefill = now;
+    }
+
+    /**
+     * Try to take a token.
+     *
+     * @param now current value of {@link System#nanoTime()}
+     * @return 0 if a token has been taken, otherwise the number of nanoseconds until the next token is available
+     */
+    public long tryAcquire(final long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) * refillNanos));
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Archive of closed votes in a local file, indexed by the keywords of their topics, by the UTC day they have been
+ * called and by voter.
+ * <p>
+ * Votes are appended to {@code votes.dat} in the archive directory in the record format of the {@link VoteJournal}
+ * and synced to disk when they are stored. The file is read and indexed when the archive is used first, a torn record
+ * at its end is cut off. The indexes are bit sets over the position of the votes in the file, so a query is the
+ * intersection of a few bit sets. The results of recent queries are kept in an LRU cache, that is cleared when a vote
+ * is stored.
+ *
+ * @author Jan Dittberner
+ */
+@Component
+public class VoteArchive implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VoteArchive.class);
+    private static final String FILE_NAME = "votes.dat";
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final BitSet NONE = new BitSet();
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    /**
+     * Archived votes in the order they have been stored, the bit sets of the indexes refer to their positions.
+     */
+    private final List<ArchivedVote> votes = new ArrayList<>();
+    private final Map<String, BitSet> keywordIndex = new HashMap<>();
+    private final Map<String, BitSet> voterIndex = new HashMap<>();
+    private final NavigableMap<LocalDate, BitSet> dayIndex = new TreeMap<>();
+    private Map<String, List<ArchivedVote>> cache;
+    private boolean loaded;
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+    private final CRC32 crc = new CRC32();
+    private FileOutputStream file;
+    private DataOutputStream out;
+
+    /**
+     * Directory that contains the archive, votes are only kept in memory if it is empty.
+     */
+    @Value("${voteArchive.directory:archive}")
+    private String directory = "archive";
+
+    /**
+     * Number of query results kept in the LRU cache.
+     */
+    @Value("${voteArchive.cacheSize:64}")
+    private int cacheSize = 64;
+
+    /**
+     * Create an archive that does not report metrics.
+     */
+    public VoteArchive() {
+        this(new SimpleMeterRegistry());
+    }
+
+    /**
+     * @param meterRegistry registry for the cache metrics
+     */
+    @Autowired
+    public VoteArchive(final MeterRegistry meterRegistry) {
+        cacheHits = Counter.builder("votebot.vote.archive.queries")
+                           .description("Vote archive queries")
+                           .tags("cache", "hit")
+                           .register(meterRegistry);
+        cacheMisses = Counter.builder("votebot.vote.archive.queries")
+                             .description("Vote archive queries")
+                             .tags("cache", "miss")
+                             .register(meterRegistry);
+    }
+
+    /**
+     * @return an archive that keeps votes in memory only
+     */
+    public static VoteArchive inMemory() {
+        final VoteArchive archive = new VoteArchive();
+        archive.directory = "";
+        return archive;
+    }
+
+    /**
+     * Archive a closed vote.
+     *
+     * @param session closed vote session
+     * @param result  final result of the session
+     * @return the archived vote
+     */
+    public synchronized ArchivedVote store(final VoteSession session, final VoteResult result) {
+        load();
+        final ArchivedVote vote = new ArchivedVote(session.getId(), session.getChannel(), result, session.getVotes());
+        append(vote);
+        index(vote);
+        cache.clear();
+        return vote;
+    }
+
+    /**
+     * Find archived votes. Criteria that are null or empty match all votes.
+     *
+     * @param keywords words that all have to occur in the topic, case is ignored
+     * @param date     UTC day, month or year the vote has been called like "2026-03-14", "2026-03" or "2026"
+     * @param voter    nick that has to have voted, case is ignored
+     * @return the matching votes, the most recently closed vote first
+     * @throws IllegalArgumentException if the date has none of the supported forms
+     */
+    public synchronized List<ArchivedVote> find(final String keywords, final String date, final String voter) {
+        final Set<String> words = words(keywords);
+        final String voterKey = voter == null ? "" : voter.trim().toLowerCase(Locale.ROOT);
+        final String dateKey = date == null ? "" : date.trim();
+        final LocalDate[] days = dateKey.isEmpty() ? null : dayRange(dateKey);
+        final String key = String.join(" ", words) + '\n' + dateKey + '\n' + voterKey;
+
+        load();
+        final List<ArchivedVote> cached = cache.get(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+
+        final BitSet matches = new BitSet(votes.size());
+        matches.set(0, votes.size());
+        for (final String word : words) {
+            matches.and(keywordIndex.getOrDefault(word, NONE));
+        }
+        if (!voterKey.isEmpty()) {
+            matches.and(voterIndex.getOrDefault(voterKey, NONE));
+        }
+        if (days != null) {
+            final BitSet inRange = new BitSet(votes.size());
+            for (final BitSet day : dayIndex.subMap(days[0], true, days[1], true).values()) {
+                inRange.or(day);
+            }
+            matches.and(inRange);
+        }
+        final List<ArchivedVote> found = new ArrayList<>(matches.cardinality());
+        for (int i = matches.previousSetBit(votes.size() - 1); i >= 0; i = matches.previousSetBit(i - 1)) {
+            found.add(votes.get(i));
+        }
+        final List<ArchivedVote> result = Collections.unmodifiableList(found);
+        cache.put(key, result);
+        return result;
+    }
+
+    private static Set<String> words(final String text) {
+        final Set<String> words = new LinkedHashSet<>();
+        if (text != null) {
+            for (final String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @return first and last day of the given day, month or year
+     */
+    private static LocalDate[] dayRange(final String date) {
+        try {
+            switch (date.length()) {
+                case 4:
+                    final Year year = Year.parse(date);
+                    return new LocalDate[]{year.atDay(1), year.atMonth(12).atEndOfMonth()};
+                case 7:
+                    final YearMonth month = YearMonth.parse(date);
+                    return new LocalDate[]{month.atDay(1), month.atEndOfMonth()};
+                default:
+                    final LocalDate day = LocalDate.parse(date);
+                    return new LocalDate[]{day, day};
+            }
+        } catch (final DateTimeParseException e) {
+            throw new IllegalArgumentException(
+                    String.format("%s is not a date like yyyy, yyyy-mm or yyyy-mm-dd", date), e);
+        }
+    }
+
+    private void index(final ArchivedVote vote) {
+        final int position = votes.size();
+        votes.add(vote);
+        for (final String word : words(vote.getResult().getTopic())) {
+            keywordIndex.computeIfAbsent(word, key -> new BitSet()).set(position);
+        }
+        for (final String voter : vote.getBallots().keySet()) {
+            voterIndex.computeIfAbsent(voter.toLowerCase(Locale.ROOT), key -> new BitSet()).set(position);
+        }
+        dayIndex.computeIfAbsent(vote.getDay(), key -> new BitSet()).set(position);
+    }
+
+    /**
+     * Read and index the archive file and open it for appending.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        cache = new LinkedHashMap<String, List<ArchivedVote>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, List<ArchivedVote>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        if (directory == null || directory.isEmpty()) {
+            return;
+        }
+        final long started = System.nanoTime();
+        final Path dirPath = Paths.get(directory);
+        final Path path = dirPath.resolve(FILE_NAME);
+        try {
+            if (!Files.exists(dirPath)) {
+                Files.createDirectories(
+                        dirPath, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-x---")));
+            }
+            long valid = 0;
+            if (Files.exists(path)) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                    byte[] payload;
+                    while ((payload = ChecksummedRecords.read(in, crc, path)) != null) {
+                        index(readVote(new DataInputStream(new ByteArrayInputStream(payload))));
+                        valid += ChecksummedRecords.HEADER_BYTES + payload.length;
+                    }
+                }
+            }
+            file = new FileOutputStream(path.toFile(), true);
+            if (file.getChannel().size() > valid) {
+                LOGGER.warn("cutting off '{}' after the last complete record at {} bytes", path, valid);
+                file.getChannel().truncate(valid);
+            }
+            out = new DataOutputStream(new BufferedOutputStream(file));
+        } catch (final IOException e) {
+            LOGGER.error("could not open the vote archive '{}': {}", path, e.getMessage());
+        }
+        LOGGER.info("loaded {} archived votes from '{}' in {} ms", votes.size(), path,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void append(final ArchivedVote vote) {
+        if (out == null) {
+            return;
+        }
+        try {
+            recordBuffer.reset();
+            writeVote(record, vote);
+            record.flush();
+            ChecksummedRecords.write(out, recordBuffer.toByteArray(), crc);
+            out.flush();
+            file.getChannel().force(false);
+        } catch (final IOException e) {
+            LOGGER.error("could not archive vote {}: {}", vote.getId(), e.getMessage());
+        }
+    }
+
+    private static void writeVote(final DataOutputStream data, final ArchivedVote vote) throws IOException {
+        final VoteResult result = vote.getResult();
+        data.writeUTF(vote.getId());
+        data.writeUTF(result.getTopic());
+        data.writeBoolean(vote.getChannel() != null);
+        if (vote.getChannel() != null) {
+            data.writeUTF(vote.getChannel());
+        }
+        data.writeLong(result.getStart().toEpochMilli());
+        data.writeLong(result.getEnd().toEpochMilli());
+        data.writeInt(vote.getBallots().size());
+        for (final Map.Entry<String, VoteType> ballot : vote.getBallots().entrySet()) {
+            data.writeUTF(ballot.getKey());
+            data.writeByte(ballot.getValue().ordinal());
+        }
+    }
+
+    private static ArchivedVote readVote(final DataInputStream data) throws IOException {
+        final String id = data.readUTF();
+        final String topic = data.readUTF();
+        final String channel = data.readBoolean() ? data.readUTF() : null;
+        final Instant start = Instant.ofEpochMilli(data.readLong());
+        final Instant end = Instant.ofEpochMilli(data.readLong());
+        final int count = data.readInt();
+        final Map<String, VoteType> ballots = new HashMap<>(count * 2);
+        final long[] counts = new long[VoteType.values().length];
+        for (int i = 0; i < count; i++) {
+            final String voter = data.readUTF();
+            final VoteType type = VoteType.values()[data.readByte()];
+            ballots.put(voter, type);
+            counts[type.ordinal()]++;
+        }
+        return new ArchivedVote(id, channel, new VoteResult(topic, start, end, counts), ballots);
+    }
+
+    /**
+     * Close the archive file.
+     */
+    @PreDestroy
+    @Override
+    public synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (final IOException e) {
+            LOGGER.error("error closing the vote archive: {}", e.getMessage());
+        }
+        out = null;
+        file = null;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint {@code /actuator/votes} that queries the {@link VoteArchive} like
+ * {@code /actuator/votes?topic=budget&date=2026-03&voter=alice}.
+ *
+ * @author Jan Dittberner
+ */
+@Component
+@Endpoint(id = "votes")
+public class VoteArchiveEndpoint {
+    private final VoteArchive voteArchive;
+
+    /**
+     * @param voteArchive queried archive
+     */
+    @Autowired
+    public VoteArchiveEndpoint(final VoteArchive voteArchive) {
+        this.voteArchive = voteArchive;
+    }
+
+    /**
+     * @param topic keywords that all have to occur in the topic
+     * @param date  UTC day, month or year the vote has been called
+     * @param voter nick that has to have voted
+     * @return the matching votes, the most recently closed vote first
+     */
+    @ReadOperation
+    public List<Map<String, Object>> votes(
+            @Nullable final String topic, @Nullable final String date, @Nullable final String voter) {
+        final List<ArchivedVote> votes;
+        try {
+            votes = voteArchive.find(topic, date, voter);
+        } catch (final IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), "invalid date");
+        }
+        final List<Map<String, Object>> result = new ArrayList<>(votes.size());
+        for (final ArchivedVote vote : votes) {
+            final Map<String, Object> counts = new LinkedHashMap<>();
+            for (final VoteType type : VoteType.values()) {
+                counts.put(type.name(), vote.getResult().getCount(type));
+            }
+            final Map<String, Object> ballots = new LinkedHashMap<>();
+            vote.getBallots().forEach((name, type) -> ballots.put(name, type.name()));
+            final Map<String, Object> details = new LinkedHashMap<>();
+            details.put("id", vote.getId());
+            details.put("topic", vote.getResult().getTopic());
+            details.put("channel", vote.getChannel());
+            details.put("start", vote.getResult().getStart().toString());
+            details.put("end", vote.getResult().getEnd().toString());
+            details.put("counts", counts);
+            details.put("ballots", ballots);
+            result.add(details);
+        }
+        return result;
+    }
+}
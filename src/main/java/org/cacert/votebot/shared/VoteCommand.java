@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A message in a vote channel split into its parts in a single pass over the text. Messages have the form
+ * <pre>
+ * [&lt;session id&gt; :] [proxy &lt;voter&gt;[,&lt;voter&gt;...]] &lt;vote&gt;
+ * </pre>
+ * The vote word is not copied, it is kept as a region of the text for {@link VoteVocabulary#lookup(CharSequence,
+ * int, int)}. Messages are parsed by {@link CAcertVoteMechanics#parseVote(String, String)} once, the result is used
+ * for ordering and counting the vote.
+ *
+ * @author Jan Dittberner
+ */
+public final class VoteCommand {
+    private static final String PROXY = "proxy";
+    private static final char SESSION_PREFIX_SEPARATOR = ':';
+    private static final char VOTER_SEPARATOR = ',';
+
+    private final String text;
+    private final String sessionId;
+    private final List<String> voters;
+    private final boolean valid;
+    private final int voteStart;
+    private final int voteEnd;
+
+    private VoteCommand(
+            final String text, final String sessionId, final List<String> voters, final boolean valid,
+            final int voteStart, final int voteEnd) {
+        this.text = text;
+        this.sessionId = sessionId;
+        this.voters = voters;
+        this.valid = valid;
+        this.voteStart = voteStart;
+        this.voteEnd = voteEnd;
+    }
+
+    /**
+     * @param text          message text
+     * @param sessionPrefix whether the message may start with a session id like "2: aye"
+     * @return the parsed message
+     */
+    static VoteCommand parse(final String text, final boolean sessionPrefix) {
+        return parse(text, sessionPrefix ? id -> true : null);
+    }
+
+    /**
+     * @param text      message text
+     * @param isSession decides whether a prefix like "2:" names a session, otherwise the colon is part of the vote,
+     *                  null if the message cannot have a session prefix
+     * @return the parsed message
+     */
+    static VoteCommand parse(final String text, final Predicate<String> isSession) {
+        final int length = text.length();
+        int pos = skipWhitespace(text, 0);
+        String sessionId = null;
+        if (isSession != null) {
+            int end = pos;
+            while (end < length && !isWhitespace(text.charAt(end))
+                    && text.charAt(end) != SESSION_PREFIX_SEPARATOR) {
+                end++;
+            }
+            final int separator = skipWhitespace(text, end);
+            if (end > pos && separator < length && text.charAt(separator) == SESSION_PREFIX_SEPARATOR) {
+                final String candidate = text.substring(pos, end);
+                if (isSession.test(candidate)) {
+                    sessionId = candidate;
+                    pos = skipWhitespace(text, separator + 1);
+                }
+            }
+        }
+        if (!isKeyword(text, pos, PROXY)) {
+            return new VoteCommand(text, sessionId, Collections.emptyList(), true, pos, length);
+        }
+
+        pos = skipWhitespace(text, pos + PROXY.length());
+        final List<String> voters = new ArrayList<>(1);
+        while (true) {
+            final int start = pos;
+            while (pos < length && !isWhitespace(text.charAt(pos)) && text.charAt(pos) != VOTER_SEPARATOR) {
+                pos++;
+            }
+            if (pos == start) {
+                return invalid(text, sessionId);
+            }
+            final String voter = text.substring(start, pos);
+            if (!voters.contains(voter)) {
+                voters.add(voter);
+            }
+            final int next = skipWhitespace(text, pos);
+            if (next == length || text.charAt(next) != VOTER_SEPARATOR) {
+                pos = next;
+                break;
+            }
+            pos = skipWhitespace(text, next + 1);
+        }
+
+        final int voteStart = pos;
+        while (pos < length && !isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        final int voteEnd = pos;
+        if (voteStart == voteEnd || skipWhitespace(text, voteEnd) != length) {
+            return invalid(text, sessionId);
+        }
+        return new VoteCommand(text, sessionId, Collections.unmodifiableList(voters), true, voteStart, voteEnd);
+    }
+
+    private static VoteCommand invalid(final String text, final String sessionId) {
+        return new VoteCommand(text, sessionId, Collections.emptyList(), false, 0, 0);
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c <= ' ';
+    }
+
+    private static int skipWhitespace(final String text, final int start) {
+        int pos = start;
+        while (pos < text.length() && isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * @return true if the text has the keyword followed by whitespace at the position, ignoring case
+     */
+    private static boolean isKeyword(final String text, final int pos, final String keyword) {
+        final int end = pos + keyword.length();
+        return end < text.length() && isWhitespace(text.charAt(end))
+                && text.regionMatches(true, pos, keyword, 0, keyword.length());
+    }
+
+    /**
+     * @return message text
+     */
+    String getText() {
+        return text;
+    }
+
+    /**
+     * @return session id of the prefix or null if the message has no prefix
+     */
+    String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return true for proxy votes
+     */
+    public boolean isProxy() {
+        return !voters.isEmpty();
+    }
+
+    /**
+     * @return the proxied voters in the order of the message without duplicates, empty if the actor votes
+     */
+    public List<String> getVoters() {
+        return voters;
+    }
+
+    /**
+     * @return false for proxy votes that do not have the form "proxy &lt;voter&gt;[,&lt;voter&gt;...] &lt;vote&gt;"
+     */
+    boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return index of the vote word in the text
+     */
+    int getVoteStart() {
+        return voteStart;
+    }
+
+    /**
+     * @return index after the vote word in the text
+     */
+    int getVoteEnd() {
+        return voteEnd;
+    }
+}
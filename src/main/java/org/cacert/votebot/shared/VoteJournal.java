@@ -0,0 +1,799 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of vote events, so that open votes survive a crash or a restart of the bot.
+ * <p>
+ * The threads that count votes only put events into a lock-free {@link RingBuffer}, a dedicated writer thread appends
+ * them to the journal, so acknowledgements never wait for the disk. The journal is synced to disk in batches when the
+ * sync batch size has been reached or the oldest unsynced event is older than the sync interval. Every record carries
+ * a CRC32 checksum, replay stops at the first torn or corrupt record.
+ * <p>
+ * After {@code voteJournal.snapshotRecords} records the writer stores the state of all open votes in a snapshot and
+ * starts a new journal segment. Replay reads the latest snapshot and its segment, so it is bounded by the number of
+ * open votes and the snapshot interval instead of the length of the meeting.
+ * <p>
+ * If a segment cannot be started or written the journal is marked as failed and the writer retries every
+ * {@code voteJournal.retryMillis} to start a new segment. Events keep being applied to the state of the open votes in
+ * the meantime, so the snapshot that starts the new segment contains them.
+ *
+ * @author Jan Dittberner
+ */
+@Component
+public class VoteJournal implements Runnable, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VoteJournal.class);
+    /**
+     * Maximum time to wait for the writer thread on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    /**
+     * Time a producer waits for the writer when the queue is full.
+     */
+    private static final long FULL_QUEUE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private static final byte CALL = 1;
+    private static final byte VOTE = 2;
+    private static final byte STOP = 3;
+    private static final byte CLOSE = 4;
+    private static final byte SNAPSHOT_END = 5;
+    private static final byte SEQUENCE = 6;
+
+    private final MeterRegistry meterRegistry;
+    private RingBuffer<Event> ring;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private volatile boolean failed;
+    private Timer syncTimer;
+
+    /**
+     * State of the open votes as written to the journal, owned by the writer thread once it has been started.
+     */
+    private final Map<Long, SessionState> states = new LinkedHashMap<>();
+    /**
+     * Highest session sequence number in the journal, including closed votes, owned like {@link #states}.
+     */
+    private long lastSequence;
+    private long recoveredSequence;
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+    private final CRC32 crc = new CRC32();
+    private Path dirPath;
+    private long segment;
+    private FileOutputStream segmentFile;
+    private DataOutputStream out;
+    private int segmentRecords;
+    private int unsyncedRecords;
+    private long firstUnsyncedNanos;
+    private long nextRetryNanos;
+
+    /**
+     * Whether vote events are journaled and open votes are recovered on startup.
+     */
+    @Value("${voteJournal.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * Directory that contains the journal segments and snapshots.
+     */
+    @Value("${voteJournal.directory:journal}")
+    private String directory = "journal";
+
+    /**
+     * Number of events the ring buffer between the vote handlers and the writer thread can hold.
+     */
+    @Value("${voteJournal.queueCapacity:8192}")
+    private int queueCapacity = 8192;
+
+    /**
+     * Number of written records after which the journal is synced to disk.
+     */
+    @Value("${voteJournal.syncBatchSize:64}")
+    private int syncBatchSize = 64;
+
+    /**
+     * Milliseconds after which written records are synced to disk at the latest.
+     */
+    @Value("${voteJournal.syncIntervalMillis:50}")
+    private long syncIntervalMillis = 50;
+
+    /**
+     * Number of records after which a snapshot is taken and a new journal segment is started.
+     */
+    @Value("${voteJournal.snapshotRecords:4096}")
+    private int snapshotRecords = 4096;
+
+    /**
+     * Milliseconds between attempts to start a new segment after the journal failed.
+     */
+    @Value("${voteJournal.retryMillis:1000}")
+    private long retryMillis = 1000;
+
+    /**
+     * A vote event as it is queued and written to the journal.
+     */
+    private static final class Event {
+        private final byte type;
+        private final long sequence;
+        private final String topic;
+        private final String channel;
+        private final long[] times;
+        private final VoteType vote;
+        private final List<String> voters;
+
+        private Event(
+                final byte type, final long sequence, final String topic, final String channel, final long[] times,
+                final VoteType vote, final List<String> voters) {
+            this.type = type;
+            this.sequence = sequence;
+            this.topic = topic;
+            this.channel = channel;
+            this.times = times;
+            this.vote = vote;
+            this.voters = voters;
+        }
+
+        private static Event call(
+                final long sequence, final String topic, final String channel, final long start, final long warn,
+                final long end) {
+            return new Event(CALL, sequence, topic, channel, new long[]{start, warn, end}, null, null);
+        }
+
+        private static Event vote(final long sequence, final List<String> voters, final VoteType vote) {
+            return new Event(VOTE, sequence, null, null, null, vote, voters);
+        }
+
+        private static Event stop(final long sequence, final long stop) {
+            return new Event(STOP, sequence, null, null, new long[]{stop}, null, null);
+        }
+
+        private static Event close(final long sequence) {
+            return new Event(CLOSE, sequence, null, null, null, null, null);
+        }
+
+        private void writeTo(final DataOutputStream data) throws IOException {
+            data.writeByte(type);
+            if (type == SNAPSHOT_END) {
+                return;
+            }
+            data.writeLong(sequence);
+            switch (type) {
+                case CALL:
+                    data.writeUTF(topic);
+                    data.writeBoolean(channel != null);
+                    if (channel != null) {
+                        data.writeUTF(channel);
+                    }
+                    for (final long time : times) {
+                        data.writeLong(time);
+                    }
+                    break;
+                case VOTE:
+                    data.writeByte(vote.ordinal());
+                    data.writeInt(voters.size());
+                    for (final String voter : voters) {
+                        data.writeUTF(voter);
+                    }
+                    break;
+                case STOP:
+                    data.writeLong(times[0]);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private static Event readFrom(final DataInputStream data) throws IOException {
+            final byte type = data.readByte();
+            if (type == SNAPSHOT_END) {
+                return new Event(SNAPSHOT_END, 0, null, null, null, null, null);
+            }
+            final long sequence = data.readLong();
+            switch (type) {
+                case CALL:
+                    final String topic = data.readUTF();
+                    final String channel = data.readBoolean() ? data.readUTF() : null;
+                    return call(sequence, topic, channel, data.readLong(), data.readLong(), data.readLong());
+                case VOTE:
+                    final VoteType voteType = VoteType.values()[data.readByte()];
+                    final int count = data.readInt();
+                    final List<String> voters = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        voters.add(data.readUTF());
+                    }
+                    return vote(sequence, voters, voteType);
+                case STOP:
+                    return stop(sequence, data.readLong());
+                case CLOSE:
+                    return close(sequence);
+                case SEQUENCE:
+                    return new Event(SEQUENCE, sequence, null, null, null, null, null);
+                default:
+                    throw new IOException(String.format("unknown record type %d", type));
+            }
+        }
+    }
+
+    /**
+     * State of an open vote as restored from the journal.
+     */
+    static final class SessionState {
+        private final long sequence;
+        private final String topic;
+        private final String channel;
+        private final long start;
+        private final long warnTime;
+        private final long endTime;
+        private long stopTime;
+        private final Map<String, VoteType> votes;
+
+        private SessionState(final Event call) {
+            this.sequence = call.sequence;
+            this.topic = call.topic;
+            this.channel = call.channel;
+            this.start = call.times[0];
+            this.warnTime = call.times[1];
+            this.endTime = call.times[2];
+            this.votes = new LinkedHashMap<>();
+        }
+
+        private SessionState(final SessionState other) {
+            this.sequence = other.sequence;
+            this.topic = other.topic;
+            this.channel = other.channel;
+            this.start = other.start;
+            this.warnTime = other.warnTime;
+            this.endTime = other.endTime;
+            this.stopTime = other.stopTime;
+            this.votes = new LinkedHashMap<>(other.votes);
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        String getTopic() {
+            return topic;
+        }
+
+        String getChannel() {
+            return channel;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getWarnTime() {
+            return warnTime;
+        }
+
+        long getEndTime() {
+            return endTime;
+        }
+
+        /**
+         * @return time the vote has been stopped in milliseconds since the epoch, 0 if it is running
+         */
+        long getStopTime() {
+            return stopTime;
+        }
+
+        Map<String, VoteType> getVotes() {
+            return votes;
+        }
+    }
+
+    /**
+     * Create a journal that records metrics in a private registry.
+     */
+    public VoteJournal() {
+        this(new SimpleMeterRegistry());
+    }
+
+    /**
+     * @param meterRegistry registry for journal metrics
+     */
+    @Autowired
+    public VoteJournal(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return a journal that neither recovers nor writes votes
+     */
+    static VoteJournal disabled() {
+        final VoteJournal journal = new VoteJournal();
+        journal.enabled = false;
+        return journal;
+    }
+
+    /**
+     * Restore the open votes from the journal and start the writer thread. Events are ignored until the journal has
+     * been opened. Calling this method on an opened or disabled journal returns no votes.
+     *
+     * @return the votes that were open when the journal was written last
+     */
+    public synchronized List<SessionState> open() {
+        if (!enabled || writer != null) {
+            return Collections.emptyList();
+        }
+        dirPath = Paths.get(directory);
+        final long started = System.nanoTime();
+        try {
+            if (!Files.exists(dirPath)) {
+                Files.createDirectories(
+                        dirPath, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-x---")));
+            }
+            recover();
+        } catch (final IOException e) {
+            LOGGER.error("could not recover votes from '{}': {}", dirPath, e.getMessage());
+        }
+        recoveredSequence = lastSequence;
+        final List<SessionState> recovered = new ArrayList<>(states.size());
+        for (final SessionState state : states.values()) {
+            recovered.add(new SessionState(state));
+        }
+        LOGGER.info("recovered {} open votes from '{}' in {} ms", recovered.size(), dirPath,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        ring = new RingBuffer<>(queueCapacity);
+        syncTimer = Timer.builder("votebot.vote.journal.sync")
+                         .description("time spent syncing the vote journal to disk")
+                         .register(meterRegistry);
+        running = true;
+        writer = new Thread(this, "vote-journal");
+        writer.setDaemon(true);
+        writer.start();
+        return recovered;
+    }
+
+    /**
+     * @return highest session sequence number found by {@link #open()}, including votes that had been closed
+     */
+    synchronized long getRecoveredSequence() {
+        return recoveredSequence;
+    }
+
+    /**
+     * @return true if the writer has no journal segment to write to, because starting or writing the segment failed
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Read the latest complete snapshot and replay the journal segments written after it.
+     */
+    private void recover() throws IOException {
+        final TreeSet<Long> snapshots = new TreeSet<>();
+        final TreeSet<Long> segments = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dirPath)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                final long snapshot = fileNumber(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                if (snapshot >= 0) {
+                    snapshots.add(snapshot);
+                }
+                final long journal = fileNumber(name, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+                if (journal >= 0) {
+                    segments.add(journal);
+                }
+                segment = Math.max(segment, Math.max(snapshot, journal));
+            }
+        }
+        long base = -1;
+        for (final Long snapshot : snapshots.descendingSet()) {
+            states.clear();
+            lastSequence = 0;
+            if (replay(snapshotPath(snapshot))) {
+                base = snapshot;
+                break;
+            }
+            LOGGER.warn("ignoring incomplete snapshot {}", snapshot);
+        }
+        if (base < 0) {
+            states.clear();
+            lastSequence = 0;
+        }
+        for (final Long journal : segments.tailSet(Math.max(base, 0))) {
+            replay(dirPath.resolve(SEGMENT_PREFIX + journal + SEGMENT_SUFFIX));
+        }
+    }
+
+    private static long fileNumber(final String name, final String prefix, final String suffix) {
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Path snapshotPath(final long number) {
+        return dirPath.resolve(SNAPSHOT_PREFIX + number + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Apply the records of a file to the state until the end of the file or the first torn or corrupt record.
+     *
+     * @return true if the end marker of a snapshot has been read
+     */
+    private boolean replay(final Path file) throws IOException {
+        final CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] payload;
+            while ((payload = ChecksummedRecords.read(in, checksum, file)) != null) {
+                final Event event = Event.readFrom(new DataInputStream(new ByteArrayInputStream(payload)));
+                if (event.type == SNAPSHOT_END) {
+                    return true;
+                }
+                apply(event);
+            }
+            return false;
+        }
+    }
+
+    private void apply(final Event event) {
+        lastSequence = Math.max(lastSequence, event.sequence);
+        if (event.type == CALL) {
+            states.put(event.sequence, new SessionState(event));
+            return;
+        }
+        final SessionState state = states.get(event.sequence);
+        if (state == null) {
+            return;
+        }
+        switch (event.type) {
+            case VOTE:
+                for (final String voter : event.voters) {
+                    state.votes.put(voter, event.vote);
+                }
+                break;
+            case STOP:
+                state.stopTime = event.times[0];
+                break;
+            case CLOSE:
+                states.remove(event.sequence);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Journal a new vote. This method does not wait for the disk.
+     *
+     * @param session the new vote
+     */
+    void called(final VoteSession session) {
+        enqueue(Event.call(session.getSequence(), session.getTopic(), session.getChannel(),
+                session.getStart().toEpochMilli(), session.getWarnTime().toEpochMilli(),
+                session.getEndTime().toEpochMilli()));
+    }
+
+    /**
+     * Journal the same vote of one or more voters as a single record. This method does not wait for the disk.
+     *
+     * @param session the vote
+     * @param voters  voters that voted
+     * @param type    their vote
+     */
+    void voted(final VoteSession session, final List<String> voters, final VoteType type) {
+        enqueue(Event.vote(session.getSequence(), voters, type));
+    }
+
+    /**
+     * Journal the stop of a vote. This method does not wait for the disk.
+     *
+     * @param session the stopped vote
+     */
+    void stopped(final VoteSession session) {
+        enqueue(Event.stop(session.getSequence(), session.deadline().toEpochMilli()));
+    }
+
+    /**
+     * Journal the close of a vote. This method does not wait for the disk.
+     *
+     * @param session the closed vote
+     */
+    void closed(final VoteSession session) {
+        enqueue(Event.close(session.getSequence()));
+    }
+
+    private void enqueue(final Event event) {
+        final RingBuffer<Event> buffer = ring;
+        if (buffer == null || !running) {
+            return;
+        }
+        while (!buffer.offer(event)) {
+            // votes must not be lost, wait for the writer instead of dropping the event
+            LockSupport.unpark(writer);
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(this, FULL_QUEUE_WAIT_NANOS);
+        }
+        if (writerParked && buffer.size() >= syncBatchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    @Override
+    public void run() {
+        final long syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        // the first segment starts with a snapshot of the recovered votes, so a torn tail is never appended to
+        rollSegment();
+
+        while (running) {
+            drain();
+
+            final long now = System.nanoTime();
+            if (out == null && now - nextRetryNanos >= 0) {
+                rollSegment();
+            }
+            if (unsyncedRecords > 0 && now - firstUnsyncedNanos >= syncIntervalNanos) {
+                sync();
+            }
+            if (ring.size() == 0) {
+                long wait = unsyncedRecords > 0 ? syncIntervalNanos - (now - firstUnsyncedNanos)
+                        : syncIntervalNanos;
+                if (out == null) {
+                    wait = Math.min(wait, nextRetryNanos - now);
+                }
+                writerParked = true;
+                if (ring.size() == 0 && running) {
+                    LockSupport.parkNanos(this, Math.max(wait, 1));
+                }
+                writerParked = false;
+            }
+        }
+
+        drain();
+        sync();
+        if (out == null) {
+            // a last attempt to keep the votes that could not be written
+            rollSegment();
+        }
+        closeSegment();
+    }
+
+    private void drain() {
+        Event event;
+        while ((event = ring.poll()) != null) {
+            apply(event);
+            if (out == null) {
+                continue;
+            }
+            try {
+                writeRecord(out, event);
+            } catch (final IOException e) {
+                LOGGER.error("error writing to vote journal segment {}: {}", segment, e.getMessage());
+                abandonSegment();
+                continue;
+            }
+            if (unsyncedRecords++ == 0) {
+                firstUnsyncedNanos = System.nanoTime();
+            }
+            if (unsyncedRecords >= syncBatchSize) {
+                sync();
+            }
+            if (++segmentRecords >= snapshotRecords) {
+                sync();
+                rollSegment();
+            }
+        }
+    }
+
+    private void writeRecord(final DataOutputStream target, final Event event) throws IOException {
+        recordBuffer.reset();
+        event.writeTo(record);
+        record.flush();
+        ChecksummedRecords.write(target, recordBuffer.toByteArray(), crc);
+    }
+
+    /**
+     * Write a snapshot of the open votes, start a new segment and remove the older snapshots and segments. The current
+     * segment stays in use if the snapshot cannot be written. The journal is marked as failed if there is no segment
+     * to write to afterwards.
+     */
+    private void rollSegment() {
+        startSegment();
+        if (out == null) {
+            if (!failed) {
+                LOGGER.error("vote journal failed, votes are not journaled until a new segment can be started");
+            }
+            failed = true;
+            nextRetryNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryMillis);
+        } else if (failed) {
+            LOGGER.info("vote journal recovered with segment {}", segment);
+            failed = false;
+        }
+    }
+
+    private void startSegment() {
+        final long next = segment + 1;
+        segmentRecords = 0;
+        final Path temporary = dirPath.resolve(SNAPSHOT_PREFIX + next + TEMPORARY_SUFFIX);
+        try {
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 DataOutputStream snapshot = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE))) {
+                writeRecord(snapshot, new Event(SEQUENCE, lastSequence, null, null, null, null, null));
+                for (final SessionState state : states.values()) {
+                    writeSnapshot(snapshot, state);
+                }
+                writeRecord(snapshot, new Event(SNAPSHOT_END, 0, null, null, null, null, null));
+                snapshot.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temporary, snapshotPath(next), StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            LOGGER.error("error writing vote journal snapshot: {}", e.getMessage());
+            return;
+        }
+
+        closeSegment();
+        try {
+            segmentFile = new FileOutputStream(dirPath.resolve(SEGMENT_PREFIX + next + SEGMENT_SUFFIX).toFile(), true);
+            out = new DataOutputStream(new BufferedOutputStream(segmentFile, BUFFER_SIZE));
+        } catch (final IOException e) {
+            LOGGER.error("error starting vote journal segment {}: {}", next, e.getMessage());
+        }
+        segment = next;
+        deleteBefore(next);
+    }
+
+    private void writeSnapshot(final DataOutputStream snapshot, final SessionState state) throws IOException {
+        writeRecord(snapshot, Event.call(
+                state.sequence, state.topic, state.channel, state.start, state.warnTime, state.endTime));
+        final Map<VoteType, List<String>> votersByType = new EnumMap<>(VoteType.class);
+        for (final Map.Entry<String, VoteType> vote : state.votes.entrySet()) {
+            votersByType.computeIfAbsent(vote.getValue(), type -> new ArrayList<>()).add(vote.getKey());
+        }
+        for (final Map.Entry<VoteType, List<String>> group : votersByType.entrySet()) {
+            writeRecord(snapshot, Event.vote(state.sequence, group.getValue(), group.getKey()));
+        }
+        if (state.stopTime != 0) {
+            writeRecord(snapshot, Event.stop(state.sequence, state.stopTime));
+        }
+    }
+
+    private void deleteBefore(final long number) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dirPath)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                final long snapshot = fileNumber(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                final long journal = fileNumber(name, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+                final long temporary = fileNumber(name, SNAPSHOT_PREFIX, TEMPORARY_SUFFIX);
+                if (snapshot >= 0 && snapshot < number || journal >= 0 && journal < number
+                        || temporary >= 0 && temporary < number) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.error("error removing old vote journal files: {}", e.getMessage());
+        }
+    }
+
+    private void sync() {
+        if (unsyncedRecords == 0 || out == null) {
+            unsyncedRecords = 0;
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            out.flush();
+            segmentFile.getChannel().force(false);
+        } catch (final IOException e) {
+            LOGGER.error("error syncing vote journal segment {}: {}", segment, e.getMessage());
+            abandonSegment();
+        }
+        syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Stop writing to a segment that failed. Its records may be torn, so the writer starts a new segment with a
+     * snapshot right away instead of appending to it.
+     */
+    private void abandonSegment() {
+        closeSegment();
+        unsyncedRecords = 0;
+        nextRetryNanos = System.nanoTime();
+    }
+
+    private void closeSegment() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (final IOException e) {
+            LOGGER.error("error closing vote journal segment: {}", e.getMessage());
+        }
+        out = null;
+        segmentFile = null;
+    }
+
+    /**
+     * Write and sync all queued events, close the journal and stop the writer thread.
+     */
+    @PreDestroy
+    @Override
+    public synchronized void close() {
+        if (writer == null || !running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            LOGGER.warn("vote journal writer did not finish within {} ms", SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator health of the vote journal.
+ * <p>
+ * The journal is DOWN while its writer has no segment to write to, so that votes would be lost on a restart.
+ *
+ * @author Jan Dittberner
+ */
+@Component("journal")
+public class VoteJournalHealthIndicator implements HealthIndicator {
+    private final VoteJournal voteJournal;
+
+    /**
+     * @param voteJournal monitored vote journal
+     */
+    @Autowired
+    public VoteJournalHealthIndicator(final VoteJournal voteJournal) {
+        this.voteJournal = voteJournal;
+    }
+
+    @Override
+    public Health health() {
+        final boolean failed = voteJournal.isFailed();
+        return (failed ? Health.down() : Health.up()).withDetail("failed", failed).build();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+/**
+ * Outcome of evaluating a message in the vote channel.
+ *
+ * @author Jan Dittberner
+ */
+public final class VoteReceipt {
+    private final String sessionId;
+    private final String actor;
+    private final String voter;
+    private final VoteType type;
+    private final boolean repeated;
+    private final String message;
+
+    /**
+     * @param sessionId id of the vote the vote has been counted for, null if nothing has been counted
+     * @param actor     nick name of the sender of the message
+     * @param voter     voter the vote has been counted for, voters separated by "," for bulk proxy votes, null if
+     *                  nothing has been counted
+     * @param type      counted vote, null if nothing has been counted
+     * @param repeated  whether the counted vote equals the voter's previous vote
+     * @param message   answer to the actor
+     */
+    VoteReceipt(
+            final String sessionId, final String actor, final String voter, final VoteType type,
+            final boolean repeated, final String message) {
+        this.sessionId = sessionId;
+        this.actor = actor;
+        this.voter = voter;
+        this.type = type;
+        this.repeated = repeated;
+        this.message = message;
+    }
+
+    /**
+     * @return id of the vote the vote has been counted for, null if nothing has been counted
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return nick name of the sender of the message
+     */
+    public String getActor() {
+        return actor;
+    }
+
+    /**
+     * @return voter the vote has been counted for, voters separated by "," for bulk proxy votes, null if nothing has
+     *         been counted
+     */
+    public String getVoter() {
+        return voter;
+    }
+
+    /**
+     * @return counted vote, null if nothing has been counted
+     */
+    public VoteType getType() {
+        return type;
+    }
+
+    /**
+     * @return true if a vote has been counted
+     */
+    public boolean isCounted() {
+        return type != null;
+    }
+
+    /**
+     * @return true if a vote has been counted for someone else than the actor
+     */
+    public boolean isProxy() {
+        return type != null && !voter.equals(actor);
+    }
+
+    /**
+     * @return true if the counted vote equals the voter's previous vote, so the tally did not change
+     */
+    public boolean isRepeated() {
+        return repeated;
+    }
+
+    /**
+     * @return answer to the actor
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.time.Instant;
+
+/**
+ * Tally of a vote, either the final result of a closed vote or a snapshot of a running vote. Instances are
+ * immutable, text is only built when a caller asks for it.
+ *
+ * @author Jan Dittberner
+ */
+public final class VoteResult {
+    private final String topic;
+    private final Instant start;
+    private final Instant end;
+    private final long[] counts;
+    private final long voterCount;
+
+    /**
+     * @param topic  topic of the vote
+     * @param start  time the vote has been called
+     * @param end    end of the voting period
+     * @param counts number of votes per {@link VoteType}, indexed by ordinal
+     */
+    VoteResult(final String topic, final Instant start, final Instant end, final long[] counts) {
+        this.topic = topic;
+        this.start = start;
+        this.end = end;
+        this.counts = counts.clone();
+        long voters = 0;
+        for (final long count : this.counts) {
+            voters += count;
+        }
+        this.voterCount = voters;
+    }
+
+    /**
+     * @return topic of the vote
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * @return time the vote has been called
+     */
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * @return end of the voting period, the scheduled end for a running vote
+     */
+    public Instant getEnd() {
+        return end;
+    }
+
+    /**
+     * @param type vote type
+     * @return number of voters whose vote is of the given type
+     */
+    public long getCount(final VoteType type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * @return number of voters
+     */
+    public long getVoterCount() {
+        return voterCount;
+    }
+
+    /**
+     * @param type vote type
+     * @return result line for the given type like "AYE: 3"
+     */
+    public String formatCount(final VoteType type) {
+        return type + ": " + counts[type.ordinal()];
+    }
+
+    /**
+     * @return result lines for all vote types in the order of {@link VoteType#values()}
+     */
+    public String[] formatCounts() {
+        final VoteType[] types = VoteType.values();
+        final String[] lines = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            lines[i] = formatCount(types[i]);
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", formatCounts());
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.cacert.votebot.shared.CAcertVoteMechanics.State;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A single vote from {@link CAcertVoteMechanics#openVote(String, String, long, long)} to
+ * {@link CAcertVoteMechanics#closeVote(String)} with its own timers, tally and state.
+ * <p>
+ * The phase of the session and the number of votes that are being recorded share one atomic word, so that votes are
+ * recorded without locks and closing the session can wait for the votes that entered before it has been sealed.
+ *
+ * @author Jan Dittberner
+ */
+public final class VoteSession {
+    static final int RUNNING = 1;
+    static final int STOPPING = 2;
+    static final int CLOSED = 3;
+    private static final int PHASE_SHIFT = 32;
+    private static final long WRITERS_MASK = (1L << PHASE_SHIFT) - 1;
+
+    private final String id;
+    private final long sequence;
+    private final String topic;
+    private final String channel;
+    private final Instant start;
+    private final Instant warnTime;
+    private final Instant endTime;
+    private final AtomicReference<Instant> stopTime = new AtomicReference<>();
+    private final Map<String, VoteType> votes = new ConcurrentHashMap<>();
+    private final LongAdder[] counts = new LongAdder[VoteType.values().length];
+    /**
+     * Phase in the upper half and the number of votes that are being recorded in the lower half.
+     */
+    private final AtomicLong gate = new AtomicLong((long) RUNNING << PHASE_SHIFT);
+
+    /**
+     * @param sequence number of the session, used as its id
+     * @param topic    topic of the vote
+     * @param channel  channel name of a channel reserved for this vote or null for the shared vote channel
+     * @param warn     seconds before the end of the vote to issue a warning
+     * @param timeout  seconds from the current time to the end of the vote
+     */
+    VoteSession(final long sequence, final String topic, final String channel, final long warn, final long timeout) {
+        this(sequence, topic, channel, Instant.now(), warn, timeout);
+    }
+
+    private VoteSession(
+            final long sequence, final String topic, final String channel, final Instant start, final long warn,
+            final long timeout) {
+        this(sequence, topic, channel, start, start.plusSeconds(warn), start.plusSeconds(timeout));
+    }
+
+    private VoteSession(
+            final long sequence, final String topic, final String channel, final Instant start,
+            final Instant warnTime, final Instant endTime) {
+        this.id = Long.toString(sequence);
+        this.sequence = sequence;
+        this.topic = topic;
+        this.channel = channel;
+        this.start = start;
+        this.warnTime = warnTime;
+        this.endTime = endTime;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Restore a vote from the journal with its original times, votes and state.
+     *
+     * @param state state of the vote as written to the journal
+     * @return the restored session
+     */
+    static VoteSession restore(final VoteJournal.SessionState state) {
+        final VoteSession session = new VoteSession(state.getSequence(), state.getTopic(), state.getChannel(),
+                Instant.ofEpochMilli(state.getStart()), Instant.ofEpochMilli(state.getWarnTime()),
+                Instant.ofEpochMilli(state.getEndTime()));
+        for (final Map.Entry<String, VoteType> vote : state.getVotes().entrySet()) {
+            session.record(vote.getKey(), vote.getValue());
+        }
+        if (state.getStopTime() != 0) {
+            session.stopTime.set(Instant.ofEpochMilli(state.getStopTime()));
+            session.transition(RUNNING, STOPPING);
+        }
+        return session;
+    }
+
+    /**
+     * @return short id that voters use as prefix for votes in the shared vote channel
+     */
+    public String getId() {
+        return id;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return topic of the vote
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * @return channel name of the channel reserved for this vote or null for the shared vote channel
+     */
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return time the vote has been called
+     */
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * @return time of the warning after the start of the vote
+     */
+    public Instant getWarnTime() {
+        return warnTime;
+    }
+
+    /**
+     * @return scheduled end of the vote
+     */
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * @return state of the vote, {@link State#IDLE} once it has been closed
+     */
+    public State getState() {
+        switch (phase()) {
+            case RUNNING:
+                return State.RUNNING;
+            case STOPPING:
+                return State.STOPPING;
+            default:
+                return State.IDLE;
+        }
+    }
+
+    /**
+     * Take a snapshot of the tally. Votes that are recorded concurrently may or may not be included.
+     *
+     * @return tally of the vote with the scheduled end
+     */
+    public VoteResult getCurrentResult() {
+        return result(endTime);
+    }
+
+    /**
+     * @param voter nick name of a voter
+     * @return the vote of the voter or null if the voter has not voted
+     */
+    public VoteType getVote(final String voter) {
+        return votes.get(voter);
+    }
+
+    /**
+     * @return the votes by voter, a view that follows votes recorded later
+     */
+    public Map<String, VoteType> getVotes() {
+        return Collections.unmodifiableMap(votes);
+    }
+
+    int phase() {
+        return (int) (gate.get() >>> PHASE_SHIFT);
+    }
+
+    /**
+     * Enter the session for recording a vote.
+     *
+     * @param whileStopping whether votes may enter a stopping session
+     * @return the phase the vote entered or 0 if it has not been admitted
+     */
+    int enter(final boolean whileStopping) {
+        while (true) {
+            final long current = gate.get();
+            final int phase = (int) (current >>> PHASE_SHIFT);
+            if (phase == CLOSED || phase == STOPPING && !whileStopping) {
+                return 0;
+            }
+            if (gate.compareAndSet(current, current + 1)) {
+                return phase;
+            }
+        }
+    }
+
+    void exit() {
+        gate.decrementAndGet();
+    }
+
+    /**
+     * Stop the vote. The stop time is set before the phase changes, so votes that enter the stopping session see it.
+     *
+     * @return false if the vote was not running
+     */
+    boolean stop() {
+        stopTime.compareAndSet(null, Instant.now());
+        return transition(RUNNING, STOPPING);
+    }
+
+    /**
+     * Seal a stopped vote and wait for the votes that entered before.
+     *
+     * @return false if the vote was not stopping
+     */
+    boolean close() {
+        if (!transition(STOPPING, CLOSED)) {
+            return false;
+        }
+        while ((gate.get() & WRITERS_MASK) != 0) {
+            Thread.onSpinWait();
+        }
+        return true;
+    }
+
+    private boolean transition(final int from, final int to) {
+        while (true) {
+            final long current = gate.get();
+            if ((int) (current >>> PHASE_SHIFT) != from) {
+                return false;
+            }
+            if (gate.compareAndSet(current, (long) to << PHASE_SHIFT | current & WRITERS_MASK)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Replace the vote of a voter and adjust the counters.
+     *
+     * @return the previous vote of the voter or null
+     */
+    VoteType record(final String voter, final VoteType type) {
+        final VoteType previous = votes.put(voter, type);
+        if (previous != type) {
+            counts[type.ordinal()].increment();
+            if (previous != null) {
+                counts[previous.ordinal()].decrement();
+            }
+        }
+        return previous;
+    }
+
+    boolean isBeforeDeadline(final Instant receivedAt, final int phase) {
+        return receivedAt.isBefore(phase == STOPPING ? deadline() : endTime);
+    }
+
+    /**
+     * @return the end of the vote or the time it has been stopped if that is earlier
+     */
+    Instant deadline() {
+        final Instant stopped = stopTime.get();
+        return stopped != null && stopped.isBefore(endTime) ? stopped : endTime;
+    }
+
+    long getVoterCount() {
+        long voters = 0;
+        for (final LongAdder count : counts) {
+            voters += count.sum();
+        }
+        return voters;
+    }
+
+    VoteResult result(final Instant end) {
+        final long[] values = new long[counts.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = counts[i].sum();
+        }
+        return new VoteResult(topic, start, end, values);
+    }
+}
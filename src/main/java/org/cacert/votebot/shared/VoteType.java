@@ -20,10 +20,6 @@
  */
 package org.cacert.votebot.shared;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * Type for vote values.
  *
@@ -34,40 +30,39 @@ public enum VoteType {
     /**
      * Vote counts as yes.
      */
-    AYE("aye", "yes", "oui", "ja"),
+    AYE,
     /**
      * Vote counts as no.
      */
-    NAYE("naye", "nay", "no", "non", "nein"),
+    NAYE,
     /**
      * Vote counts as abstain.
      */
-    ABSTAIN("abstain", "enthaltung", "abs");
-
-    private final Set<String> variants;
-
-    /**
-     * @param variants words that are counted as this vote type
-     */
-    VoteType(final String... variants) {
-        this.variants = new HashSet<>(Arrays.asList(variants));
-    }
+    ABSTAIN;
 
     /**
-     * Evaluate a given word to a VoteType value.
+     * Evaluate a given word to a VoteType value using the default {@link VoteVocabulary}.
      *
      * @param vote word
      * @return VoteType value
      * @throws IllegalArgumentException if the word can not be evaluated
      */
     public static VoteType evaluate(final String vote) {
-        final String normalized = vote.trim().toLowerCase();
-        for (final VoteType value : values()) {
-            if (value.variants.contains(normalized)) {
-                return value;
-            }
+        final VoteType type = lookup(vote);
+        if (type == null) {
+            throw new IllegalArgumentException(
+                    String.format("%s is no valid vote", vote));
         }
-        throw new IllegalArgumentException(
-                String.format("%s is no valid vote", vote));
+        return type;
+    }
+
+    /**
+     * Look up a given word in the default {@link VoteVocabulary}.
+     *
+     * @param vote word
+     * @return VoteType value or null if the word is no vote
+     */
+    public static VoteType lookup(final CharSequence vote) {
+        return VoteVocabulary.getDefault().lookup(vote);
     }
 }
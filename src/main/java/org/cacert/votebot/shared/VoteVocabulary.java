@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Words that are counted as votes. The words are kept in a trie over case-folded characters, so that a region of a
+ * message is classified in place without copying, trimming or lowercasing it first. A miss returns null instead of
+ * throwing an exception.
+ * <p>
+ * Vocabularies are read from the resource bundle "votes" with a comma separated list of words per {@link VoteType}
+ * name. The base bundle is the default vocabulary, bundles for a language like "votes_de" allow meetings in that
+ * language.
+ *
+ * @author Jan Dittberner
+ */
+public final class VoteVocabulary {
+    private static final String BUNDLE_NAME = "votes";
+    private static final VoteVocabulary DEFAULT = forLocale(Locale.ROOT);
+
+    private final Node root = new Node();
+    private final Map<VoteType, List<String>> words = new EnumMap<>(VoteType.class);
+
+    /**
+     * A trie node, children are sorted by their case-folded character.
+     */
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private VoteType type;
+
+        private Node child(final char label) {
+            final int index = Arrays.binarySearch(labels, label);
+            return index < 0 ? null : children[index];
+        }
+
+        private Node addChild(final char label) {
+            final int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            final int insert = -index - 1;
+            final char[] newLabels = new char[labels.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newLabels[insert] = label;
+            newChildren[insert] = new Node();
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insert];
+        }
+    }
+
+    /**
+     * @param words words per vote type, case does not matter
+     * @throws IllegalArgumentException if a word is used for more than one vote type
+     */
+    public VoteVocabulary(final Map<VoteType, ? extends Collection<String>> words) {
+        for (final Map.Entry<VoteType, ? extends Collection<String>> entry : words.entrySet()) {
+            final List<String> typeWords = new ArrayList<>();
+            for (final String word : entry.getValue()) {
+                final String trimmed = word.trim();
+                if (!trimmed.isEmpty()) {
+                    add(trimmed, entry.getKey());
+                    typeWords.add(trimmed);
+                }
+            }
+            this.words.put(entry.getKey(), Collections.unmodifiableList(typeWords));
+        }
+    }
+
+    private void add(final String word, final VoteType type) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.addChild(fold(word.charAt(i)));
+        }
+        if (node.type != null && node.type != type) {
+            throw new IllegalArgumentException(
+                    String.format("%s is used for %s and %s", word, node.type, type));
+        }
+        node.type = type;
+    }
+
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * @return the vocabulary of the base "votes" bundle
+     */
+    public static VoteVocabulary getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Read the vocabulary for a language from the "votes" bundle. Languages without a bundle of their own get the
+     * default vocabulary.
+     *
+     * @param locale language of the meeting
+     * @return vocabulary for the language
+     */
+    public static VoteVocabulary forLocale(final Locale locale) {
+        final ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_NAME, locale,
+                ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES));
+        final Map<VoteType, List<String>> words = new EnumMap<>(VoteType.class);
+        for (final VoteType type : VoteType.values()) {
+            words.put(type, Arrays.asList(bundle.getString(type.name()).split(",")));
+        }
+        return new VoteVocabulary(words);
+    }
+
+    /**
+     * @param languageTag IETF language tag like "de"
+     * @return vocabulary for the language
+     */
+    public static VoteVocabulary forLanguage(final String languageTag) {
+        return forLocale(Locale.forLanguageTag(languageTag));
+    }
+
+    /**
+     * @param type vote type
+     * @return words that are counted as the given vote type
+     */
+    public List<String> getWords(final VoteType type) {
+        return words.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * Classify a text ignoring leading and trailing whitespace and case.
+     *
+     * @param text text of a vote
+     * @return vote type or null if the text is no vote
+     */
+    public VoteType lookup(final CharSequence text) {
+        return lookup(text, 0, text.length());
+    }
+
+    /**
+     * Classify a region of a text ignoring leading and trailing whitespace and case.
+     *
+     * @param text  text containing a vote
+     * @param start index of the first character of the region
+     * @param end   index after the last character of the region
+     * @return vote type or null if the region is no vote
+     */
+    public VoteType lookup(final CharSequence text, final int start, final int end) {
+        int from = start;
+        int to = end;
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        Node node = root;
+        for (int i = from; i < to && node != null; i++) {
+            node = node.child(fold(text.charAt(i)));
+        }
+        return node == null ? null : node.type;
+    }
+
+    @Override
+    public String toString() {
+        return words.toString();
+    }
+}
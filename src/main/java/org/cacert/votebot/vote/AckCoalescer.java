@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.vote;
+
+import org.cacert.votebot.shared.IRCClient;
+import org.cacert.votebot.shared.VoteReceipt;
+import org.cacert.votebot.shared.VoteType;
+import org.cacert.votebot.shared.exceptions.IRCClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects vote acknowledgements for a short window and sends them coalesced, either as digest lines in the vote
+ * channel or as multi-target NOTICEs grouped by vote type. A voter who changes the vote within the window is only
+ * acknowledged with the last vote of each running vote.
+ *
+ * @author Jan Dittberner
+ */
+class AckCoalescer implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AckCoalescer.class);
+
+    private final IRCClient ircClient;
+    private final AckMode mode;
+    private final String voteChannel;
+    private final long windowMillis;
+    private final int maxTargets;
+    private final ResourceBundle messages;
+    private final ScheduledExecutorService scheduler;
+    private Map<String, VoteReceipt> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    /**
+     * @param ircClient    client used for sending the acknowledgements
+     * @param mode         {@link AckMode#DIGEST} or {@link AckMode#MULTI_NOTICE}
+     * @param voteChannel  vote channel name
+     * @param windowMillis milliseconds acknowledgements are collected before they are sent
+     * @param maxTargets   maximum number of targets of a NOTICE
+     * @param messages     message texts
+     */
+    AckCoalescer(
+            final IRCClient ircClient, final AckMode mode, final String voteChannel, final long windowMillis,
+            final int maxTargets, final ResourceBundle messages) {
+        if (mode != AckMode.DIGEST && mode != AckMode.MULTI_NOTICE) {
+            throw new IllegalArgumentException(String.format("acknowledgements cannot be coalesced in mode %s", mode));
+        }
+        this.ircClient = ircClient;
+        this.mode = mode;
+        this.voteChannel = voteChannel;
+        this.windowMillis = windowMillis;
+        this.maxTargets = maxTargets;
+        this.messages = messages;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "vote-ack-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Add the acknowledgement of a counted vote. The window starts with the first acknowledgement after a flush.
+     *
+     * @param receipt receipt of a counted vote
+     */
+    synchronized void add(final VoteReceipt receipt) {
+        // a newer vote for the same voter in the same vote replaces the pending one and is acknowledged at its position
+        final String key = receipt.getSessionId() + " " + receipt.getVoter();
+        pending.remove(key);
+        pending.put(key, receipt);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Send all pending acknowledgements now.
+     */
+    void flush() {
+        final Map<String, VoteReceipt> receipts;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            receipts = pending;
+            pending = new LinkedHashMap<>();
+        }
+        try {
+            if (mode == AckMode.DIGEST) {
+                sendDigest(receipts);
+            } else {
+                sendMultiTargetNotices(receipts);
+            }
+        } catch (final IRCClientException e) {
+            LOGGER.error("could not send {} acknowledgements: {}", receipts.size(), e.getMessage());
+        }
+    }
+
+    private void sendDigest(final Map<String, VoteReceipt> receipts) throws IRCClientException {
+        final List<String> entries = new ArrayList<>(receipts.size());
+        for (final VoteReceipt receipt : receipts.values()) {
+            if (receipt.isProxy()) {
+                entries.add(MessageFormat.format(messages.getString("ack_digest_proxy"),
+                        receipt.getVoter(), receipt.getType(), receipt.getActor()));
+            } else {
+                entries.add(MessageFormat.format(messages.getString("ack_digest_vote"),
+                        receipt.getVoter(), receipt.getType()));
+            }
+        }
+        ircClient.sendAckDigest(messages.getString("ack_digest") + " ", entries, voteChannel);
+    }
+
+    private void sendMultiTargetNotices(final Map<String, VoteReceipt> receipts) throws IRCClientException {
+        final Map<VoteType, List<String>> votersByType = new EnumMap<>(VoteType.class);
+        for (final VoteReceipt receipt : receipts.values()) {
+            votersByType.computeIfAbsent(receipt.getType(), type -> new ArrayList<>()).add(receipt.getVoter());
+        }
+        for (final Map.Entry<VoteType, List<String>> group : votersByType.entrySet()) {
+            ircClient.sendMultiTargetAck(
+                    MessageFormat.format(messages.getString("ack_multi_notice"), group.getKey()),
+                    group.getValue(), maxTargets);
+        }
+    }
+
+    /**
+     * Send pending acknowledgements and stop the scheduler thread.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        flush();
+    }
+}
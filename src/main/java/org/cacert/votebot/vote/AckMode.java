@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.vote;
+
+/**
+ * Ways of acknowledging votes.
+ *
+ * @author Jan Dittberner
+ */
+public enum AckMode {
+    /**
+     * Acknowledge each vote in the vote channel.
+     */
+    CHANNEL,
+    /**
+     * Acknowledge each vote with a NOTICE to the voter, sent through the auxiliary sender pool if it is configured.
+     */
+    NOTICE,
+    /**
+     * Collect the votes counted within the acknowledgement window and acknowledge them with digest lines in the vote
+     * channel.
+     */
+    DIGEST,
+    /**
+     * Collect the votes counted within the acknowledgement window and acknowledge them with one NOTICE per vote type
+     * that addresses several voters. Proxy votes are acknowledged with a NOTICE to the proxy right away.
+     */
+    MULTI_NOTICE
+}
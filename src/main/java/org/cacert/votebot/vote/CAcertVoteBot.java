@@ -21,9 +21,19 @@
 package org.cacert.votebot.vote;
 
 import org.apache.commons.cli.ParseException;
+import org.cacert.votebot.shared.ArchivedVote;
 import org.cacert.votebot.shared.CAcertVoteMechanics;
+import org.cacert.votebot.shared.Electorate;
 import org.cacert.votebot.shared.IRCBot;
 import org.cacert.votebot.shared.IRCClient;
+import org.cacert.votebot.shared.IRCMessage;
+import org.cacert.votebot.shared.VoteArchive;
+import org.cacert.votebot.shared.VoteCommand;
+import org.cacert.votebot.shared.VoteReceipt;
+import org.cacert.votebot.shared.VoteResult;
+import org.cacert.votebot.shared.VoteSession;
+import org.cacert.votebot.shared.VoteType;
+import org.cacert.votebot.shared.VoteVocabulary;
 import org.cacert.votebot.shared.exceptions.IRCClientException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,12 +44,23 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.time.Duration;
-import java.util.Calendar;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -50,8 +71,10 @@ import java.util.ResourceBundle;
  */
 @SpringBootApplication(scanBasePackageClasses = {IRCClient.class, CAcertVoteBot.class})
 @Component
-public class CAcertVoteBot extends IRCBot implements Runnable, CommandLineRunner {
+public class CAcertVoteBot extends IRCBot implements CommandLineRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(CAcertVoteBot.class);
+    private static final String ARCHIVE_VOTER = "voter:";
+    private static final String ARCHIVE_DATE = "date:";
     private final ResourceBundle messages = ResourceBundle.getBundle("messages");
 
     /**
@@ -78,14 +101,88 @@ public class CAcertVoteBot extends IRCBot implements Runnable, CommandLineRunner
     @Value("${voteBot.timeoutSecs:120}")
     private long timeout;
 
+    /**
+     * Seconds before the end of a vote to issue warnings, a single warning at voteBot.warnSecs after the start if
+     * empty.
+     */
+    @Value("${voteBot.warnBeforeEndSecs:}")
+    private long[] warnBeforeEnd = new long[0];
+
+    /**
+     * Milliseconds between the end and the close of a vote, votes that the server received before the end are
+     * counted if they arrive within this time.
+     */
+    @Value("${voteBot.closeGraceMillis:1000}")
+    private long closeGraceMillis = 1000;
+
+    private VoteDeadlines deadlines;
+
+    /**
+     * Maximum number of archived votes listed in the reply to an ARCHIVE command.
+     */
+    @Value("${voteBot.archiveMaxResults:5}")
+    private int archiveMaxResults = 5;
+
+    /**
+     * How votes are acknowledged.
+     */
+    @Value("${voteBot.ackMode:CHANNEL}")
+    private AckMode ackMode = AckMode.CHANNEL;
+
+    /**
+     * Milliseconds acknowledgements are collected in the DIGEST and MULTI_NOTICE modes.
+     */
+    @Value("${voteBot.ackWindowMillis:2000}")
+    private long ackWindowMillis = 2000;
+
+    /**
+     * Maximum number of targets of a NOTICE in the MULTI_NOTICE mode, see the TARGMAX of the IRC server.
+     */
+    @Value("${voteBot.ackMaxTargets:4}")
+    private int ackMaxTargets = 4;
+
+    /**
+     * Channels that are reserved for one vote each while it is running. Votes that are started while all of them are
+     * in use run in the vote channel, where voters name the vote with a prefix like "2: aye".
+     */
+    @Value("${voteBot.sessionChannels:}")
+    private String[] sessionChannels = new String[0];
+
+    /**
+     * Languages of the words that are counted as votes by channel like "vote:de,motion1:fr", see the "votes" bundle.
+     * Channels without a language use the default vocabulary.
+     */
+    @Value("${voteBot.vocabularies:}")
+    private String[] vocabularies = new String[0];
+
+    /**
+     * File with the nicks that are eligible to vote, one per line. Any nick may vote if empty.
+     */
+    @Value("${voteBot.electorateFile:}")
+    private String electorateFile = "";
+
+    private long electorateModified = -1;
+
+    /**
+     * Coalescers for acknowledgements by channel name, guarded by the bot.
+     */
+    private final Map<String, AckCoalescer> ackCoalescers = new HashMap<>();
+
     private final CAcertVoteMechanics voteMechanics;
 
     private final IRCClient ircClient;
 
-    @Autowired
+    private final VoteArchive voteArchive;
+
     public CAcertVoteBot(CAcertVoteMechanics voteMechanics, IRCClient ircClient) {
+        this(voteMechanics, ircClient, VoteArchive.inMemory());
+    }
+
+    @Autowired
+    public CAcertVoteBot(CAcertVoteMechanics voteMechanics, IRCClient ircClient, VoteArchive voteArchive) {
         this.voteMechanics = voteMechanics;
         this.ircClient = ircClient;
+        this.voteArchive = voteArchive;
     }
 
     /**
@@ -95,31 +192,246 @@ public class CAcertVoteBot extends IRCBot implements Runnable, CommandLineRunner
      */
     @Override
     public final void run(final String... args) {
+        final long started = System.nanoTime();
         try {
             getIrcClient().initializeFromArgs(args).assignBot(this);
-
-            Thread.sleep(Duration.ofSeconds(3).toMillis());
-            getIrcClient().join(meetingChannel);
-            Thread.sleep(Duration.ofSeconds(1).toMillis());
-            getIrcClient().join(voteChannel);
-
-            new Thread(this).start();
+            useVocabularies();
+            loadElectorate();
+            // votes are counted as soon as the channels have been joined, their deadlines are announced there
+            voteMechanics.recoverVotes();
+            final List<VoteSession> recovered = voteMechanics.getSessions();
+
+            final List<String> channels = new ArrayList<>(Arrays.asList(meetingChannel, voteChannel));
+            channels.addAll(Arrays.asList(sessionChannels));
+            getIrcClient().joinAll(channels.toArray(new String[0])).whenComplete((ignored, failure) -> {
+                if (failure == null) {
+                    resumeVotes(recovered);
+                    LOGGER.info("ready in {} after {} ms", channels,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                } else {
+                    LOGGER.error("not ready: {}", failure.getMessage());
+                }
+            });
         } catch (IOException | InterruptedException | ParseException | IRCClientException e) {
             LOGGER.error(MessageFormat.format(messages.getString("error_running_votebot"), e.getMessage()));
         }
     }
 
+    /**
+     * Schedule the remaining deadlines of the votes that were open when the bot stopped. This is done once the
+     * channels have been joined, so that the results of votes that ended while the bot was down can be announced.
+     *
+     * @param recovered votes restored from the journal
+     */
+    private void resumeVotes(final List<VoteSession> recovered) {
+        for (final VoteSession session : recovered) {
+            if (session.getState() == CAcertVoteMechanics.State.STOPPING) {
+                getDeadlines().stopped(session);
+                LOGGER.info("resumed stopped vote {} on \"{}\"", session.getId(), session.getTopic());
+                continue;
+            }
+            Duration left = Duration.between(Instant.now(), session.getEndTime());
+            if (left.isNegative()) {
+                left = Duration.ZERO;
+            }
+            getDeadlines().schedule(session, left, getWarnings());
+            LOGGER.info("resumed vote {} on \"{}\" with {} s left", session.getId(), session.getTopic(),
+                    left.getSeconds());
+        }
+    }
+
+    /**
+     * Load the electorate roster if the roster file has changed since it has been loaded last. If the roster cannot
+     * be read the last roster stays in use, nobody is eligible if no roster has been read yet.
+     */
+    private void loadElectorate() {
+        if (electorateFile.isEmpty()) {
+            return;
+        }
+        final Path path = Paths.get(electorateFile);
+        try {
+            final long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified != electorateModified) {
+                final Electorate electorate = Electorate.load(path);
+                voteMechanics.setElectorate(electorate);
+                electorateModified = modified;
+                LOGGER.info("loaded {} eligible voters from {}", electorate.size(), path);
+            }
+        } catch (IOException e) {
+            LOGGER.error("could not load the electorate roster {}: {}", path, e.getMessage());
+            if (electorateModified < 0) {
+                voteMechanics.setElectorate(new Electorate(Collections.emptyList()));
+                electorateModified = 0;
+            }
+        }
+    }
+
+    private void useVocabularies() {
+        for (final String entry : vocabularies) {
+            final int separator = entry.indexOf(':');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                LOGGER.warn("ignoring vocabulary {}, expected <channel>:<language>", entry);
+                continue;
+            }
+            final String channel = entry.substring(0, separator).trim();
+            final VoteVocabulary vocabulary = VoteVocabulary.forLanguage(entry.substring(separator + 1).trim());
+            voteMechanics.setVocabulary(channel.equalsIgnoreCase(voteChannel) ? null : channel, vocabulary);
+            LOGGER.info("votes in #{} are {}", channel, vocabulary);
+        }
+    }
+
     @Override
     protected final IRCClient getIrcClient() {
         return ircClient;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Votes of different voters are counted concurrently, the votes of a voter, including proxy votes for the voter,
+     * are counted in the order they were received. Bulk proxy votes are counted in the order of the messages of the
+     * proxy holder, see {@link CAcertVoteMechanics#voterOf(String, VoteCommand)}. The vote is parsed once here and
+     * attached to the message for counting it.
+     */
+    @Override
+    public String publicMessageOrder(final IRCMessage message) {
+        final String channel = message.getParam(0);
+        final String channelName = channel.substring(1);
+        final String sessionChannel = sessionChannel(channelName);
+        if (!channelName.equalsIgnoreCase(voteChannel) && sessionChannel == null) {
+            return channel;
+        }
+        final VoteCommand command = voteMechanics.parseVote(sessionChannel, message.getParam(1));
+        message.attach(command);
+        // servers may echo the channel name in another case than it has been joined with
+        return channel.toLowerCase(Locale.ENGLISH) + " " + CAcertVoteMechanics.voterOf(message.getNick(), command);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Votes that have been parsed by {@link #publicMessageOrder(IRCMessage)} are counted without parsing them again.
+     */
     @Override
-    public final synchronized void publicMessage(final String from, final String channel, final String message) throws
+    public final void publicMessage(final IRCMessage message) throws IRCClientException {
+        if (!(message.attachment() instanceof VoteCommand)) {
+            super.publicMessage(message);
+            return;
+        }
+        final String channel = sessionChannel(message.getParam(0).substring(1));
+        final VoteCommand command = (VoteCommand) message.attachment();
+        if (channel != null) {
+            acknowledgeVote(channel,
+                    voteMechanics.castVote(channel, message.getNick(), command, message.getServerTime()));
+        } else {
+            acknowledgeVote(voteChannel,
+                    voteMechanics.castVote(null, message.getNick(), command, message.getServerTime()));
+        }
+    }
+
+    /**
+     * @param channel channel name in any case
+     * @return name of the session channel as configured or null if the channel is not a session channel
+     */
+    private String sessionChannel(final String channel) {
+        for (final String sessionChannel : sessionChannels) {
+            if (sessionChannel.equalsIgnoreCase(channel)) {
+                return sessionChannel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param session vote session
+     * @return channel where the votes for the session are cast
+     */
+    private String votingChannel(final VoteSession session) {
+        return session.getChannel() != null ? session.getChannel() : voteChannel;
+    }
+
+    @Override
+    public final void publicMessage(final String from, final String channel, final String message) throws
             IRCClientException {
-        if (channel.equals(voteChannel)) {
-            sendPublicMessage(voteChannel, voteMechanics.evaluateVote(from, message));
+        publicMessage(from, channel, message, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Votes are judged by the time the server received them, so a vote sent in time is counted even when the bot
+     * lags behind.
+     */
+    @Override
+    public final void publicMessage(final String from, final String channel, final String message,
+                                    final Instant serverTime) throws IRCClientException {
+        final String sessionChannel = sessionChannel(channel);
+        if (channel.equalsIgnoreCase(voteChannel)) {
+            acknowledgeVote(voteChannel, voteMechanics.castVote(from, message, serverTime));
+        } else if (sessionChannel != null) {
+            acknowledgeVote(sessionChannel, voteMechanics.castVote(sessionChannel, from, message, serverTime));
+        }
+    }
+
+    private void acknowledgeVote(final String channel, final VoteReceipt receipt) throws IRCClientException {
+        if (receipt.isRepeated()) {
+            // the same vote has been acknowledged before
+            return;
+        }
+        acknowledge(channel, receipt);
+    }
+
+    private void acknowledge(final String channel, final VoteReceipt receipt) throws IRCClientException {
+        switch (ackMode) {
+            case NOTICE:
+                sendPrivateAck(receipt.getActor(), receipt.getMessage());
+                break;
+            case DIGEST:
+                if (receipt.isCounted()) {
+                    getAckCoalescer(channel).add(receipt);
+                } else {
+                    sendPublicAck(channel, receipt.getActor(), receipt.getMessage());
+                }
+                break;
+            case MULTI_NOTICE:
+                if (receipt.isCounted() && !receipt.isProxy()) {
+                    getAckCoalescer(channel).add(receipt);
+                } else {
+                    sendPrivateAck(receipt.getActor(), receipt.getMessage());
+                }
+                break;
+            default:
+                sendPublicAck(channel, receipt.getActor(), receipt.getMessage());
+        }
+    }
+
+    private synchronized AckCoalescer getAckCoalescer(final String channel) {
+        return ackCoalescers.computeIfAbsent(channel, key -> new AckCoalescer(
+                getIrcClient(), ackMode, key, ackWindowMillis, ackMaxTargets, messages));
+    }
+
+    /**
+     * Send the acknowledgements collected so far, so that they are queued before the results.
+     */
+    private synchronized void flushAcks() {
+        for (final AckCoalescer coalescer : ackCoalescers.values()) {
+            coalescer.flush();
+        }
+    }
+
+    /**
+     * Send the acknowledgements collected so far and stop the threads of the acknowledgements and vote deadlines.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (deadlines != null) {
+            deadlines.close();
+            deadlines = null;
+        }
+        for (final AckCoalescer coalescer : ackCoalescers.values()) {
+            coalescer.close();
         }
+        ackCoalescers.clear();
     }
 
     @Override
@@ -136,7 +448,10 @@ public class CAcertVoteBot extends IRCBot implements Runnable, CommandLineRunner
                         giveHelp(from);
                         break;
                     case CANCEL:
-                        cancelVote(from);
+                        cancelVote(from, parts.length > 1 ? parts[1].trim() : null);
+                        break;
+                    case ARCHIVE:
+                        queryArchive(from, parts.length > 1 ? parts[1] : "");
                         break;
                 }
             } catch (IllegalArgumentException e) {
@@ -149,17 +464,79 @@ public class CAcertVoteBot extends IRCBot implements Runnable, CommandLineRunner
      * Cancel a running vote before the end of the voting period.
      *
      * @param from initiator of the cancel command
+     * @param id   id of the vote, may be omitted if only one vote is running
      */
-    private void cancelVote(String from) throws IRCClientException {
+    private void cancelVote(final String from, final String id) throws IRCClientException {
         LOGGER.debug(String.format("received cancel vote command from %s", from));
+        final VoteSession session;
+        if (id != null) {
+            session = voteMechanics.getSession(id);
+        } else {
+            final List<VoteSession> sessions = voteMechanics.getSessions();
+            if (sessions.size() > 1) {
+                sendPrivateMessage(from, messages.getString("vote_session_ambiguous_private"));
+                return;
+            }
+            session = sessions.isEmpty() ? null : sessions.get(0);
+        }
+        if (session == null) {
+            sendPrivateMessage(from, messages.getString("no_vote_running_private"));
+            return;
+        }
         try {
-            announce(voteMechanics.stopVote(from));
+            final String stopped = voteMechanics.stopVote(session.getId(), from);
+            getDeadlines().stopped(session);
+            announce(votingChannel(session), stopped);
             sendPrivateMessage(from, messages.getString("vote_canceled"));
         } catch (IllegalStateException e) {
             sendPrivateMessage(from, e.getMessage());
         }
     }
 
+    /**
+     * Reply with the archived votes that match a query like "voter:alice date:2026-03 budget".
+     *
+     * @param from  sender of the query
+     * @param query terms of the query, keywords of the topic and optional voter and date terms
+     */
+    private void queryArchive(final String from, final String query) throws IRCClientException {
+        String voter = null;
+        String date = null;
+        final StringBuilder keywords = new StringBuilder();
+        for (final String term : query.trim().split("\\s+")) {
+            if (term.regionMatches(true, 0, ARCHIVE_VOTER, 0, ARCHIVE_VOTER.length())) {
+                voter = term.substring(ARCHIVE_VOTER.length());
+            } else if (term.regionMatches(true, 0, ARCHIVE_DATE, 0, ARCHIVE_DATE.length())) {
+                date = term.substring(ARCHIVE_DATE.length());
+            } else {
+                keywords.append(term).append(' ');
+            }
+        }
+        final List<ArchivedVote> votes;
+        try {
+            votes = voteArchive.find(keywords.toString(), date, voter);
+        } catch (IllegalArgumentException e) {
+            sendPrivateMessage(from, MessageFormat.format(messages.getString("archive_invalid_date"), date));
+            return;
+        }
+        if (votes.isEmpty()) {
+            sendPrivateMessage(from, messages.getString("archive_none"));
+            return;
+        }
+        for (final ArchivedVote vote : votes.subList(0, Math.min(votes.size(), archiveMaxResults))) {
+            final String line = MessageFormat.format(
+                    messages.getString("archive_vote"), vote.getId(), vote.getResult().getTopic(),
+                    vote.getDay().toString(), vote.getResult().toString());
+            final VoteType ballot = voter != null ? vote.getVote(voter) : null;
+            sendPrivateMessage(from, ballot == null ? line : MessageFormat.format(
+                    messages.getString("archive_ballot"), line, voter, ballot));
+        }
+        if (votes.size() > archiveMaxResults) {
+            sendPrivateMessage(from, MessageFormat.format(
+                    messages.getString("archive_more"), String.valueOf(votes.size() - archiveMaxResults)));
+        }
+    }
+
     private void sendUnknownCommand(String from, String command) throws IRCClientException {
         sendPrivateMessage(from, MessageFormat.format(messages.getString("unknown_command"), command));
     }
@@ -169,64 +546,103 @@ public class CAcertVoteBot extends IRCBot implements Runnable, CommandLineRunner
     }
 
     private void startVote(final String from, final String message) throws IRCClientException {
-        final String response = voteMechanics.callVote(message, warn, timeout);
-        sendPrivateMessage(from, response);
+        loadElectorate();
+        final VoteSession session = openVote(message);
+        sendPrivateMessage(from, messages.getString("vote_started"));
 
-        if (response.startsWith("Sorry,")) {
-            return;
-        }
-
-        announce(MessageFormat.format(messages.getString("new_vote"), from, voteMechanics.getTopic()));
+        final String channel = votingChannel(session);
+        getIrcClient().logVoteStart(channel, session.getTopic());
+        announce(channel, MessageFormat.format(messages.getString("new_vote"), from, session.getTopic()));
         sendPublicMessage(
                 meetingChannel,
-                MessageFormat.format(messages.getString("cast_vote_in_vote_channel"), voteChannel));
+                MessageFormat.format(messages.getString("cast_vote_in_vote_channel"), channel));
         sendPublicMessage(
-                voteChannel, MessageFormat.format(messages.getString("cast_vote_in_next_seconds"), timeout));
+                channel, MessageFormat.format(messages.getString("cast_vote_in_next_seconds"), timeout));
+        if (session.getChannel() == null) {
+            sendPublicMessage(channel,
+                    MessageFormat.format(messages.getString("cast_vote_with_session_prefix"), session.getId()));
+        }
+        getDeadlines().schedule(session, Duration.ofSeconds(timeout), getWarnings());
+    }
+
+    private List<Duration> getWarnings() {
+        final List<Duration> warnings = new ArrayList<>();
+        if (warnBeforeEnd.length == 0) {
+            warnings.add(Duration.ofSeconds(timeout - warn));
+        } else {
+            for (final long seconds : warnBeforeEnd) {
+                warnings.add(Duration.ofSeconds(seconds));
+            }
+        }
+        return warnings;
     }
 
-    private synchronized void announce(final String msg) throws IRCClientException {
+    private synchronized VoteDeadlines getDeadlines() {
+        if (deadlines == null) {
+            deadlines = new VoteDeadlines(new DeadlineHandler(), Duration.ofMillis(closeGraceMillis));
+        }
+        return deadlines;
+    }
+
+    /**
+     * Open a vote in the first free session channel or in the vote channel if there is none.
+     */
+    private VoteSession openVote(final String topic) {
+        for (final String channel : sessionChannels) {
+            try {
+                return voteMechanics.openVote(topic, channel, warn, timeout);
+            } catch (final IllegalStateException e) {
+                LOGGER.debug("#{} is in use by another vote", channel);
+            }
+        }
+        return voteMechanics.openVote(topic, null, warn, timeout);
+    }
+
+    private synchronized void announce(final String channel, final String msg) throws IRCClientException {
         sendPublicMessage(meetingChannel, msg);
-        sendPublicMessage(voteChannel, msg);
+        sendPublicMessage(channel, msg);
     }
 
-    @Override
-    public final void run() {
-        try {
-            //noinspection InfiniteLoopStatement
-            while (true) {
-                Thread.sleep(Duration.ofSeconds(1).toMillis());
-                String topic = voteMechanics.getTopic();
+    /**
+     * Announces the deadlines of votes and closes them.
+     */
+    private final class DeadlineHandler implements VoteDeadlines.Listener {
+        @Override
+        public void warn(final VoteSession session, final Duration timeLeft) throws IRCClientException {
+            announce(votingChannel(session), MessageFormat.format(
+                    messages.getString("voting_will_end_in_n_seconds"),
+                    session.getTopic(), timeLeft.getSeconds()));
+        }
 
-                switch (voteMechanics.getState()) {
-                    case IDLE:
-                        break;
-                    case RUNNING:
-                        Calendar now = Calendar.getInstance();
-                        if (now.after(voteMechanics.getEndTime())) {
-                            announce(voteMechanics.stopVote("timeout"));
-                        } else if (now.after(voteMechanics.getWarnTime()) && !voteMechanics.isWarned()) {
-                            announce(MessageFormat.format(
-                                    messages.getString("voting_will_end_in_n_seconds"),
-                                    topic, timeout - warn));
-                            voteMechanics.setWarned();
-                        }
-                        break;
-                    case STOPPING:
-                        announce(MessageFormat.format(
-                                messages.getString("voting_has_closed"), topic));
-                        final String[] res = voteMechanics.closeVote();
-                        announce(MessageFormat.format(messages.getString("results_for_vote"), topic));
-
-                        for (final String re : res) {
-                            announce(re);
-                        }
-                        break;
-                    default:
-                        throw new IllegalStateException(messages.getString("illegal_vote_mechanics_state"));
-                }
+        @Override
+        public boolean stop(final VoteSession session) {
+            final String stopped;
+            try {
+                stopped = voteMechanics.stopVote(session.getId(), "timeout");
+            } catch (final IllegalStateException e) {
+                // canceled in the meantime
+                return false;
+            }
+            try {
+                announce(votingChannel(session), stopped);
+            } catch (final IRCClientException e) {
+                LOGGER.error("could not announce the end of vote {}: {}", session.getId(), e.getMessage());
             }
-        } catch (final InterruptedException | IRCClientException e) {
-            LOGGER.error(e.getMessage(), e);
+            return true;
+        }
+
+        @Override
+        public void close(final VoteSession session) throws IRCClientException {
+            final String channel = votingChannel(session);
+            final VoteResult result = voteMechanics.closeVote(session.getId());
+            voteArchive.store(session, result);
+            flushAcks();
+            announce(channel, MessageFormat.format(
+                    messages.getString("voting_has_closed"), result.getTopic()));
+            // announce header and results as one message to let the client pack them into one line
+            announce(channel, MessageFormat.format(messages.getString("results_for_vote"), result.getTopic())
+                    + "\n" + String.join("\n", result.formatCounts()));
+            getIrcClient().logVoteEnd(channel);
         }
     }
 
@@ -29,5 +29,6 @@ package org.cacert.votebot.vote;
 public enum VoteBotCommand {
     VOTE,
     HELP,
-    CANCEL
+    CANCEL,
+    ARCHIVE
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.vote;
+
+import org.cacert.votebot.shared.VoteSession;
+import org.cacert.votebot.shared.exceptions.IRCClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires the warnings, the stop and the close of votes at their deadlines. Deadlines are scheduled as delays from the
+ * time a vote is scheduled, so they are measured with the monotonic clock of the scheduler and do not depend on
+ * changes of the wall clock. The deadlines of a vote can be cancelled or moved, for example when the vote is stopped
+ * early.
+ *
+ * @author Jan Dittberner
+ */
+class VoteDeadlines implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VoteDeadlines.class);
+
+    /**
+     * Handles the deadlines of a vote.
+     */
+    interface Listener {
+        /**
+         * A warning deadline has been reached.
+         *
+         * @param session  vote session
+         * @param timeLeft time left until the end of the vote
+         * @throws IRCClientException for IRC client problems
+         */
+        void warn(VoteSession session, Duration timeLeft) throws IRCClientException;
+
+        /**
+         * The end of the vote has been reached. The close deadline is scheduled if the vote has been stopped.
+         *
+         * @param session vote session
+         * @return false if the vote had been stopped before and has its close deadline scheduled already
+         */
+        boolean stop(VoteSession session);
+
+        /**
+         * The vote has been stopped and votes that were in flight had time to arrive.
+         *
+         * @param session vote session
+         * @throws IRCClientException for IRC client problems
+         */
+        void close(VoteSession session) throws IRCClientException;
+    }
+
+    private final Listener listener;
+    private final long closeGraceNanos;
+    private final ScheduledExecutorService scheduler;
+    /**
+     * Pending deadlines by session id, guarded by this.
+     */
+    private final Map<String, List<ScheduledFuture<?>>> pending = new HashMap<>();
+
+    /**
+     * @param listener   handler of the deadlines
+     * @param closeGrace time between stopping and closing a vote, votes received by the server before the stop may
+     *                   arrive in this time
+     */
+    VoteDeadlines(final Listener listener, final Duration closeGrace) {
+        this.listener = listener;
+        this.closeGraceNanos = closeGrace.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "vote-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedule the deadlines of a vote that has just been started.
+     *
+     * @param session  vote session
+     * @param timeout  time from now to the end of the vote
+     * @param warnings times before the end of the vote to issue warnings, warnings that would be before the start of
+     *                 the vote are skipped
+     */
+    synchronized void schedule(final VoteSession session, final Duration timeout, final List<Duration> warnings) {
+        final long timeoutNanos = timeout.toNanos();
+        final List<ScheduledFuture<?>> futures = new ArrayList<>(warnings.size() + 1);
+        for (final Duration warning : warnings) {
+            final long delay = timeoutNanos - warning.toNanos();
+            if (delay >= 0 && !warning.isNegative() && !warning.isZero()) {
+                futures.add(scheduler.schedule(
+                        () -> fire(session, "warning", () -> listener.warn(session, warning)),
+                        delay, TimeUnit.NANOSECONDS));
+            }
+        }
+        futures.add(scheduler.schedule(() -> fire(session, "end", () -> {
+            if (listener.stop(session)) {
+                stopped(session);
+            }
+        }), timeoutNanos, TimeUnit.NANOSECONDS));
+        cancelFutures(pending.put(session.getId(), futures));
+    }
+
+    /**
+     * Replace the pending deadlines of a vote that has been stopped with its close deadline.
+     *
+     * @param session vote session
+     */
+    synchronized void stopped(final VoteSession session) {
+        final List<ScheduledFuture<?>> futures = new ArrayList<>(1);
+        futures.add(scheduler.schedule(() -> fire(session, "close", () -> {
+            synchronized (this) {
+                pending.remove(session.getId());
+            }
+            listener.close(session);
+        }), closeGraceNanos, TimeUnit.NANOSECONDS));
+        cancelFutures(pending.put(session.getId(), futures));
+    }
+
+    /**
+     * Cancel all pending deadlines of a vote.
+     *
+     * @param id session id
+     */
+    synchronized void cancel(final String id) {
+        cancelFutures(pending.remove(id));
+    }
+
+    /**
+     * @param id session id
+     * @return number of pending deadlines of the vote
+     */
+    synchronized int getPendingCount(final String id) {
+        final List<ScheduledFuture<?>> futures = pending.get(id);
+        if (futures == null) {
+            return 0;
+        }
+        int count = 0;
+        for (final ScheduledFuture<?> future : futures) {
+            if (!future.isDone()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void cancelFutures(final List<ScheduledFuture<?>> futures) {
+        if (futures != null) {
+            for (final ScheduledFuture<?> future : futures) {
+                // a running deadline finishes, it may be the one that reschedules
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Deadline handler that may fail with an IRC client problem.
+     */
+    @FunctionalInterface
+    private interface Deadline {
+        void fire() throws IRCClientException;
+    }
+
+    private void fire(final VoteSession session, final String name, final Deadline deadline) {
+        try {
+            deadline.fire();
+        } catch (final IRCClientException | RuntimeException e) {
+            LOGGER.error("{} of vote {} failed: {}", name, session.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cancel all pending deadlines and stop the scheduler thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            for (final List<ScheduledFuture<?>> futures : pending.values()) {
+                cancelFutures(futures);
+            }
+            pending.clear();
+        }
+        scheduler.shutdownNow();
+    }
+}
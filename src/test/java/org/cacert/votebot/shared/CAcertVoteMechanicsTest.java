@@ -19,19 +19,34 @@
 
 package org.cacert.votebot.shared;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.cacert.votebot.shared.CAcertVoteMechanics.State;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
 import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.cacert.votebot.shared.CAcertVoteMechanics.State.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 /**
  * @author Jan Dittberner
@@ -73,18 +88,149 @@ public class CAcertVoteMechanicsTest {
     }
 
     @Test
-    public void testRefuseParallelCallVote() {
+    public void testParallelCallVote() {
         subject.callVote("first", 30, TEST_TIMEOUT);
         String response = subject.callVote("second", TEST_WARN, TEST_TIMEOUT);
-        assertEquals(messages.getString("vote_running"), response);
-        assertEquals("first", subject.getTopic());
+        assertEquals(messages.getString("vote_started"), response);
+        assertEquals("second", subject.getTopic());
         assertEquals(RUNNING, subject.getState());
+        assertEquals(2, subject.getSessions().size());
+        assertEquals("first", subject.getSessions().get(0).getTopic());
+    }
+
+    @Test
+    public void testRefuseParallelVoteInSessionChannel() {
+        subject.openVote("first", "motion", TEST_WARN, TEST_TIMEOUT);
+        try {
+            subject.openVote("second", "Motion", TEST_WARN, TEST_TIMEOUT);
+            fail("Expected IllegalStateException has not been thrown.");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), equalTo(messages.getString("vote_running")));
+        }
+        assertEquals(1, subject.getSessions().size());
+    }
+
+    @Test
+    public void testRefusedVoteIsNotJournaled() {
+        final VoteJournal journal = Mockito.mock(VoteJournal.class);
+        subject = new CAcertVoteMechanics(new SimpleMeterRegistry(), journal);
+        final VoteSession first = subject.openVote("first", "motion", TEST_WARN, TEST_TIMEOUT);
+        assertThrows(IllegalStateException.class,
+                () -> subject.openVote("second", "motion", TEST_WARN, TEST_TIMEOUT));
+        verify(journal).called(first);
+        verifyNoMoreInteractions(journal);
+
+        // the channel stays free if the vote cannot be journaled
+        Mockito.doThrow(new IllegalStateException("journal")).when(journal).called(any());
+        assertThrows(IllegalStateException.class, () -> subject.openVote("third", "other", TEST_WARN, TEST_TIMEOUT));
+        Mockito.doNothing().when(journal).called(any());
+        subject.openVote("fourth", "other", TEST_WARN, TEST_TIMEOUT);
+    }
+
+    @Test
+    public void testVotesAreRoutedBySessionPrefix() {
+        final VoteSession first = subject.openVote("first", null, TEST_WARN, TEST_TIMEOUT);
+        final VoteSession second = subject.openVote("second", null, TEST_WARN, TEST_TIMEOUT);
+
+        assertEquals(MessageFormat.format(messages.getString("vote_session_ambiguous"), "alice"),
+                subject.evaluateVote("alice", "aye"));
+        final VoteReceipt receipt = subject.castVote("alice", first.getId() + ": aye", null);
+        assertEquals(first.getId(), receipt.getSessionId());
+        subject.evaluateVote("alice", second.getId() + ":naye");
+        subject.evaluateVote("bob", " " + second.getId() + " : proxy carol abstain");
+
+        assertEquals(VoteType.AYE, first.getVote("alice"));
+        assertEquals(VoteType.NAYE, second.getVote("alice"));
+        assertEquals(VoteType.ABSTAIN, second.getVote("carol"));
+        assertEquals(1, first.getCurrentResult().getVoterCount());
+        assertEquals(2, second.getCurrentResult().getVoterCount());
+
+        subject.stopVote(first.getId(), "test");
+        assertEquals("AYE: 1, NAYE: 0, ABSTAIN: 0", subject.closeVote(first.getId()).toString());
+        // the remaining vote takes votes without prefix again
+        subject.evaluateVote("dave", "aye");
+        assertEquals(VoteType.AYE, second.getVote("dave"));
+        assertNull(subject.getSession(first.getId()));
+    }
+
+    @Test
+    public void testVotesAreRoutedBySessionChannel() {
+        final VoteSession shared = subject.openVote("shared", null, TEST_WARN, TEST_TIMEOUT);
+        final VoteSession motion = subject.openVote("motion", "motion", TEST_WARN, TEST_TIMEOUT);
+
+        subject.castVote("motion", "alice", "naye", null);
+        subject.castVote("alice", "aye", null);
+        // a session with its own channel does not take prefixed votes from the vote channel
+        subject.castVote("bob", motion.getId() + ": aye", null);
+
+        assertEquals(VoteType.NAYE, motion.getVote("alice"));
+        assertEquals(VoteType.AYE, shared.getVote("alice"));
+        assertNull(motion.getVote("bob"));
+        assertEquals(MessageFormat.format(messages.getString("no_vote_running"), "bob"),
+                subject.castVote("other", "bob", "aye", null).getMessage());
+
+        subject.stopVote(motion.getId(), "test");
+        subject.closeVote(motion.getId());
+        assertEquals(MessageFormat.format(messages.getString("no_vote_running"), "alice"),
+                subject.castVote("motion", "alice", "aye", null).getMessage());
+        assertEquals(messages.getString("vote_started"), subject.callVote("next", TEST_WARN, TEST_TIMEOUT));
+        subject.openVote("next motion", "motion", TEST_WARN, TEST_TIMEOUT);
+    }
+
+    @Test
+    public void testVotesUseTheVocabularyOfTheirChannel() {
+        subject.setVocabulary("Motion", VoteVocabulary.forLanguage("fr"));
+        final VoteSession shared = subject.openVote("shared", null, TEST_WARN, TEST_TIMEOUT);
+        final VoteSession motion = subject.openVote("motion", "motion", TEST_WARN, TEST_TIMEOUT);
+
+        subject.castVote("motion", "alice", "Contre", null);
+        subject.castVote("alice", "contre", null);
+        subject.castVote("bob", "nein", null);
+
+        assertEquals(VoteType.NAYE, motion.getVote("alice"));
+        assertNull(shared.getVote("alice"));
+        assertEquals(VoteType.NAYE, shared.getVote("bob"));
+        assertEquals(MessageFormat.format(messages.getString("vote_not_understood"), "bob"),
+                subject.castVote("motion", "bob", "nein", null).getMessage());
+    }
+
+    @Test
+    public void testVoterOfIgnoresSessionPrefix() {
+        assertEquals("carol", CAcertVoteMechanics.voterOf("bob", "2: proxy carol aye"));
+        assertEquals("carol", CAcertVoteMechanics.voterOf("bob", "proxy carol aye"));
+        assertEquals("bob", CAcertVoteMechanics.voterOf("bob", "2: aye"));
+        // bulk proxy votes are ordered with the other messages of the proxy holder
+        assertEquals("bob", CAcertVoteMechanics.voterOf("bob", "proxy carol,dave aye"));
+    }
+
+    @Test
+    public void testParsedVotesAreCastWithoutParsingAgain() {
+        final VoteSession shared = subject.openVote("shared", null, TEST_WARN, TEST_TIMEOUT);
+        final VoteSession motion = subject.openVote("motion", "motion", TEST_WARN, TEST_TIMEOUT);
+
+        final VoteCommand prefixed = subject.parseVote(null, shared.getId() + ": proxy carol aye");
+        assertEquals(shared.getId(), prefixed.getSessionId());
+        assertEquals("carol", CAcertVoteMechanics.voterOf("bob", prefixed));
+        // only running sessions of the vote channel are prefixes
+        assertNull(subject.parseVote(null, motion.getId() + ": aye").getSessionId());
+        assertNull(subject.parseVote(null, "42: aye").getSessionId());
+
+        subject.castVote(null, "bob", prefixed, null);
+        subject.castVote("motion", "alice", subject.parseVote("motion", "naye"), null);
+        assertEquals(VoteType.AYE, shared.getVote("carol"));
+        assertEquals(VoteType.NAYE, motion.getVote("alice"));
+
+        // a session that has been closed after parsing does not take the vote
+        subject.stopVote(shared.getId(), "test");
+        subject.closeVote(shared.getId());
+        assertEquals(MessageFormat.format(messages.getString("no_vote_running"), "bob"),
+                subject.castVote(null, "bob", prefixed, null).getMessage());
     }
 
     @Test
     public void testFreshVoteResult() {
         subject.callVote("fresh vote", TEST_WARN, TEST_TIMEOUT);
-        assertEquals("{}", subject.getCurrentResult());
+        assertEquals(0, subject.getCurrentResult().getVoterCount());
     }
 
     @Test
@@ -93,7 +239,7 @@ public class CAcertVoteMechanicsTest {
         String response = subject.evaluateVote("alice", "aye");
         assertEquals(
                 MessageFormat.format(messages.getString("count_vote"), "alice", "AYE"), response);
-        assertEquals("{alice=AYE}", subject.getCurrentResult());
+        assertOnlyVote("alice", VoteType.AYE);
     }
 
     @Test
@@ -103,7 +249,7 @@ public class CAcertVoteMechanicsTest {
         assertEquals(
                 MessageFormat.format(messages.getString("count_proxy_vote"), "alice", "bob", "AYE"),
                 response);
-        assertEquals("{bob=AYE}", subject.getCurrentResult());
+        assertOnlyVote("bob", VoteType.AYE);
     }
 
     @Test
@@ -112,7 +258,7 @@ public class CAcertVoteMechanicsTest {
         String response = subject.evaluateVote("alice", "moo");
         assertEquals(
                 MessageFormat.format(messages.getString("vote_not_understood"), "alice"), response);
-        assertEquals("{}", subject.getCurrentResult());
+        assertEquals(0, subject.getCurrentResult().getVoterCount());
     }
 
     @Test
@@ -121,11 +267,11 @@ public class CAcertVoteMechanicsTest {
         String response = subject.evaluateVote("alice", "aye");
         assertEquals(
                 MessageFormat.format(messages.getString("count_vote"), "alice", "AYE"), response);
-        assertEquals("{alice=AYE}", subject.getCurrentResult());
+        assertOnlyVote("alice", VoteType.AYE);
         response = subject.evaluateVote("alice", "naye");
         assertEquals(
                 MessageFormat.format(messages.getString("count_vote"), "alice", "NAYE"), response);
-        assertEquals("{alice=NAYE}", subject.getCurrentResult());
+        assertOnlyVote("alice", VoteType.NAYE);
     }
 
     @Test
@@ -134,11 +280,11 @@ public class CAcertVoteMechanicsTest {
         String response = subject.evaluateVote("alice", "aye");
         assertEquals(
                 MessageFormat.format(messages.getString("count_vote"), "alice", "AYE"), response);
-        assertEquals("{alice=AYE}", subject.getCurrentResult());
+        assertOnlyVote("alice", VoteType.AYE);
         response = subject.evaluateVote("alice", "moo");
         assertEquals(
                 MessageFormat.format(messages.getString("vote_not_understood"), "alice"), response);
-        assertEquals("{alice=AYE}", subject.getCurrentResult());
+        assertOnlyVote("alice", VoteType.AYE);
     }
 
     @Test
@@ -147,7 +293,7 @@ public class CAcertVoteMechanicsTest {
         String response = subject.evaluateVote("alice", "proxy bob moo");
         assertEquals(
                 MessageFormat.format(messages.getString("vote_not_understood"), "alice"), response);
-        assertEquals("{}", subject.getCurrentResult());
+        assertEquals(0, subject.getCurrentResult().getVoterCount());
     }
 
     @Test
@@ -156,7 +302,89 @@ public class CAcertVoteMechanicsTest {
         String response = subject.evaluateVote("alice", "proxy ");
         assertEquals(
                 MessageFormat.format(messages.getString("invalid_proxy_vote"), "alice"), response);
-        assertEquals("{}", subject.getCurrentResult());
+        assertEquals(0, subject.getCurrentResult().getVoterCount());
+    }
+
+    @Test
+    public void testBulkProxyVote() {
+        subject.callVote("test", TEST_WARN, TEST_TIMEOUT);
+        subject.evaluateVote("carol", "naye");
+        final VoteReceipt receipt = subject.castVote("alice", "Proxy bob, carol ,dave,bob aye", null);
+        assertEquals(MessageFormat.format(messages.getString("count_bulk_proxy_vote"), "alice", "bob, carol, dave",
+                "AYE"), receipt.getMessage());
+        assertEquals("bob,carol,dave", receipt.getVoter());
+        assertTrue(receipt.isProxy());
+        assertFalse(receipt.isRepeated());
+        assertEquals(3, subject.getCurrentResult().getCount(VoteType.AYE));
+        assertEquals(0, subject.getCurrentResult().getCount(VoteType.NAYE));
+
+        assertTrue(subject.castVote("alice", "proxy bob,carol,dave yes", null).isRepeated());
+    }
+
+    @Test
+    public void testInvalidBulkProxyVoteCountsNobody() {
+        subject.callVote("test", TEST_WARN, TEST_TIMEOUT);
+        assertEquals(MessageFormat.format(messages.getString("invalid_proxy_vote"), "alice"),
+                subject.evaluateVote("alice", "proxy bob,,carol aye"));
+        assertEquals(MessageFormat.format(messages.getString("invalid_proxy_vote"), "alice"),
+                subject.evaluateVote("alice", "proxy bob,carol, aye"));
+        assertEquals(MessageFormat.format(messages.getString("vote_not_understood"), "alice"),
+                subject.evaluateVote("alice", "proxy bob,carol maybe"));
+        assertEquals(0, subject.getCurrentResult().getVoterCount());
+    }
+
+    @Test
+    public void testOnlyVotersOnTheRosterAreCounted() {
+        subject.setElectorate(new Electorate(Arrays.asList("Alice", "bob", "carol")));
+        subject.callVote("test", TEST_WARN, TEST_TIMEOUT);
+        assertEquals(MessageFormat.format(messages.getString("voter_not_eligible"), "mallory", "mallory"),
+                subject.evaluateVote("mallory", "aye"));
+        assertEquals(MessageFormat.format(messages.getString("voter_not_eligible"), "alice", "mallory"),
+                subject.evaluateVote("alice", "proxy mallory aye"));
+        assertEquals(MessageFormat.format(messages.getString("voter_not_eligible_bulk"), "alice", "mallory"),
+                subject.evaluateVote("alice", "proxy bob,mallory aye"));
+        assertEquals(0, subject.getCurrentResult().getVoterCount());
+
+        assertEquals(MessageFormat.format(messages.getString("count_vote"), "ALICE", "AYE"),
+                subject.evaluateVote("ALICE", "aye"));
+        // a proxy holder that is not on the roster cannot vote for voters that are
+        assertEquals(MessageFormat.format(messages.getString("voter_not_eligible"), "mallory", "mallory"),
+                subject.evaluateVote("mallory", "proxy bob naye"));
+        assertEquals(1, subject.getCurrentResult().getVoterCount());
+
+        subject.setElectorate(null);
+        subject.evaluateVote("mallory", "abstain");
+        assertEquals(2, subject.getCurrentResult().getVoterCount());
+    }
+
+    @Test
+    public void testServerTimeBeforeDeadlineCountsAfterStop() {
+        subject.callVote("test", TEST_WARN, TEST_TIMEOUT);
+        Instant sent = Instant.now();
+        subject.stopVote("timeout");
+        String response = subject.evaluateVote("alice", "aye", sent);
+        assertEquals(
+                MessageFormat.format(messages.getString("count_vote"), "alice", "AYE"), response);
+        assertOnlyVote("alice", VoteType.AYE);
+    }
+
+    @Test
+    public void testServerTimeAfterDeadlineIsRefused() {
+        subject.callVote("test", TEST_WARN, TEST_TIMEOUT);
+        Instant late = subject.getEndTime().plusSeconds(1);
+        String response = subject.evaluateVote("alice", "aye", late);
+        assertEquals(
+                MessageFormat.format(messages.getString("vote_too_late"), "alice"), response);
+        assertEquals(0, subject.getCurrentResult().getVoterCount());
+    }
+
+    @Test
+    public void testServerTimeAfterCancelIsRefused() {
+        subject.callVote("test", TEST_WARN, TEST_TIMEOUT);
+        subject.stopVote("alice");
+        String response = subject.evaluateVote("bob", "aye", Instant.now().plusSeconds(1));
+        assertEquals(
+                MessageFormat.format(messages.getString("no_vote_running"), "bob"), response);
     }
 
     @Test
@@ -166,8 +394,8 @@ public class CAcertVoteMechanicsTest {
         assertThat(stopResponse, equalTo(
                 MessageFormat.format(
                         messages.getString("finishing_vote"), subject.getTopic(), "timeout")));
-        String[] response = subject.closeVote();
-        assertThat(response, equalTo(new String[]{"AYE: 0", "NAYE: 0", "ABSTAIN: 0"}));
+        VoteResult response = subject.closeVote();
+        assertThat(response.formatCounts(), equalTo(new String[]{"AYE: 0", "NAYE: 0", "ABSTAIN: 0"}));
         assertThat(subject.getTopic(), equalTo(""));
         assertThat(subject.getState(), equalTo(IDLE));
     }
@@ -204,9 +432,159 @@ public class CAcertVoteMechanicsTest {
         subject.evaluateVote("debra", "ja");
         subject.evaluateVote("malory", "evil");
         subject.stopVote("test");
-        String[] response = subject.closeVote();
-        assertArrayEquals(new String[]{"AYE: 3", "NAYE: 2", "ABSTAIN: 0"}, response);
+        VoteResult response = subject.closeVote();
+        assertArrayEquals(new String[]{"AYE: 3", "NAYE: 2", "ABSTAIN: 0"}, response.formatCounts());
+        assertEquals("fresh vote", response.getTopic());
+        assertEquals(5, response.getVoterCount());
+        assertFalse(response.getEnd().isBefore(response.getStart()));
         assertEquals("", subject.getTopic());
         assertEquals(IDLE, subject.getState());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testVoteMetrics() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        subject = new CAcertVoteMechanics(registry);
+        subject.evaluateVote("alice", "aye");
+        subject.callVote("metrics", TEST_WARN, TEST_TIMEOUT);
+        subject.evaluateVote("alice", "aye");
+        subject.evaluateVote("bob", "proxy carol naye");
+        subject.evaluateVote("dave", "maybe");
+        subject.evaluateVote("alice", "yes");
+
+        assertEquals(1, registry.get("votebot.votes").tags("outcome", "accepted", "type", "AYE").counter().count());
+        assertEquals(1, registry.get("votebot.votes").tags("outcome", "proxied", "type", "NAYE").counter().count());
+        assertEquals(2, registry.get("votebot.votes").tags("outcome", "rejected").counter().count());
+        assertEquals(1, registry.get("votebot.votes").tags("outcome", "repeated").counter().count());
+        assertEquals(5, registry.get("votebot.vote.evaluate").timer().count());
+        assertEquals(2, registry.get("votebot.vote.voters").gauge().value());
+        assertEquals(1, registry.get("votebot.vote.state").tags("state", "running").gauge().value());
+        assertEquals(0, registry.get("votebot.vote.state").tags("state", "idle").gauge().value());
+    }
+
+    @Test
+    public void testCastVoteReportsRepeatedVotes() {
+        subject.callVote("repeat", TEST_WARN, TEST_TIMEOUT);
+        final VoteReceipt first = subject.castVote("alice", "aye", null);
+        assertTrue(first.isCounted());
+        assertFalse(first.isRepeated());
+        assertTrue(subject.castVote("alice", "yes", null).isRepeated());
+        assertFalse(subject.castVote("alice", "naye", null).isRepeated());
+
+        final VoteReceipt proxy = subject.castVote("bob", "proxy carol abstain", null);
+        assertTrue(proxy.isProxy());
+        assertEquals("carol", proxy.getVoter());
+        assertEquals(VoteType.ABSTAIN, proxy.getType());
+
+        final VoteReceipt rejected = subject.castVote("dave", "maybe", null);
+        assertFalse(rejected.isCounted());
+        assertNull(rejected.getVoter());
+    }
+
+    @Test
+    public void testConcurrentVotesAreCountedOnce() throws Exception {
+        final int threads = 8;
+        final int votersPerThread = 100;
+        subject.callVote("concurrent", TEST_WARN, TEST_TIMEOUT);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < votersPerThread; i++) {
+                    final String voter = "voter-" + thread + "-" + i;
+                    subject.evaluateVote(voter, "naye");
+                    // every voter ends with AYE, every other voter via a proxy vote of a neighbour
+                    if (i % 2 == 0) {
+                        subject.evaluateVote(voter, "aye");
+                    } else {
+                        subject.evaluateVote("neighbour-" + thread, "proxy " + voter + " aye");
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (final Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * votersPerThread, subject.getVoterCount());
+        subject.stopVote("test");
+        assertArrayEquals(new String[]{"AYE: " + threads * votersPerThread, "NAYE: 0", "ABSTAIN: 0"},
+                subject.closeVote().formatCounts());
+    }
+
+    @Test
+    public void testVotesRacingCloseAreCountedIfAcknowledged() throws Exception {
+        final int threads = 4;
+        subject.callVote("race", TEST_WARN, TEST_TIMEOUT);
+        final Instant receivedAt = Instant.now();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicInteger acknowledged = new AtomicInteger();
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; !closed.get(); i++) {
+                    final VoteReceipt receipt = subject.castVote("voter-" + thread + "-" + i, "aye", receivedAt);
+                    if (receipt.isCounted()) {
+                        acknowledged.incrementAndGet();
+                    } else {
+                        assertEquals(MessageFormat.format(messages.getString("no_vote_running"), receipt.getActor()),
+                                receipt.getMessage());
+                    }
+                }
+                return null;
+            }));
+        }
+        while (subject.getVoterCount() < 1000) {
+            Thread.onSpinWait();
+        }
+        subject.stopVote("test");
+        final VoteResult result = subject.closeVote();
+        // votes are rejected from now on, stop the voters and wait for their last acknowledgements
+        closed.set(true);
+        for (final Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(acknowledged.get(), result.getCount(VoteType.AYE));
+        assertEquals(acknowledged.get(), result.getVoterCount());
+        assertEquals(IDLE, subject.getState());
+    }
+
+    @Test
+    public void testLiveTallyFollowsChangedVotes() {
+        subject.callVote("live", TEST_WARN, TEST_TIMEOUT);
+        subject.evaluateVote("alice", "aye");
+        subject.evaluateVote("bob", "aye");
+        subject.evaluateVote("alice", "naye");
+        subject.evaluateVote("bob", "proxy carol abstain");
+
+        final VoteResult live = subject.getCurrentResult();
+        assertEquals("live", live.getTopic());
+        assertEquals(subject.getEndTime(), live.getEnd());
+        assertEquals(1, live.getCount(VoteType.AYE));
+        assertEquals(1, live.getCount(VoteType.NAYE));
+        assertEquals(1, live.getCount(VoteType.ABSTAIN));
+        assertEquals(3, live.getVoterCount());
+        assertEquals("AYE: 1, NAYE: 1, ABSTAIN: 1", live.toString());
+
+        subject.evaluateVote("alice", "no");
+        // snapshots do not change
+        assertEquals(1, live.getCount(VoteType.NAYE));
+        assertEquals(3, subject.getCurrentResult().getVoterCount());
+    }
+
+    private void assertOnlyVote(final String voter, final VoteType type) {
+        assertEquals(type, subject.getVote(voter));
+        assertEquals(1, subject.getCurrentResult().getCount(type));
+        assertEquals(1, subject.getCurrentResult().getVoterCount());
+    }
+}
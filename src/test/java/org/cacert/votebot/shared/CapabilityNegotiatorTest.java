@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CapabilityNegotiatorTest {
+    private List<String> sent;
+    private CapabilityNegotiator negotiator;
+
+    @BeforeEach
+    public void setup() {
+        sent = new ArrayList<>();
+        negotiator = new CapabilityNegotiator(sent::add);
+        negotiator.begin();
+    }
+
+    private void receive(final String line) {
+        final IRCMessage message = new IRCMessage();
+        final byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        message.parse(data, 0, data.length);
+        negotiator.handle(message);
+    }
+
+    @Test
+    public void testRequestOfferedCapabilities() {
+        receive(":irc.example.org CAP * LS * :multi-prefix sasl=PLAIN,EXTERNAL account-notify");
+        assertEquals(Arrays.asList("CAP LS 302"), sent);
+        receive(":irc.example.org CAP * LS :server-time echo-message batch");
+        assertEquals(Arrays.asList("CAP LS 302", "CAP REQ :server-time batch echo-message multi-prefix"), sent);
+
+        receive(":irc.example.org CAP votebot ACK :server-time batch echo-message multi-prefix");
+        assertEquals("CAP END", sent.get(2));
+        assertTrue(negotiator.isEnabled(CapabilityNegotiator.SERVER_TIME));
+        assertTrue(negotiator.isEnabled(CapabilityNegotiator.ECHO_MESSAGE));
+        assertFalse(negotiator.isEnabled(CapabilityNegotiator.MESSAGE_TAGS));
+
+        receive(":irc.example.org CAP votebot DEL :echo-message");
+        assertFalse(negotiator.isEnabled(CapabilityNegotiator.ECHO_MESSAGE));
+        assertEquals(3, sent.size());
+    }
+
+    @Test
+    public void testNothingWanted() {
+        receive(":irc.example.org CAP * LS :sasl account-notify");
+        assertEquals(Arrays.asList("CAP LS 302", "CAP END"), sent);
+    }
+
+    @Test
+    public void testRejectedRequest() {
+        receive(":irc.example.org CAP * LS :server-time");
+        receive(":irc.example.org CAP votebot NAK :server-time");
+        assertEquals(Arrays.asList("CAP LS 302", "CAP REQ :server-time", "CAP END"), sent);
+        assertFalse(negotiator.isEnabled(CapabilityNegotiator.SERVER_TIME));
+    }
+
+    @Test
+    public void testNewConnectionForgetsCapabilities() {
+        receive(":irc.example.org CAP * LS :server-time");
+        receive(":irc.example.org CAP votebot ACK :server-time");
+        negotiator.begin();
+        assertFalse(negotiator.isEnabled(CapabilityNegotiator.SERVER_TIME));
+    }
+}
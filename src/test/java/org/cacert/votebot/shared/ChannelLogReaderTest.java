@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChannelLogReaderTest {
+    /**
+     * 2026-10-16T12:00:00Z.
+     */
+    private static final long NOON = 1792152000000L;
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    private Path directory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("channel-log-reader-test");
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testRollByDayAndSize() throws IOException {
+        try (SegmentedChannelLog log = new SegmentedChannelLog(directory.resolve("#vote"), 40, true)) {
+            log.append(NOON, "first line of the day");
+            log.append(NOON + 1, "second line of the day");
+            log.append(NOON + 2, "third line of the day");
+            log.append(NOON + DAY, "next day");
+        }
+
+        assertEquals(
+                Arrays.asList("2026-10-16-000", "2026-10-16-001", "2026-10-17-000"),
+                ChannelLogReader.listSegments(directory.resolve("#vote")));
+        assertTrue(Files.exists(directory.resolve("#vote").resolve("2026-10-16-000.log.gz")));
+        assertFalse(Files.exists(directory.resolve("#vote").resolve("2026-10-16-000.log")));
+        assertTrue(Files.exists(directory.resolve("#vote").resolve("2026-10-17-000.log")));
+
+        final StringWriter out = new StringWriter();
+        new ChannelLogReader(directory).export("#vote", out);
+        assertEquals("first line of the day\nsecond line of the day\nthird line of the day\nnext day\n",
+                out.toString());
+    }
+
+    @Test
+    public void testVoteAcrossSegments() throws IOException {
+        try (SegmentedChannelLog log = new SegmentedChannelLog(directory.resolve("#vote"), 60, true)) {
+            log.markVoteStart(NOON, "motion 1");
+            log.append(NOON, ":alice!a@host PRIVMSG #vote :aye");
+            log.markVoteEnd(NOON + 1);
+            log.append(NOON + 2, "chatter");
+            log.markVoteStart(NOON + 3, "motion 2");
+            log.append(NOON + 3, ":bob!b@host PRIVMSG #vote :naye");
+            log.append(NOON + 4, ":carol!c@host PRIVMSG #vote :abstain");
+            log.markVoteEnd(NOON + 5);
+            log.markVoteStart(NOON + 6, "motion 1");
+            log.append(NOON + 6, ":dave!d@host PRIVMSG #vote :yes");
+        }
+
+        final ChannelLogReader reader = new ChannelLogReader(directory);
+        final List<ChannelLogReader.VoteRange> votes = reader.findVotes("#vote");
+        assertEquals(3, votes.size());
+        assertEquals(NOON + 5, votes.get(1).getEndMillis());
+        assertEquals(-1, votes.get(2).getEndMillis());
+        assertTrue(ChannelLogReader.listSegments(directory.resolve("#vote")).size() > 2);
+
+        StringWriter out = new StringWriter();
+        reader.exportVote("#vote", votes.get(1), out);
+        assertEquals(":bob!b@host PRIVMSG #vote :naye\n:carol!c@host PRIVMSG #vote :abstain\n", out.toString());
+
+        out = new StringWriter();
+        reader.exportVote("#vote", reader.findVote("#vote", "motion 1"), out);
+        assertEquals(":dave!d@host PRIVMSG #vote :yes\n", out.toString());
+
+        assertNull(reader.findVote("#vote", "motion 3"));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ChannelLoggerTest {
+    private Path directory;
+    private ChannelLogger logger;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("channel-logger-test");
+        logger = new ChannelLogger();
+        ReflectionTestUtils.setField(logger, "directory", directory.resolve("irc").toString());
+        ReflectionTestUtils.setField(logger, "maxOpenFiles", 2);
+        ReflectionTestUtils.setField(logger, "flushIntervalMillis", 50L);
+        logger.start();
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        logger.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private List<String> read(final String channel) throws IOException {
+        final StringWriter out = new StringWriter();
+        new ChannelLogReader(directory.resolve("irc")).export(channel, out);
+        return out.toString().isEmpty() ? new ArrayList<>() : Arrays.asList(out.toString().split("\n"));
+    }
+
+    @Test
+    public void testLinesAreWrittenOnClose() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            logger.log("#vote", "line " + i);
+            logger.log("#agm", "agm " + i);
+            logger.log("#other", "other " + i);
+        }
+        logger.close();
+
+        assertEquals(Arrays.asList("line 0", "line 1", "line 2"), read("#vote"));
+        assertEquals(Arrays.asList("agm 0", "agm 1", "agm 2"), read("#agm"));
+        assertEquals(Arrays.asList("other 0", "other 1", "other 2"), read("#other"));
+    }
+
+    @Test
+    public void testLinesAreFlushedAfterInterval() throws Exception {
+        logger.log("#vote", "aye");
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40 && lines.isEmpty(); i++) {
+            Thread.sleep(50);
+            lines = read("#vote");
+        }
+        assertEquals(Arrays.asList("aye"), lines);
+    }
+
+    @Test
+    public void testVoteIsIndexed() throws IOException {
+        logger.log("#vote", "before");
+        logger.logVoteStart("#vote", "motion 1");
+        logger.log("#vote", "aye");
+        logger.log("#vote", "naye");
+        logger.logVoteEnd("#vote");
+        logger.log("#vote", "after");
+        logger.close();
+
+        final ChannelLogReader reader = new ChannelLogReader(directory.resolve("irc"));
+        final StringWriter out = new StringWriter();
+        reader.exportVote("#vote", reader.findVote("#vote", "motion 1"), out);
+        assertEquals("aye\nnaye\n", out.toString());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            final String channel = "#channel" + p;
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    logger.log(channel, Integer.toString(i));
+                }
+            });
+            producers[p].start();
+        }
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+        logger.close();
+
+        for (int p = 0; p < producers.length; p++) {
+            final List<String> lines = read("#channel" + p);
+            assertEquals(1000, lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                assertEquals(Integer.toString(i), lines.get(i));
+            }
+        }
+    }
+}
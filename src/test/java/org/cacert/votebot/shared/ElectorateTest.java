@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link Electorate}.
+ *
+ * @author Jan Dittberner
+ */
+public class ElectorateTest {
+    @Test
+    public void testLookupIgnoresCase() {
+        final Electorate electorate = new Electorate(Arrays.asList("Alice", "bob", "ALICE", "J\u00f6rg"));
+        assertEquals(3, electorate.size());
+        assertTrue(electorate.contains("alice"));
+        assertTrue(electorate.contains("BOB"));
+        assertTrue(electorate.contains("J\u00d6RG"));
+        assertFalse(electorate.contains("bo"));
+        assertFalse(electorate.contains("bobby"));
+        assertFalse(electorate.contains(""));
+    }
+
+    @Test
+    public void testEmptyElectorate() {
+        final Electorate electorate = new Electorate(Collections.emptyList());
+        assertEquals(0, electorate.size());
+        assertFalse(electorate.contains("alice"));
+    }
+
+    @Test
+    public void testLargeElectorate() {
+        final List<String> nicks = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            nicks.add("member" + i);
+        }
+        final Electorate electorate = new Electorate(nicks);
+        assertEquals(10000, electorate.size());
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(electorate.contains("Member" + i));
+        }
+        assertFalse(electorate.contains("member10000"));
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        final Path file = Files.createTempFile("electorate", ".txt");
+        try {
+            Files.write(file, Arrays.asList("# members of the association", "alice", "", "  bob  "),
+                    StandardCharsets.UTF_8);
+            final Electorate electorate = Electorate.load(file);
+            assertEquals(2, electorate.size());
+            assertTrue(electorate.contains("bob"));
+            assertFalse(electorate.contains("# members of the association"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cacert.votebot.shared.exceptions.IRCClientException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventDispatcherTest {
+    private SimpleMeterRegistry registry;
+    private EventDispatcher dispatcher;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        dispatcher = new EventDispatcher(2, 100, registry);
+    }
+
+    @AfterEach
+    public void teardown() {
+        dispatcher.close();
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testEventsOfOneKeyAreOrdered() {
+        final List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final int value = i;
+            expected.add(value);
+            dispatcher.dispatch("#vote", () -> delivered.add(value));
+        }
+        dispatcher.close();
+        assertEquals(expected, delivered);
+        assertEquals(0, dispatcher.getPending());
+    }
+
+    @Test
+    public void testBlockedKeyDoesNotHoldUpOtherKeys() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch other = new CountDownLatch(1);
+        dispatcher.dispatch("#vote", () -> await(release));
+        dispatcher.dispatch("#meeting", other::countDown);
+        assertTrue(other.await(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void testStalledHandlerIsCounted() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch("#vote", () -> await(release));
+        Thread.sleep(400);
+        release.countDown();
+        assertEquals(1.0, registry.get("votebot.irc.dispatch.stalls").counter().count());
+    }
+
+    @Test
+    public void testFailingHandlerDoesNotStopDelivery() throws InterruptedException {
+        final CountDownLatch delivered = new CountDownLatch(1);
+        dispatcher.dispatch("#vote", () -> {
+            throw new IRCClientException("broken");
+        });
+        dispatcher.dispatch("#vote", delivered::countDown);
+        assertTrue(delivered.await(1, TimeUnit.SECONDS));
+        assertEquals(1.0, registry.get("votebot.irc.dispatch.failures").counter().count());
+    }
+
+    @Test
+    public void testDispatchAfterCloseIsRejected() {
+        dispatcher.close();
+        assertFalse(dispatcher.dispatch("#vote", () -> {
+        }));
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class IRCClientReconnectTest {
+    private ServerSocket serverSocket;
+    private IRCClient client;
+
+    static class SilentBot extends IRCBot {
+        private final IRCClient client;
+
+        SilentBot(final IRCClient client) {
+            this.client = client;
+        }
+
+        @Override
+        protected IRCClient getIrcClient() {
+            return client;
+        }
+
+        @Override
+        public void publicMessage(final String from, final String channel, final String message) {
+        }
+
+        @Override
+        public void privateMessage(final String from, final String message) {
+        }
+
+        @Override
+        public void part(final String referent, final String channel) {
+        }
+
+        @Override
+        public void join(final String referent, final String channel) {
+        }
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        serverSocket.setSoTimeout(5000);
+        client = new IRCClient();
+        ReflectionTestUtils.setField(client, "floodBurst", 1000);
+        ReflectionTestUtils.setField(client, "reconnectInitialDelayMillis", 50L);
+        ReflectionTestUtils.setField(client, "reconnectMaxDelayMillis", 200L);
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        client.shutdown();
+        serverSocket.close();
+    }
+
+    private static BufferedReader reader(final Socket socket) throws IOException {
+        socket.setSoTimeout(5000);
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void register(final Socket socket, final BufferedReader in) throws IOException {
+        assertEquals("CAP LS 302", in.readLine());
+        assertEquals("NICK testbot", in.readLine());
+        assertEquals("USER testbot 0 * :CAcert Votebot", in.readLine());
+        final PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        out.print(":server 001 testbot :Welcome testbot!bot@example.org\r\n");
+        out.flush();
+    }
+
+    private void reconnectAndRejoin(final String transport) throws Exception {
+        final CompletableFuture<Void> initialized = CompletableFuture.runAsync(() -> {
+            try {
+                client.initializeFromArgs(
+                        "-h", "127.0.0.1", "-p", Integer.toString(serverSocket.getLocalPort()), "-n", "testbot",
+                        "--no-ssl", "--transport", transport);
+            } catch (final Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        try (Socket first = serverSocket.accept()) {
+            final BufferedReader in = reader(first);
+            register(first, in);
+            initialized.get(5, TimeUnit.SECONDS);
+            client.assignBot(new SilentBot(client));
+            client.join("vote");
+            assertEquals("JOIN #vote", in.readLine());
+        }
+
+        try (Socket second = serverSocket.accept()) {
+            final BufferedReader in = reader(second);
+            client.send("sent during the outage", "vote");
+            register(second, in);
+            assertEquals("JOIN #vote", in.readLine());
+            assertEquals("PRIVMSG #vote :sent during the outage", in.readLine());
+        }
+    }
+
+    @Test
+    public void testReconnectBlocking() throws Exception {
+        reconnectAndRejoin("blocking");
+    }
+
+    @Test
+    public void testReconnectNio() throws Exception {
+        reconnectAndRejoin("nio");
+    }
+
+    @Test
+    public void testReconnectRetriesWhenAllNicksAreInUse() throws Exception {
+        final CompletableFuture<Void> initialized = CompletableFuture.runAsync(() -> {
+            try {
+                client.initializeFromArgs(
+                        "-h", "127.0.0.1", "-p", Integer.toString(serverSocket.getLocalPort()), "-n", "testbot",
+                        "--no-ssl");
+            } catch (final Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        try (Socket first = serverSocket.accept()) {
+            final BufferedReader in = reader(first);
+            register(first, in);
+            initialized.get(5, TimeUnit.SECONDS);
+            client.assignBot(new SilentBot(client));
+            client.join("vote");
+            assertEquals("JOIN #vote", in.readLine());
+        }
+
+        try (Socket second = serverSocket.accept()) {
+            final BufferedReader in = reader(second);
+            final PrintWriter out = new PrintWriter(second.getOutputStream(), true);
+            assertEquals("CAP LS 302", in.readLine());
+            assertEquals("NICK testbot", in.readLine());
+            assertEquals("USER testbot 0 * :CAcert Votebot", in.readLine());
+            String nick = "testbot";
+            for (final String next : new String[]{"testbot_", "testbot__", "testbot___"}) {
+                out.print(":server 433 * " + nick + " :Nickname is already in use\r\n");
+                out.flush();
+                assertEquals("NICK " + next, in.readLine());
+                nick = next;
+            }
+            out.print(":server 433 * " + nick + " :Nickname is already in use\r\n");
+            out.flush();
+            // the client gives up this connection instead of waiting unregistered
+            assertNull(in.readLine());
+        }
+
+        try (Socket third = serverSocket.accept()) {
+            final BufferedReader in = reader(third);
+            register(third, in);
+            assertEquals("JOIN #vote", in.readLine());
+        }
+    }
+}
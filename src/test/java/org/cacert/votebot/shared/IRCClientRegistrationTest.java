@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IRCClientRegistrationTest {
+    private ServerSocket serverSocket;
+    private IRCClient client;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        serverSocket.setSoTimeout(5000);
+        client = new IRCClient();
+        ReflectionTestUtils.setField(client, "floodBurst", 1000);
+        ReflectionTestUtils.setField(client, "altNicks", "votebot2");
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        client.shutdown();
+        serverSocket.close();
+    }
+
+    private CompletableFuture<Void> initialize() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                client.initializeFromArgs(
+                        "-h", "127.0.0.1", "-p", Integer.toString(serverSocket.getLocalPort()), "-n", "testbot",
+                        "--no-ssl");
+            } catch (final Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    @Test
+    public void testAlternativeNickAndJoinConfirmation() throws Exception {
+        final CompletableFuture<Void> initialized = initialize();
+        try (Socket socket = serverSocket.accept()) {
+            socket.setSoTimeout(5000);
+            final BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            final PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+            assertEquals("CAP LS 302", in.readLine());
+            assertEquals("NICK testbot", in.readLine());
+            assertEquals("USER testbot 0 * :CAcert Votebot", in.readLine());
+            out.print(":server 433 * testbot :Nickname is already in use\r\n");
+            out.flush();
+            assertEquals("NICK votebot2", in.readLine());
+            out.print(":server 433 * votebot2 :Nickname is already in use\r\n");
+            out.flush();
+            assertEquals("NICK testbot_", in.readLine());
+            assertFalse(initialized.isDone());
+            out.print(":server 001 testbot_ :Welcome testbot_!bot@example.org\r\n");
+            out.flush();
+            initialized.get(5, TimeUnit.SECONDS);
+
+            client.assignBot(new IRCClientReconnectTest.SilentBot(client));
+            final CompletableFuture<Void> joined = client.joinAll("agm", "vote");
+            assertEquals("JOIN #agm,#vote", in.readLine());
+            out.print(":testbot_!bot@example.org JOIN #agm\r\n");
+            out.flush();
+            Thread.sleep(100);
+            assertFalse(joined.isDone());
+            out.print(":server 366 testbot_ #vote :End of /NAMES list.\r\n");
+            out.flush();
+            joined.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testJoinFailure() throws Exception {
+        final CompletableFuture<Void> initialized = initialize();
+        try (Socket socket = serverSocket.accept()) {
+            socket.setSoTimeout(5000);
+            final BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            final PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            out.print(":server 001 testbot :Welcome\r\n");
+            out.flush();
+            initialized.get(5, TimeUnit.SECONDS);
+
+            client.assignBot(new IRCClientReconnectTest.SilentBot(client));
+            final CompletableFuture<Void> joined = client.joinAll("secret");
+            out.print(":server 473 testbot #secret :Cannot join channel (+i)\r\n");
+            out.flush();
+            final ExecutionException e = assertThrows(ExecutionException.class, () -> joined.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause().getMessage().contains("#secret"));
+            assertEquals("CAP LS 302", in.readLine());
+        }
+    }
+}
@@ -23,10 +23,12 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.SocketUtils;
 
 import javax.net.ServerSocketFactory;
@@ -34,15 +36,25 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
@@ -163,6 +175,7 @@ public class IRCClientTest {
         serverThread.setName("mock-server");
         serverThread.start();
         client = new IRCClient();
+        ReflectionTestUtils.setField(client, "floodBurst", 1000);
         String testPort = Integer.toString(server.getServerPort());
         client.initializeFromArgs("-h", "localhost", "-p", testPort, "-n", "testbot", "--no-ssl");
         client.assignBot(Mockito.mock(IRCBot.class));
@@ -187,6 +200,41 @@ public class IRCClientTest {
         verify(mockMe, after(100)).println("PONG me");
     }
 
+    @Test
+    public void testPingBeforeWelcome() throws Exception {
+        final IRCClient registering = new IRCClient();
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout(5000);
+            final CompletableFuture<Void> initialized = CompletableFuture.runAsync(() -> {
+                try {
+                    registering.initializeFromArgs(
+                            "-h", "127.0.0.1", "-p", Integer.toString(serverSocket.getLocalPort()), "-n", "pingbot",
+                            "--no-ssl");
+                } catch (final Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+            try (Socket socket = serverSocket.accept()) {
+                socket.setSoTimeout(5000);
+                final BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                final PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                assertEquals("CAP LS 302", in.readLine());
+                assertEquals("NICK pingbot", in.readLine());
+                assertThat(in.readLine(), startsWith("USER pingbot"));
+                // the server only welcomes clients that answered its cookie
+                out.print("PING :cookie42\r\n");
+                out.flush();
+                assertEquals("PONG :cookie42", in.readLine());
+                out.print(":server 001 pingbot :Welcome pingbot!bot@example.org\r\n");
+                out.flush();
+                initialized.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            registering.shutdown();
+        }
+    }
+
     @Test
     public void testPrivMessageHandler() {
         handler.sendCommand("PRIVMSG #meeting Hello");
@@ -232,12 +280,28 @@ public class IRCClientTest {
         client.leaveAll();
 
         verify(mockMe, after(100)).println("JOIN #meeting");
-        verify(mockMe).println("PRIVMSG #meeting :Test message");
-        verify(mockMe).println("PRIVMSG #meeting :Meeting in 10 minutes");
+        verify(mockMe).println("PRIVMSG #meeting :Test message | Meeting in 10 minutes");
         verify(mockMe).println("PART #meeting");
         verifyNoMoreInteractions(mockMe);
     }
 
+    @Test
+    public void testAckDigestIsPacked() throws Exception {
+        final String longVoter = String.join("", Collections.nCopies(600, "x"));
+        client.join("vote");
+        client.sendAckDigest("Counted: ", Arrays.asList("alice=AYE", longVoter + "=NAYE"), "vote");
+        client.leave("vote");
+
+        final ArgumentCaptor<String> lines = ArgumentCaptor.forClass(String.class);
+        verify(mockMe, after(100).atLeast(5)).println(lines.capture());
+        assertEquals("PRIVMSG #vote :Counted: alice=AYE", lines.getAllValues().get(1));
+        assertEquals("PART #vote", lines.getValue());
+        // the long entry is split instead of being cut off at the line limit
+        for (final String line : lines.getAllValues()) {
+            assertThat(line.length(), lessThanOrEqualTo(510));
+        }
+    }
+
     @Test
     public void testSendPrivateMessage() throws Exception {
         client.sendPrivate("Test message", "otherguy");
@@ -248,8 +312,7 @@ public class IRCClientTest {
     @Test
     public void testSendPrivateMessageMultiline() throws Exception {
         client.sendPrivate("Test message\nMeeting in 10 minutes", "otherguy");
-        verify(mockMe, after(100)).println("PRIVMSG otherguy :Test message");
-        verify(mockMe, after(100)).println("PRIVMSG otherguy :Meeting in 10 minutes");
+        verify(mockMe, after(100)).println("PRIVMSG otherguy :Test message | Meeting in 10 minutes");
         verifyNoMoreInteractions(mockMe);
     }
 
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class IRCHealthIndicatorTest {
+    private IRCClient client;
+    private IRCHealthIndicator indicator;
+
+    @BeforeEach
+    public void setup() {
+        client = Mockito.mock(IRCClient.class);
+        indicator = new IRCHealthIndicator(client);
+    }
+
+    @Test
+    public void testDisconnectedIsDown() {
+        when(client.isConnected()).thenReturn(false);
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+    }
+
+    @Test
+    public void testStatusFollowsLag() {
+        when(client.isConnected()).thenReturn(true);
+        when(client.getLagMillis()).thenReturn(100L);
+        assertEquals(Status.UP, indicator.health().getStatus());
+        when(client.getLagMillis()).thenReturn(6000L);
+        assertEquals(IRCHealthIndicator.DEGRADED, indicator.health().getStatus());
+        when(client.getLagMillis()).thenReturn(40000L);
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IRCMessageTest {
+    private final IRCMessage message = new IRCMessage();
+
+    private boolean parse(final String line) {
+        final byte[] data = ("xx" + line + "\r\n").getBytes(StandardCharsets.UTF_8);
+        return message.parse(data, 2, data.length - 4);
+    }
+
+    @Test
+    public void testPrivmsg() {
+        assertTrue(parse(":alice!~alice@example.org PRIVMSG #vote :proxy bob aye"));
+        assertTrue(message.isCommand("PRIVMSG"));
+        assertEquals(-1, message.getNumeric());
+        assertEquals("alice", message.getNick());
+        assertEquals("~alice", message.getUser());
+        assertEquals("example.org", message.getHost());
+        assertEquals(2, message.getParamCount());
+        assertEquals("#vote", message.getParam(0));
+        assertEquals("proxy bob aye", message.getParam(1));
+        assertEquals("proxy bob aye", message.getTrailing());
+        assertFalse(message.hasTags());
+    }
+
+    @Test
+    public void testJoinForms() {
+        assertTrue(parse(":bob!b@host JOIN :#agm"));
+        assertEquals("#agm", message.getParam(0));
+        assertTrue(parse(":bob!b@host PART #agm"));
+        assertTrue(message.isCommand("PART"));
+        assertEquals("#agm", message.getParam(0));
+        assertNull(message.getTrailing());
+    }
+
+    @Test
+    public void testTagsAndServerSource() {
+        assertTrue(parse("@time=2026-10-16T10:00:00.000Z;batch=x :irc.example.org 001 votebot :Welcome"));
+        assertTrue(message.hasTags());
+        assertEquals("time=2026-10-16T10:00:00.000Z;batch=x", message.getRawTags());
+        assertEquals("irc.example.org", message.getNick());
+        assertNull(message.getUser());
+        assertNull(message.getHost());
+        assertEquals(1, message.getNumeric());
+        assertEquals("Welcome", message.getParam(1));
+    }
+
+    @Test
+    public void testTagLookup() {
+        assertTrue(parse("@time=2026-10-16T10:00:00.250Z;batch=x;+example.org/flag;msg=a\\sb\\:c "
+                + ":alice!a@host PRIVMSG #vote :aye"));
+        assertEquals("x", message.getTag("batch"));
+        assertEquals("", message.getTag("+example.org/flag"));
+        assertEquals("a b;c", message.getTag("msg"));
+        assertNull(message.getTag("bat"));
+        assertEquals(Instant.parse("2026-10-16T10:00:00.250Z"), message.getServerTime());
+
+        assertTrue(parse("@time=yesterday :alice!a@host PRIVMSG #vote :aye"));
+        assertNull(message.getServerTime());
+        assertTrue(parse(":alice!a@host PRIVMSG #vote :aye"));
+        assertNull(message.getTag("time"));
+    }
+
+    @Test
+    public void testSkippableNumerics() {
+        assertTrue(parse(":irc.example.org 372 votebot :- message of the day"));
+        assertTrue(message.isSkippableNumeric());
+        assertTrue(parse(":irc.example.org 353 votebot = #vote :@chair alice bob"));
+        assertTrue(message.isSkippableNumeric());
+        assertTrue(parse(":irc.example.org 366 votebot #vote :End of /NAMES list."));
+        assertFalse(message.isSkippableNumeric());
+    }
+
+    @Test
+    public void testPingWithoutSource() {
+        assertTrue(parse("PING me"));
+        assertFalse(message.hasSource());
+        assertNull(message.getNick());
+        assertTrue(message.isCommand("PING"));
+        assertEquals("me", message.getRawParams());
+        assertTrue(parse("PING :irc.example.org"));
+        assertEquals(":irc.example.org", message.getRawParams());
+        assertEquals("irc.example.org", message.getParam(0));
+    }
+
+    @Test
+    public void testMalformed() {
+        assertFalse(parse(":only.a.source"));
+        assertFalse(parse(""));
+    }
+
+    @Test
+    public void testCopyIsDetached() {
+        final byte[] data = ":alice!a@h PRIVMSG #vote :aye".getBytes(StandardCharsets.UTF_8);
+        assertTrue(message.parse(data, 0, data.length));
+        final IRCMessage copy = message.copy();
+        data[data.length - 1] = 'X';
+        assertEquals("aye", copy.getParam(1));
+        assertEquals("alice", copy.getNick());
+    }
+}
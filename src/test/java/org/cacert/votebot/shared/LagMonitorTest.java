@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LagMonitorTest {
+    private SimpleMeterRegistry registry;
+    private List<String> pings;
+    private List<Long> deadLinks;
+    private LagMonitor monitor;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        pings = new ArrayList<>();
+        deadLinks = new ArrayList<>();
+        // long intervals so that only the explicit ticks of the tests run
+        monitor = new LagMonitor(3600000, 7200000, pings::add, deadLinks::add, registry);
+        monitor.start();
+    }
+
+    @AfterEach
+    public void teardown() {
+        monitor.close();
+    }
+
+    private static String token(final String ping) {
+        return ping.substring("PING :".length());
+    }
+
+    @Test
+    public void testPongRecordsLag() {
+        final long now = System.nanoTime();
+        monitor.tick(now);
+        assertEquals(1, pings.size());
+        monitor.pongReceived(token(pings.get(0)), now + TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(250, monitor.getLagMillis(now + TimeUnit.SECONDS.toNanos(10)));
+        assertEquals(1, registry.get("votebot.irc.lag").timer().count());
+    }
+
+    @Test
+    public void testUnansweredPingIncreasesLag() {
+        final long now = System.nanoTime();
+        monitor.tick(now);
+        assertEquals(4000, monitor.getLagMillis(now + TimeUnit.SECONDS.toNanos(4)));
+    }
+
+    @Test
+    public void testUnknownTokenIsIgnored() {
+        final long now = System.nanoTime();
+        monitor.tick(now);
+        monitor.pongReceived("irc.example.org", now + 1000);
+        assertEquals(0, registry.get("votebot.irc.lag").timer().count());
+    }
+
+    @Test
+    public void testSilenceDeclaresDeadLink() {
+        final long now = System.nanoTime();
+        monitor.tick(now + TimeUnit.HOURS.toNanos(3));
+        assertTrue(pings.isEmpty());
+        assertEquals(1, deadLinks.size());
+        assertFalse(monitor.isActive());
+        assertEquals(1.0, registry.get("votebot.irc.deadlinks").counter().count());
+
+        monitor.tick(now + TimeUnit.HOURS.toNanos(4));
+        assertEquals(1, deadLinks.size());
+    }
+
+    @Test
+    public void testReceivedLinesKeepLinkAlive() {
+        monitor.lineReceived();
+        monitor.tick(System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+        assertTrue(deadLinks.isEmpty());
+        assertTrue(monitor.isActive());
+    }
+
+    @Test
+    public void testInvalidIntervals() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LagMonitor(1000, 1000, pings::add, deadLinks::add, registry));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MessagePackerTest {
+    private static final String HEAD = "PRIVMSG #vote :";
+
+    private static String repeat(final String text, final int count) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static int wireSize(final String source, final String line) {
+        return (":" + source + " " + line + "\r\n").getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Test
+    public void testBudgetWithExactSource() {
+        final MessagePacker packer = new MessagePacker("votebot", true);
+        packer.setSource("votebot!~votebot@example.org");
+        final int budget = packer.getBudget("PRIVMSG", "#vote");
+
+        assertEquals(
+                MessagePacker.MAX_LINE_BYTES, wireSize("votebot!~votebot@example.org", HEAD + repeat("x", budget)));
+    }
+
+    @Test
+    public void testMergeShortLines() {
+        final MessagePacker packer = new MessagePacker("votebot", true);
+
+        assertEquals(
+                Collections.singletonList(HEAD + "Results: for vote on \"test\": | AYE: 1 | NAYE: 0 | ABSTAIN: 2"),
+                packer.pack("PRIVMSG", "#vote", "Results: for vote on \"test\":\nAYE: 1\n\nNAYE: 0\nABSTAIN: 2"));
+    }
+
+    @Test
+    public void testNoMergeKeepsEmptyLines() {
+        final MessagePacker packer = new MessagePacker("votebot", false);
+
+        assertEquals(
+                Arrays.asList(HEAD + "first", HEAD + " ", HEAD + "second"),
+                packer.pack("PRIVMSG", "#vote", "first\n\nsecond"));
+        assertEquals(Collections.singletonList(HEAD + " "), packer.pack("PRIVMSG", "#vote", ""));
+    }
+
+    @Test
+    public void testSplitOnWordBoundary() {
+        final MessagePacker packer = new MessagePacker("votebot", true);
+        final String message = repeat("word ", 200).trim();
+        final List<String> lines = packer.pack("PRIVMSG", "#vote", message);
+
+        assertTrue(lines.size() > 1);
+        final StringBuilder joined = new StringBuilder();
+        for (final String line : lines) {
+            assertTrue(line.startsWith(HEAD));
+            final String text = line.substring(HEAD.length());
+            assertTrue(text.startsWith("word") && text.endsWith("word"), text);
+            assertTrue(MessagePacker.utf8Length(text) <= packer.getBudget("PRIVMSG", "#vote"));
+            if (joined.length() > 0) {
+                joined.append(' ');
+            }
+            joined.append(text);
+        }
+        assertEquals(message, joined.toString());
+    }
+
+    @Test
+    public void testSplitOnCodePointBoundary() {
+        final String message = repeat("\u00e4\ud83d\uddf3", 100);
+        final List<String> chunks = MessagePacker.split(message, 10);
+
+        assertEquals(message, String.join("", chunks));
+        for (final String chunk : chunks) {
+            final byte[] encoded = chunk.getBytes(StandardCharsets.UTF_8);
+            assertTrue(encoded.length <= 10);
+            assertEquals(chunk, new String(encoded, StandardCharsets.UTF_8));
+        }
+        assertEquals(6, MessagePacker.utf8Length("\u00e4\ud83d\uddf3"));
+    }
+}
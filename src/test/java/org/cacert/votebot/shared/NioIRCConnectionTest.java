@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NioIRCConnectionTest {
+    private IRCEventLoop loop;
+    private ServerSocket serverSocket;
+
+    static class CollectingHandler implements IRCConnection.Handler {
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private final BlockingQueue<String> closeEvents = new LinkedBlockingQueue<>();
+
+        @Override
+        public void lineReceived(final byte[] buffer, final int offset, final int length) {
+            lines.add(new String(buffer, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void connectionClosed(final IOException cause) {
+            closeEvents.add(cause == null ? "closed" : cause.getClass().getSimpleName());
+        }
+
+        String nextLine() throws InterruptedException {
+            return lines.poll(2, TimeUnit.SECONDS);
+        }
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        loop = new IRCEventLoop("test-event-loop");
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        loop.close();
+        serverSocket.close();
+    }
+
+    private NioIRCConnection connect(final IRCConnectionSettings settings, final IRCConnection.Handler handler)
+            throws IOException {
+        return new NioIRCConnection(
+                loop, serverSocket.getInetAddress().getHostAddress(), serverSocket.getLocalPort(), false,
+                settings, handler);
+    }
+
+    @Test
+    public void testSendAndReceive() throws Exception {
+        final CollectingHandler handler = new CollectingHandler();
+        final NioIRCConnection connection = connect(IRCConnectionSettings.defaults(), handler);
+
+        try (Socket peer = serverSocket.accept()) {
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(peer.getInputStream(), StandardCharsets.UTF_8));
+            connection.sendLine("NICK testbot");
+            connection.sendLine("PRIVMSG #vote :\u00e4ye");
+            assertEquals("NICK testbot", reader.readLine());
+            assertEquals("PRIVMSG #vote :\u00e4ye", reader.readLine());
+
+            final OutputStream out = peer.getOutputStream();
+            out.write("PING :one\r\n:nick!user@host PRIV".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            assertEquals("PING :one", handler.nextLine());
+            out.write("MSG #vote :aye\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            assertEquals(":nick!user@host PRIVMSG #vote :aye", handler.nextLine());
+        }
+
+        assertEquals("EOFException", handler.closeEvents.poll(2, TimeUnit.SECONDS));
+        assertFalse(connection.isOpen());
+    }
+
+    @Test
+    public void testTwoConnectionsOnOneLoop() throws Exception {
+        final CollectingHandler first = new CollectingHandler();
+        final CollectingHandler second = new CollectingHandler();
+        final NioIRCConnection firstConnection = connect(IRCConnectionSettings.defaults(), first);
+        final Socket firstPeer = serverSocket.accept();
+        final NioIRCConnection secondConnection = connect(IRCConnectionSettings.defaults(), second);
+        final Socket secondPeer = serverSocket.accept();
+
+        try {
+            secondPeer.getOutputStream().write("second\r\n".getBytes(StandardCharsets.UTF_8));
+            firstPeer.getOutputStream().write("first\r\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals("first", first.nextLine());
+            assertEquals("second", second.nextLine());
+
+            firstConnection.close();
+            assertEquals("closed", first.closeEvents.poll(2, TimeUnit.SECONDS));
+            assertTrue(secondConnection.isOpen());
+        } finally {
+            firstPeer.close();
+            secondPeer.close();
+        }
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        final CollectingHandler handler = new CollectingHandler();
+        final NioIRCConnection connection = connect(new IRCConnectionSettings(true, true, 200, 0, 0), handler);
+
+        try (Socket ignored = serverSocket.accept()) {
+            assertEquals(SocketTimeoutException.class.getSimpleName(), handler.closeEvents.poll(3, TimeUnit.SECONDS));
+            assertFalse(connection.isOpen());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutboundQueueTest {
+    private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+    private MeterRegistry registry;
+    private OutboundQueue queue;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void teardown() {
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    private void createQueue(final int burst, final long intervalMillis, final int capacity, final int threshold,
+                             final long maxAgeMillis) {
+        queue = new OutboundQueue(
+                "test", sent::add, new TokenBucket(burst, TimeUnit.MILLISECONDS.toNanos(intervalMillis),
+                System.nanoTime()), capacity, threshold, TimeUnit.MILLISECONDS.toNanos(maxAgeMillis), registry);
+    }
+
+    private String next() throws InterruptedException {
+        return sent.poll(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testLanesAreDrainedByPriority() throws Exception {
+        createQueue(1, 200, 10, 10, 10000);
+        queue.offer("PRIVMSG #vote :first", OutboundPriority.ANNOUNCEMENT, null);
+        assertEquals("PRIVMSG #vote :first", next());
+
+        queue.offer("PRIVMSG #vote :ack", OutboundPriority.ACK, "alice");
+        queue.offer("PRIVMSG #agm :announcement", OutboundPriority.ANNOUNCEMENT, null);
+        queue.offer("PONG :server", OutboundPriority.PROTOCOL, null);
+
+        assertEquals("PONG :server", next());
+        assertEquals("PRIVMSG #agm :announcement", next());
+        assertEquals("PRIVMSG #vote :ack", next());
+        assertEquals(1, registry.get("votebot.irc.send.queue.wait")
+                                .tags("connection", "test", "lane", "protocol").timer().count());
+    }
+
+    @Test
+    public void testAcksAreMergedWhenCongested() throws Exception {
+        createQueue(1, 300, 10, 1, 10000);
+        queue.offer("PRIVMSG #vote :blocker", OutboundPriority.ANNOUNCEMENT, null);
+        assertEquals("PRIVMSG #vote :blocker", next());
+
+        assertTrue(queue.offer("PRIVMSG #vote :alice AYE", OutboundPriority.ACK, "alice"));
+        assertTrue(queue.offer("PRIVMSG #vote :alice NAYE", OutboundPriority.ACK, "alice"));
+        assertTrue(queue.offer("PRIVMSG #vote :bob AYE", OutboundPriority.ACK, "bob"));
+        assertEquals(2, queue.getDepth(OutboundPriority.ACK));
+
+        assertEquals("PRIVMSG #vote :alice NAYE", next());
+        assertEquals("PRIVMSG #vote :bob AYE", next());
+        assertEquals(1.0, registry.get("votebot.irc.send.queue.merged").tags("connection", "test").counter().count(),
+                0.0);
+    }
+
+    @Test
+    public void testStaleAcksAreDropped() throws Exception {
+        createQueue(1, 300, 10, 1, 50);
+        queue.offer("PRIVMSG #vote :blocker", OutboundPriority.ANNOUNCEMENT, null);
+        assertEquals("PRIVMSG #vote :blocker", next());
+
+        queue.offer("PRIVMSG #vote :old", OutboundPriority.ACK, "alice");
+        queue.offer("PRIVMSG #vote :older", OutboundPriority.ACK, "bob");
+        Thread.sleep(100);
+        queue.offer("PRIVMSG #vote :fresh", OutboundPriority.ACK, "carol");
+
+        assertEquals("PRIVMSG #vote :fresh", next());
+        assertNull(sent.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals(2.0, registry.get("votebot.irc.send.queue.dropped")
+                                  .tags("connection", "test", "lane", "ack", "reason", "stale").counter().count(), 0.0);
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        createQueue(1, 1000, 1, 10, 10000);
+        queue.offer("PRIVMSG #vote :blocker", OutboundPriority.ANNOUNCEMENT, null);
+        assertEquals("PRIVMSG #vote :blocker", next());
+
+        assertTrue(queue.offer("PRIVMSG #vote :one", OutboundPriority.ANNOUNCEMENT, null));
+        assertFalse(queue.offer("PRIVMSG #vote :two", OutboundPriority.ANNOUNCEMENT, null));
+        assertTrue(queue.offer("PONG :a", OutboundPriority.PROTOCOL, null));
+        assertTrue(queue.offer("PONG :b", OutboundPriority.PROTOCOL, null));
+        assertEquals(2, queue.getDepth(OutboundPriority.PROTOCOL));
+        assertEquals(1.0, registry.get("votebot.irc.send.queue.depth")
+                                  .tags("connection", "test", "lane", "announcement").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void testCloseSendsRemainingLinesUnderFloodControl() throws Exception {
+        createQueue(1, 100, 10, 10, 10000);
+        queue.offer("PRIVMSG #vote :first", OutboundPriority.ANNOUNCEMENT, null);
+        assertEquals("PRIVMSG #vote :first", next());
+        queue.offer("PART #vote", OutboundPriority.ANNOUNCEMENT, null);
+        queue.offer("QUIT", OutboundPriority.PROTOCOL, null);
+        final long started = System.nanoTime();
+        queue.close();
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals("QUIT", next());
+        assertEquals("PART #vote", next());
+        assertFalse(queue.offer("PRIVMSG #vote :late", OutboundPriority.ANNOUNCEMENT, null));
+    }
+
+    @Test
+    public void testCloseDropsLinesThatCannotBeSentInTime() throws Exception {
+        createQueue(1, 10000, 10, 10, 10000);
+        queue.offer("PRIVMSG #vote :first", OutboundPriority.ANNOUNCEMENT, null);
+        assertEquals("PRIVMSG #vote :first", next());
+        queue.offer("PRIVMSG #vote :alice AYE", OutboundPriority.ACK, "alice");
+        queue.close(100);
+        assertNull(sent.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.getDepth(OutboundPriority.ACK));
+    }
+
+    @Test
+    public void testAckLatencyIsRecordedForAnswers() throws Exception {
+        createQueue(10, 100, 10, 10, 10000);
+        queue.offer("PRIVMSG #vote :announcement", OutboundPriority.ANNOUNCEMENT, null);
+        queue.offer("PRIVMSG #vote :ack", OutboundPriority.ACK, "alice", System.nanoTime());
+        assertEquals("PRIVMSG #vote :announcement", next());
+        assertEquals("PRIVMSG #vote :ack", next());
+        Thread.sleep(50);
+        assertEquals(1, registry.get("votebot.irc.ack.latency").tags("connection", "test").timer().count());
+    }
+}
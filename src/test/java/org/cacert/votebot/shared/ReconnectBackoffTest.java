@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReconnectBackoffTest {
+    @Test
+    public void testBaseDelayGrowsUpToMaximum() {
+        final ReconnectBackoff backoff = new ReconnectBackoff(1000, 60000);
+        assertEquals(1000, backoff.baseDelayMillis(0));
+        assertEquals(2000, backoff.baseDelayMillis(1));
+        assertEquals(32000, backoff.baseDelayMillis(5));
+        assertEquals(60000, backoff.baseDelayMillis(6));
+        assertEquals(60000, backoff.baseDelayMillis(1000));
+    }
+
+    @Test
+    public void testJitterStaysInUpperHalf() {
+        final ReconnectBackoff backoff = new ReconnectBackoff(1000, 60000);
+        for (int attempt = 0; attempt < 10; attempt++) {
+            for (int i = 0; i < 100; i++) {
+                final long delay = backoff.delayMillis(attempt);
+                final long base = backoff.baseDelayMillis(attempt);
+                assertTrue(delay <= base && delay >= base / 2, Long.toString(delay));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidDelays() {
+        assertThrows(IllegalArgumentException.class, () -> new ReconnectBackoff(0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new ReconnectBackoff(100, 10));
+    }
+}
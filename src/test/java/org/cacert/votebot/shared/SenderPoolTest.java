@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SenderPoolTest {
+    private SimpleMeterRegistry registry;
+    private List<FakeConnection> connections;
+    private SenderPool pool;
+
+    static class FakeConnection implements IRCConnection {
+        private final IRCConnection.Handler handler;
+        private final List<String> lines = new CopyOnWriteArrayList<>();
+        private volatile boolean open = true;
+
+        FakeConnection(final IRCConnection.Handler handler) {
+            this.handler = handler;
+        }
+
+        void receive(final String line) {
+            final byte[] data = line.getBytes(StandardCharsets.UTF_8);
+            handler.lineReceived(data, 0, data.length);
+        }
+
+        @Override
+        public void sendLine(final String line) {
+            lines.add(line);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        connections = new CopyOnWriteArrayList<>();
+        pool = new SenderPool(
+                "votebot", 3, true,
+                handler -> {
+                    final FakeConnection connection = new FakeConnection(handler);
+                    connections.add(connection);
+                    return connection;
+                },
+                (name, sender) -> new OutboundQueue(
+                        name, sender::sendLine,
+                        new TokenBucket(1000, TimeUnit.MILLISECONDS.toNanos(1), System.nanoTime()),
+                        100, 20, TimeUnit.SECONDS.toNanos(30), registry),
+                new ReconnectBackoff(10, 100), registry);
+        pool.start();
+    }
+
+    @AfterEach
+    public void teardown() {
+        pool.close();
+    }
+
+    private static void await(final FakeConnection connection, final String line) throws InterruptedException {
+        for (int i = 0; i < 100 && !connection.lines.contains(line); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(connection.lines.contains(line), line);
+    }
+
+    @Test
+    public void testSendersRegisterWithOwnNicks() {
+        assertEquals(3, connections.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("NICK votebot-" + (i + 1), connections.get(i).lines.get(0));
+        }
+        assertFalse(pool.send("NOTICE", "alice", "ack", OutboundPriority.ACK, "alice"));
+    }
+
+    @Test
+    public void testRecipientsAreSpreadOverRegisteredSenders() throws InterruptedException {
+        for (final FakeConnection connection : connections) {
+            connection.receive(":server 001 nick :Welcome");
+        }
+        assertEquals(3, pool.getRegisteredCount());
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(pool.send("NOTICE", "voter" + i, "ack", OutboundPriority.ACK, "voter" + i));
+        }
+        // queues drain asynchronously
+        Thread.sleep(200);
+        for (int i = 0; i < 30; i++) {
+            final String line = "NOTICE voter" + i + " :ack";
+            assertEquals(1, connections.stream().filter(connection -> connection.lines.contains(line)).count());
+        }
+        for (final FakeConnection connection : connections) {
+            assertTrue(connection.lines.stream().anyMatch(line -> line.startsWith("NOTICE")));
+        }
+    }
+
+    @Test
+    public void testLostSenderIsSkippedAndReconnected() throws InterruptedException {
+        for (final FakeConnection connection : connections) {
+            connection.receive(":server 001 nick :Welcome");
+        }
+        final FakeConnection lost = connections.get(0);
+        lost.handler.connectionClosed(new EOFException("connection closed by server"));
+        assertEquals(2, pool.getRegisteredCount());
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(pool.send("NOTICE", "voter" + i, "ack", OutboundPriority.ACK, null));
+        }
+        for (int i = 0; i < 100 && connections.size() < 4; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(4, connections.size());
+        await(connections.get(3), "NICK votebot-1");
+        assertTrue(lost.lines.stream().noneMatch(line -> line.startsWith("NOTICE")));
+    }
+
+    @Test
+    public void testPingIsAnswered() throws InterruptedException {
+        connections.get(1).receive("PING :irc.example.org");
+        await(connections.get(1), "PONG :irc.example.org");
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstAndRefill() {
+        final TokenBucket bucket = new TokenBucket(3, 2 * SECOND, 0);
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(2 * SECOND, bucket.tryAcquire(0));
+        assertEquals(SECOND, bucket.tryAcquire(SECOND));
+        assertEquals(0, bucket.tryAcquire(2 * SECOND));
+        assertEquals(2 * SECOND, bucket.tryAcquire(2 * SECOND));
+    }
+
+    @Test
+    public void testRefillIsCappedAtBurst() {
+        final TokenBucket bucket = new TokenBucket(2, SECOND, 0);
+        assertEquals(0, bucket.tryAcquire(100 * SECOND));
+        assertEquals(0, bucket.tryAcquire(100 * SECOND));
+        assertEquals(SECOND, bucket.tryAcquire(100 * SECOND));
+    }
+
+    @Test
+    public void testInvalidBurst() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, SECOND, 0));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VoteArchiveTest {
+    private final List<VoteArchive> archives = new ArrayList<>();
+    private final CAcertVoteMechanics mechanics = new CAcertVoteMechanics();
+    private Path directory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("vote-archive-test");
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        for (final VoteArchive archive : archives) {
+            archive.close();
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private VoteArchive open() {
+        final VoteArchive archive = new VoteArchive();
+        ReflectionTestUtils.setField(archive, "directory", directory.toString());
+        archives.add(archive);
+        return archive;
+    }
+
+    private void archiveVote(final VoteArchive archive, final String topic, final String... votes) {
+        final VoteSession session = mechanics.openVote(topic, null, 30, 120);
+        for (int i = 0; i < votes.length; i += 2) {
+            mechanics.castVote(votes[i], votes[i + 1], null);
+        }
+        mechanics.stopVote(session.getId(), "test");
+        archive.store(session, mechanics.closeVote(session.getId()));
+    }
+
+    private static List<String> topics(final List<ArchivedVote> votes) {
+        return votes.stream().map(vote -> vote.getResult().getTopic()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testQueriesAreAnsweredFromTheIndexes() {
+        final VoteArchive archive = open();
+        archiveVote(archive, "Budget 2026", "alice", "aye", "bob", "naye");
+        archiveVote(archive, "Board election", "bob", "aye");
+        archiveVote(archive, "budget of the board", "Alice", "abstain");
+
+        assertEquals(Arrays.asList("budget of the board", "Board election", "Budget 2026"),
+                topics(archive.find(null, null, null)));
+        assertEquals(Arrays.asList("budget of the board", "Budget 2026"), topics(archive.find("BUDGET", null, null)));
+        assertEquals(Collections.singletonList("budget of the board"),
+                topics(archive.find("board, budget", null, null)));
+        assertEquals(Arrays.asList("Board election", "Budget 2026"), topics(archive.find(null, null, "BOB")));
+        assertEquals(VoteType.ABSTAIN, archive.find("board", null, "alice").get(0).getVote("alice"));
+        assertTrue(archive.find("minutes", null, null).isEmpty());
+
+        final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        assertEquals(3, archive.find(null, today.toString(), null).size());
+        assertEquals(3, archive.find(null, today.toString().substring(0, 7), null).size());
+        assertEquals(3, archive.find(null, String.valueOf(today.getYear()), null).size());
+        assertTrue(archive.find(null, today.minusDays(1).toString(), null).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> archive.find(null, "yesterday", null));
+    }
+
+    @Test
+    public void testRepeatedQueriesAreCachedUntilTheNextVote() {
+        final VoteArchive archive = open();
+        archiveVote(archive, "Budget 2026", "alice", "aye");
+        final List<ArchivedVote> first = archive.find("budget", null, null);
+        assertSame(first, archive.find(" Budget ", null, null));
+
+        archiveVote(archive, "Budget 2027", "alice", "aye");
+        assertEquals(2, archive.find("budget", null, null).size());
+    }
+
+    @Test
+    public void testArchiveIsReloaded() throws IOException {
+        final VoteArchive before = open();
+        archiveVote(before, "Budget 2026", "alice", "aye", "bob", "naye", "carol", "aye");
+        before.close();
+        Files.write(directory.resolve("votes.dat"), new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        final VoteArchive after = open();
+        final ArchivedVote vote = after.find("budget", null, null).get(0);
+        assertEquals(2, vote.getResult().getCount(VoteType.AYE));
+        assertEquals(1, vote.getResult().getCount(VoteType.NAYE));
+        assertEquals(VoteType.NAYE, vote.getVote("Bob"));
+
+        // the torn record has been cut off, so votes stored after it are found again
+        archiveVote(after, "Board election", "bob", "aye");
+        after.close();
+        assertEquals(2, open().find(null, null, "bob").size());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link VoteCommand}.
+ *
+ * @author Jan Dittberner
+ */
+public class VoteCommandTest {
+    private static String vote(final VoteCommand command) {
+        return command.getText().substring(command.getVoteStart(), command.getVoteEnd());
+    }
+
+    @Test
+    public void testOwnVote() {
+        final VoteCommand command = VoteCommand.parse("  aye ", true);
+        assertTrue(command.isValid());
+        assertFalse(command.isProxy());
+        assertNull(command.getSessionId());
+        assertEquals("aye ", vote(command));
+    }
+
+    @Test
+    public void testSessionPrefix() {
+        final VoteCommand command = VoteCommand.parse(" 12 :proxy bob no", true);
+        assertEquals("12", command.getSessionId());
+        assertEquals(Collections.singletonList("bob"), command.getVoters());
+        assertEquals("no", vote(command));
+
+        assertNull(VoteCommand.parse("12: aye", false).getSessionId());
+        assertEquals("12: aye", vote(VoteCommand.parse("12: aye", false)));
+        assertNull(VoteCommand.parse("a b: aye", true).getSessionId());
+    }
+
+    @Test
+    public void testBulkProxy() {
+        final VoteCommand command = VoteCommand.parse("PROXY alice,bob , carol\tabstain", true);
+        assertTrue(command.isValid());
+        assertEquals(Arrays.asList("alice", "bob", "carol"), command.getVoters());
+        assertEquals("abstain", vote(command));
+    }
+
+    @Test
+    public void testInvalidProxy() {
+        assertFalse(VoteCommand.parse("proxy ", true).isValid());
+        assertFalse(VoteCommand.parse("proxy bob", true).isValid());
+        assertFalse(VoteCommand.parse("proxy bob aye now", true).isValid());
+        assertFalse(VoteCommand.parse("proxy ,bob aye", true).isValid());
+        // without whitespace after the keyword the message is an own vote
+        assertFalse(VoteCommand.parse("proxy", true).isProxy());
+        assertTrue(VoteCommand.parse("proxy", true).isValid());
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class VoteJournalHealthIndicatorTest {
+    @Test
+    public void testStatusFollowsJournalFailure() {
+        final VoteJournal journal = Mockito.mock(VoteJournal.class);
+        final VoteJournalHealthIndicator indicator = new VoteJournalHealthIndicator(journal);
+        assertEquals(Status.UP, indicator.health().getStatus());
+        when(journal.isFailed()).thenReturn(true);
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VoteJournalTest {
+    private final List<VoteJournal> journals = new ArrayList<>();
+    private Path directory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("vote-journal-test");
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        for (final VoteJournal journal : journals) {
+            journal.close();
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private CAcertVoteMechanics start(final int snapshotRecords) {
+        final VoteJournal journal = new VoteJournal();
+        ReflectionTestUtils.setField(journal, "directory", directory.resolve("journal").toString());
+        ReflectionTestUtils.setField(journal, "syncIntervalMillis", 10L);
+        ReflectionTestUtils.setField(journal, "snapshotRecords", snapshotRecords);
+        journals.add(journal);
+        final CAcertVoteMechanics mechanics = new CAcertVoteMechanics(new SimpleMeterRegistry(), journal);
+        mechanics.recoverVotes();
+        return mechanics;
+    }
+
+    private void stop() {
+        journals.get(journals.size() - 1).close();
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> paths = Files.list(directory.resolve("journal"))) {
+            return paths.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testOpenVotesAreRecovered() {
+        final CAcertVoteMechanics before = start(4096);
+        final VoteSession shared = before.openVote("shared", null, 30, 120);
+        final VoteSession motion = before.openVote("motion", "motion", 30, 120);
+        before.castVote("alice", "aye", null);
+        before.castVote("alice", "naye", null);
+        before.castVote("motion", "bob", "proxy carol,dave abstain", null);
+        before.stopVote(motion.getId(), "test");
+        final VoteSession closed = before.openVote("closed", null, 30, 120);
+        before.stopVote(closed.getId(), "test");
+        before.closeVote(closed.getId());
+        stop();
+
+        final CAcertVoteMechanics after = start(4096);
+        final List<VoteSession> sessions = after.getSessions();
+        assertEquals(2, sessions.size());
+        final VoteSession restoredShared = sessions.get(0);
+        assertEquals(shared.getId(), restoredShared.getId());
+        assertEquals("shared", restoredShared.getTopic());
+        assertEquals(shared.getEndTime().toEpochMilli(), restoredShared.getEndTime().toEpochMilli());
+        assertEquals(CAcertVoteMechanics.State.RUNNING, restoredShared.getState());
+        assertEquals(VoteType.NAYE, restoredShared.getVote("alice"));
+        assertEquals(1, restoredShared.getCurrentResult().getVoterCount());
+
+        final VoteSession restoredMotion = sessions.get(1);
+        assertEquals("motion", restoredMotion.getChannel());
+        assertEquals(CAcertVoteMechanics.State.STOPPING, restoredMotion.getState());
+        assertEquals(2, restoredMotion.getCurrentResult().getCount(VoteType.ABSTAIN));
+        assertNull(after.getSession(closed.getId()));
+
+        // restored votes keep counting and new votes get new ids
+        after.castVote("erin", "aye", null);
+        assertEquals(2, restoredShared.getCurrentResult().getVoterCount());
+        assertTrue(Long.parseLong(after.openVote("next", null, 30, 120).getId()) > Long.parseLong(closed.getId()));
+    }
+
+    @Test
+    public void testSnapshotsBoundTheJournal() throws IOException {
+        final CAcertVoteMechanics before = start(16);
+        before.openVote("long meeting", null, 30, 120);
+        for (int i = 0; i < 200; i++) {
+            before.castVote("voter" + i, i % 2 == 0 ? "aye" : "naye", null);
+        }
+        stop();
+        assertEquals(2, files().size(), files().toString());
+
+        final CAcertVoteMechanics after = start(16);
+        final VoteResult result = after.getCurrentResult();
+        assertEquals(100, result.getCount(VoteType.AYE));
+        assertEquals(100, result.getCount(VoteType.NAYE));
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws IOException {
+        final CAcertVoteMechanics before = start(4096);
+        before.openVote("torn", null, 30, 120);
+        before.castVote("alice", "aye", null);
+        stop();
+        final Path segment = directory.resolve("journal").resolve(
+                files().stream().filter(name -> name.endsWith(".log")).findFirst().orElseThrow(AssertionError::new));
+        Files.write(segment, new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        final CAcertVoteMechanics after = start(4096);
+        assertEquals(VoteType.AYE, after.getVote("alice"));
+        after.castVote("bob", "naye", null);
+        stop();
+
+        // the torn record has been left behind in the previous segment
+        assertEquals(VoteType.NAYE, start(4096).getVote("bob"));
+    }
+
+    @Test
+    public void testVotesAreKeptWhileTheJournalFails() throws Exception {
+        // a directory in place of the first snapshot keeps the writer from starting a segment
+        final Path blocked = Files.createDirectories(directory.resolve("journal").resolve("snapshot-1.tmp"));
+        final CAcertVoteMechanics before = start(4096);
+        final VoteJournal journal = journals.get(0);
+        awaitFailed(journal, true);
+        before.openVote("failing disk", null, 30, 120);
+        before.castVote("alice", "aye", null);
+        assertTrue(journal.isFailed());
+
+        Files.delete(blocked);
+        awaitFailed(journal, false);
+        before.castVote("bob", "naye", null);
+        stop();
+
+        final CAcertVoteMechanics after = start(4096);
+        assertEquals(VoteType.AYE, after.getVote("alice"));
+        assertEquals(VoteType.NAYE, after.getVote("bob"));
+    }
+
+    private static void awaitFailed(final VoteJournal journal, final boolean failed) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (journal.isFailed() != failed && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(failed, journal.isFailed());
+    }
+}
@@ -24,6 +24,7 @@ import org.junit.jupiter.api.Test;
 import static org.cacert.votebot.shared.VoteType.ABSTAIN;
 import static org.cacert.votebot.shared.VoteType.AYE;
 import static org.cacert.votebot.shared.VoteType.NAYE;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -46,4 +47,12 @@ public class VoteTypeTest {
             // expected behavior
         }
     }
+
+    @Test
+    public void testLookup() {
+        assertSame(AYE, VoteType.lookup(" Yes "));
+        assertSame(NAYE, VoteType.lookup("NEIN"));
+        assertNull(VoteType.lookup("foo"));
+        assertNull(VoteType.lookup(""));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.cacert.votebot.shared.VoteType.ABSTAIN;
+import static org.cacert.votebot.shared.VoteType.AYE;
+import static org.cacert.votebot.shared.VoteType.NAYE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link VoteVocabulary}.
+ *
+ * @author Jan Dittberner
+ */
+public class VoteVocabularyTest {
+    @Test
+    public void testDefaultVocabulary() {
+        final VoteVocabulary vocabulary = VoteVocabulary.getDefault();
+        assertEquals(Arrays.asList("aye", "yes", "oui", "ja"), vocabulary.getWords(AYE));
+        assertSame(AYE, vocabulary.lookup("AyE"));
+        assertSame(NAYE, vocabulary.lookup("\tnay "));
+        assertSame(ABSTAIN, vocabulary.lookup("Enthaltung"));
+        // prefixes and extensions of words are no votes
+        assertNull(vocabulary.lookup("ay"));
+        assertNull(vocabulary.lookup("ayes"));
+        assertNull(vocabulary.lookup("   "));
+    }
+
+    @Test
+    public void testLookupRegion() {
+        final StringBuilder message = new StringBuilder("proxy alice  Naye  !");
+        assertSame(NAYE, VoteVocabulary.getDefault().lookup(message, 11, 18));
+        assertNull(VoteVocabulary.getDefault().lookup(message, 11, 20));
+        assertNull(VoteVocabulary.getDefault().lookup(message, 11, 11));
+    }
+
+    @Test
+    public void testLanguages() {
+        final VoteVocabulary german = VoteVocabulary.forLanguage("de");
+        assertSame(AYE, german.lookup("DAF\u00dcR"));
+        assertSame(NAYE, german.lookup("dagegen"));
+        assertSame(AYE, german.lookup("yes"));
+        assertNull(german.lookup("oui"));
+
+        // languages without a bundle of their own use the default vocabulary
+        assertEquals(VoteVocabulary.getDefault().getWords(NAYE), VoteVocabulary.forLanguage("xx").getWords(NAYE));
+    }
+
+    @Test
+    public void testRefuseWordForSeveralTypes() {
+        final Map<VoteType, List<String>> words = new EnumMap<>(VoteType.class);
+        words.put(AYE, Collections.singletonList("ok"));
+        words.put(NAYE, Collections.singletonList("OK"));
+        assertThrows(IllegalArgumentException.class, () -> new VoteVocabulary(words));
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.simulator;
+
+import org.cacert.votebot.shared.IRCMessage;
+import org.cacert.votebot.shared.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Local IRC server for tests and load runs.
+ * <p>
+ * The simulator listens on the loopback interface only. It understands registration with optional capability
+ * negotiation (server-time, message-tags and echo-message), JOIN with several channels, PART, QUIT, PING and
+ * PRIVMSG/NOTICE to channels and to one or more comma separated nick names. Socket clients are subject to a flood
+ * limit: lines that exceed it are processed late, like the fake lag of common IRC servers. In addition to socket
+ * clients, {@link VirtualUser}s can be attached directly, which allows thousands of simulated users without a
+ * connection each.
+ *
+ * @author Jan Dittberner
+ */
+public class IRCServerSimulator implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IRCServerSimulator.class);
+    /**
+     * Server name used as source of server messages.
+     */
+    public static final String SERVER_NAME = "sim.irc.local";
+    private static final Set<String> CAPABILITIES = new HashSet<>(
+            Arrays.asList("server-time", "message-tags", "echo-message"));
+
+    private final ServerSocket serverSocket;
+    private final int floodBurst;
+    private final long floodIntervalNanos;
+    private final Map<String, Client> clients = new HashMap<>();
+    private final Map<String, Set<Client>> channels = new HashMap<>();
+    private final AtomicLong relayedMessages = new AtomicLong();
+    private final List<SocketClient> socketClients = new ArrayList<>();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Participant of the simulated network.
+     */
+    private abstract static class Client {
+        private final Set<String> capabilities = new HashSet<>();
+        private String nick;
+        private String user;
+        private boolean registered;
+        private boolean negotiating;
+
+        /**
+         * Deliver a line to the client.
+         *
+         * @param line protocol line without line terminator
+         */
+        abstract void deliver(String line);
+
+        /**
+         * Close the client's connection if it has one.
+         */
+        abstract void disconnect();
+
+        String prefix() {
+            return nick + "!" + user + "@sim.local";
+        }
+    }
+
+    /**
+     * Client that is connected through a socket.
+     */
+    private final class SocketClient extends Client implements Runnable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final TokenBucket bucket;
+
+        private SocketClient(final Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = socket.getOutputStream();
+            this.bucket = floodBurst > 0 ? new TokenBucket(floodBurst, floodIntervalNanos, System.nanoTime()) : null;
+        }
+
+        @Override
+        public void run() {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    throttle();
+                    handle(this, line);
+                }
+            } catch (final IOException e) {
+                LOGGER.debug("client {} disconnected: {}", super.nick, e.getMessage());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                quit(this, "Connection closed");
+            }
+        }
+
+        private void throttle() throws InterruptedException {
+            if (bucket == null) {
+                return;
+            }
+            long wait;
+            while ((wait = bucket.tryAcquire(System.nanoTime())) > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+
+        @Override
+        void deliver(final String line) {
+            try {
+                synchronized (out) {
+                    out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            } catch (final IOException e) {
+                LOGGER.debug("cannot deliver to {}: {}", super.nick, e.getMessage());
+            }
+        }
+
+        @Override
+        void disconnect() {
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                LOGGER.debug("error closing client socket: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Simulated user that is attached to the server without a connection. Received lines are passed to a listener
+     * on the thread that caused them.
+     */
+    public final class VirtualUser extends Client {
+        private final Consumer<String> listener;
+
+        private VirtualUser(final String nick, final Consumer<String> listener) {
+            super.nick = nick;
+            super.user = nick;
+            super.registered = true;
+            this.listener = listener;
+        }
+
+        /**
+         * @return nick name of the user
+         */
+        public String getNick() {
+            return super.nick;
+        }
+
+        /**
+         * Send a protocol line as this user.
+         *
+         * @param line protocol line
+         */
+        public void send(final String line) {
+            handle(this, line);
+        }
+
+        /**
+         * @param channel channel name including '#'
+         */
+        public void join(final String channel) {
+            send("JOIN " + channel);
+        }
+
+        /**
+         * @param target channel or nick name
+         * @param text   message text
+         */
+        public void privmsg(final String target, final String text) {
+            send("PRIVMSG " + target + " :" + text);
+        }
+
+        @Override
+        void deliver(final String line) {
+            listener.accept(line);
+        }
+
+        @Override
+        void disconnect() {
+        }
+    }
+
+    /**
+     * @param floodBurst          lines a socket client may send without delay, 0 disables flood control
+     * @param floodIntervalMillis milliseconds after which a socket client may send another line
+     * @throws IOException if the server socket cannot be opened
+     */
+    public IRCServerSimulator(final int floodBurst, final long floodIntervalMillis) throws IOException {
+        this.floodBurst = floodBurst;
+        this.floodIntervalNanos = TimeUnit.MILLISECONDS.toNanos(floodIntervalMillis);
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::accept, "irc-simulator-accept");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    /**
+     * @return TCP port the simulator listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return number of PRIVMSG and NOTICE deliveries
+     */
+    public long getRelayedMessages() {
+        return relayedMessages.get();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                final SocketClient client = new SocketClient(serverSocket.accept());
+                synchronized (this) {
+                    socketClients.add(client);
+                }
+                final Thread reader = new Thread(client, "irc-simulator-client");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (final IOException e) {
+                if (!closed) {
+                    LOGGER.warn("accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Attach a registered simulated user.
+     *
+     * @param nick     nick name
+     * @param listener receiver of lines sent to the user
+     * @return the new user
+     */
+    public synchronized VirtualUser addVirtualUser(final String nick, final Consumer<String> listener) {
+        final String key = key(nick);
+        if (clients.containsKey(key)) {
+            throw new IllegalArgumentException(String.format("nick name %s is in use", nick));
+        }
+        final VirtualUser user = new VirtualUser(nick, listener);
+        clients.put(key, user);
+        return user;
+    }
+
+    /**
+     * @param nick    nick name
+     * @param channel channel name including '#'
+     * @return true if the nick name is a member of the channel
+     */
+    public synchronized boolean isMember(final String nick, final String channel) {
+        final Client client = clients.get(key(nick));
+        final Set<Client> members = channels.get(key(channel));
+        return client != null && members != null && members.contains(client);
+    }
+
+    private static String key(final String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+    private synchronized void handle(final Client client, final String line) {
+        final byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        final IRCMessage message = new IRCMessage();
+        if (!message.parse(data, 0, data.length)) {
+            return;
+        }
+        final String command = message.getCommand().toUpperCase(Locale.ENGLISH);
+        switch (command) {
+            case "CAP":
+                handleCap(client, message);
+                break;
+            case "NICK":
+                handleNick(client, message.getParam(0));
+                break;
+            case "USER":
+                client.user = message.getParam(0);
+                welcome(client);
+                break;
+            case "PING":
+                sendFromServer(client, "PONG " + SERVER_NAME + " :" + message.getParam(message.getParamCount() - 1));
+                break;
+            case "JOIN":
+                for (final String channel : message.getParam(0).split(",")) {
+                    join(client, channel);
+                }
+                break;
+            case "PART":
+                for (final String channel : message.getParam(0).split(",")) {
+                    part(client, channel);
+                }
+                break;
+            case "PRIVMSG":
+            case "NOTICE":
+                relay(client, command, message.getParam(0), message.getParam(1));
+                break;
+            case "QUIT":
+                quit(client, message.getParamCount() > 0 ? message.getParam(0) : "Quit");
+                client.disconnect();
+                break;
+            default:
+                sendFromServer(client, "421 " + client.nick + " " + command + " :Unknown command");
+        }
+    }
+
+    private void handleCap(final Client client, final IRCMessage message) {
+        final String subCommand = message.getParam(0).toUpperCase(Locale.ENGLISH);
+        final String nick = client.nick != null ? client.nick : "*";
+        switch (subCommand) {
+            case "LS":
+                client.negotiating = true;
+                sendFromServer(client, "CAP " + nick + " LS :" + String.join(" ", CAPABILITIES));
+                break;
+            case "REQ":
+                final List<String> requested = Arrays.asList(message.getParam(1).trim().split("\\s+"));
+                if (CAPABILITIES.containsAll(requested)) {
+                    client.capabilities.addAll(requested);
+                    sendFromServer(client, "CAP " + nick + " ACK :" + String.join(" ", requested));
+                } else {
+                    sendFromServer(client, "CAP " + nick + " NAK :" + String.join(" ", requested));
+                }
+                break;
+            case "END":
+                client.negotiating = false;
+                welcome(client);
+                break;
+            default:
+                sendFromServer(client, "410 " + nick + " " + subCommand + " :Invalid CAP command");
+        }
+    }
+
+    private void handleNick(final Client client, final String nick) {
+        final Client owner = clients.get(key(nick));
+        if (owner != null && owner != client) {
+            sendFromServer(client, "433 " + (client.nick != null ? client.nick : "*") + " " + nick
+                    + " :Nickname is already in use");
+            return;
+        }
+        if (client.nick != null) {
+            clients.remove(key(client.nick));
+        }
+        client.nick = nick;
+        clients.put(key(nick), client);
+        welcome(client);
+    }
+
+    private void welcome(final Client client) {
+        if (client.registered || client.negotiating || client.nick == null || client.user == null
+                || clients.get(key(client.nick)) != client) {
+            return;
+        }
+        client.registered = true;
+        sendFromServer(client, "001 " + client.nick + " :Welcome to the simulated network " + client.prefix());
+    }
+
+    private void join(final Client client, final String channel) {
+        final Set<Client> members = channels.computeIfAbsent(key(channel), name -> new LinkedHashSet<>());
+        if (!members.add(client)) {
+            return;
+        }
+        broadcast(members, client.prefix(), "JOIN " + channel);
+        final StringBuilder names = new StringBuilder();
+        for (final Client member : members) {
+            if (names.length() > 0) {
+                names.append(' ');
+            }
+            names.append(member.nick);
+            if (names.length() > 400) {
+                sendFromServer(client, "353 " + client.nick + " = " + channel + " :" + names);
+                names.setLength(0);
+            }
+        }
+        if (names.length() > 0) {
+            sendFromServer(client, "353 " + client.nick + " = " + channel + " :" + names);
+        }
+        sendFromServer(client, "366 " + client.nick + " " + channel + " :End of /NAMES list.");
+    }
+
+    private void part(final Client client, final String channel) {
+        final Set<Client> members = channels.get(key(channel));
+        if (members == null || !members.contains(client)) {
+            return;
+        }
+        broadcast(members, client.prefix(), "PART " + channel);
+        members.remove(client);
+    }
+
+    private synchronized void quit(final Client client, final String reason) {
+        if (client.nick == null || clients.get(key(client.nick)) != client) {
+            return;
+        }
+        clients.remove(key(client.nick));
+        final Set<Client> peers = new LinkedHashSet<>();
+        for (final Set<Client> members : channels.values()) {
+            if (members.remove(client)) {
+                peers.addAll(members);
+            }
+        }
+        broadcast(peers, client.prefix(), "QUIT :" + reason);
+    }
+
+    private void relay(final Client sender, final String command, final String target, final String text) {
+        if (target == null || text == null) {
+            sendFromServer(sender, "461 " + sender.nick + " " + command + " :Not enough parameters");
+            return;
+        }
+        final String line = command + " " + target + " :" + text;
+        if (target.startsWith("#")) {
+            final Set<Client> members = channels.get(key(target));
+            if (members == null || !members.contains(sender)) {
+                sendFromServer(sender, "404 " + sender.nick + " " + target + " :Cannot send to channel");
+                return;
+            }
+            for (final Client member : members) {
+                if (member != sender || member.capabilities.contains("echo-message")) {
+                    deliver(member, sender.prefix(), line);
+                }
+            }
+        } else {
+            for (final String nick : target.split(",")) {
+                final Client recipient = clients.get(key(nick));
+                if (recipient == null) {
+                    sendFromServer(sender, "401 " + sender.nick + " " + nick + " :No such nick");
+                    continue;
+                }
+                deliver(recipient, sender.prefix(), line);
+            }
+            if (sender.capabilities.contains("echo-message")) {
+                deliver(sender, sender.prefix(), line);
+            }
+        }
+    }
+
+    private void broadcast(final Set<Client> members, final String source, final String line) {
+        for (final Client member : members) {
+            deliver(member, source, line);
+        }
+    }
+
+    private void sendFromServer(final Client client, final String line) {
+        deliver(client, SERVER_NAME, line);
+    }
+
+    private void deliver(final Client client, final String source, final String line) {
+        relayedMessages.incrementAndGet();
+        if (client.capabilities.contains("server-time")) {
+            client.deliver("@time=" + Instant.now() + " :" + source + " " + line);
+        } else {
+            client.deliver(":" + source + " " + line);
+        }
+    }
+
+    /**
+     * Stop accepting clients and close all client connections.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (final IOException e) {
+            LOGGER.debug("error closing server socket: {}", e.getMessage());
+        }
+        final List<SocketClient> connected;
+        synchronized (this) {
+            connected = new ArrayList<>(socketClients);
+        }
+        for (final SocketClient client : connected) {
+            client.disconnect();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.simulator;
+
+import org.cacert.votebot.shared.VoteType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link VoterLoadGenerator} run.
+ *
+ * @author Jan Dittberner
+ */
+public class LoadReport {
+    private final int voters;
+    private final long messagesSent;
+    private final long unacknowledged;
+    private final long[] latencies;
+    private final Map<VoteType, Integer> expected;
+    private final Map<VoteType, Integer> announced;
+    private final long durationMillis;
+
+    /**
+     * @param voters         number of simulated voters
+     * @param messagesSent   number of vote messages sent
+     * @param unacknowledged number of vote messages without acknowledgement at the end of the run
+     * @param latencies      vote-to-acknowledgement latencies in nanoseconds
+     * @param expected       tally of the votes that have been cast
+     * @param announced      tally announced by the bot, empty if no result has been announced
+     * @param durationMillis duration of the run
+     */
+    LoadReport(
+            final int voters, final long messagesSent, final long unacknowledged, final long[] latencies,
+            final Map<VoteType, Integer> expected, final Map<VoteType, Integer> announced, final long durationMillis) {
+        this.voters = voters;
+        this.messagesSent = messagesSent;
+        this.unacknowledged = unacknowledged;
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+        this.expected = Collections.unmodifiableMap(new EnumMap<>(expected));
+        this.announced = announced.isEmpty()
+                ? Collections.emptyMap() : Collections.unmodifiableMap(new EnumMap<>(announced));
+        this.durationMillis = durationMillis;
+    }
+
+    public int getVoters() {
+        return voters;
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getAcknowledged() {
+        return latencies.length;
+    }
+
+    public long getUnacknowledged() {
+        return unacknowledged;
+    }
+
+    public Map<VoteType, Integer> getExpected() {
+        return expected;
+    }
+
+    public Map<VoteType, Integer> getAnnounced() {
+        return announced;
+    }
+
+    /**
+     * @return true if the bot announced a result that matches the cast votes
+     */
+    public boolean isAccurate() {
+        return expected.equals(announced);
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return acknowledgement latency in milliseconds at the percentile, -1 if nothing has been acknowledged
+     */
+    public double getLatencyMillis(final double percentile) {
+        if (latencies.length == 0) {
+            return -1;
+        }
+        final int index = Math.max(0, Math.min((int) Math.ceil(percentile / 100 * latencies.length) - 1,
+                latencies.length - 1));
+        return latencies[index] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d voters, %d messages in %d ms, %d acknowledged, %d unacknowledged, "
+                        + "ack latency p50=%.1f ms p90=%.1f ms p99=%.1f ms max=%.1f ms, "
+                        + "expected %s, announced %s, %s",
+                voters, messagesSent, durationMillis, getAcknowledged(), unacknowledged,
+                getLatencyMillis(50), getLatencyMillis(90), getLatencyMillis(99), getLatencyMillis(100),
+                expected, announced, isAccurate() ? "accurate" : "INACCURATE");
+    }
+}
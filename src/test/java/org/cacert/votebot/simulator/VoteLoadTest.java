@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.simulator;
+
+import org.cacert.votebot.shared.CAcertVoteMechanics;
+import org.cacert.votebot.shared.IRCClient;
+import org.cacert.votebot.vote.AckMode;
+import org.cacert.votebot.vote.CAcertVoteBot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs simulated meetings against a complete vote bot. The large meeting is tagged "load" and runs with
+ * {@code gradle loadTest}, its size is set with the system properties {@code load.voters},
+ * {@code load.timeoutSecs}, {@code load.ackMode}, {@code load.serverFloodBurst} and
+ * {@code load.serverFloodIntervalMillis}.
+ */
+public class VoteLoadTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VoteLoadTest.class);
+    private static final String BOT_NICK = "votebot";
+
+    private IRCServerSimulator simulator;
+    private IRCClient client;
+
+    @AfterEach
+    public void teardown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    private void startBot(final long timeoutSecs, final String ackMode) throws Exception {
+        client = new IRCClient();
+        ReflectionTestUtils.setField(client, "floodBurst", 100);
+        ReflectionTestUtils.setField(client, "floodIntervalMillis", 1);
+        ReflectionTestUtils.setField(client, "sendQueueCapacity", 100000);
+        final CAcertVoteBot bot = new CAcertVoteBot(new CAcertVoteMechanics(), client);
+        ReflectionTestUtils.setField(bot, "meetingChannel", "meeting");
+        ReflectionTestUtils.setField(bot, "voteChannel", "vote");
+        ReflectionTestUtils.setField(bot, "timeout", timeoutSecs);
+        ReflectionTestUtils.setField(bot, "warn", timeoutSecs / 2);
+        ReflectionTestUtils.setField(bot, "ackMode", AckMode.valueOf(ackMode));
+        bot.run("-h", "127.0.0.1", "-p", Integer.toString(simulator.getPort()), "-n", BOT_NICK, "--no-ssl");
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!(simulator.isMember(BOT_NICK, "#meeting") && simulator.isMember(BOT_NICK, "#vote"))) {
+            assertTrue(System.nanoTime() < deadline, "the bot did not join the channels");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void testSmallMeeting() throws Exception {
+        simulator = new IRCServerSimulator(100, 1);
+        startBot(5, "CHANNEL");
+        final LoadReport report = new VoterLoadGenerator(
+                simulator, BOT_NICK, "meeting", "vote", 200, 0.2, 0.1, 42).run("small meeting", 4, 20000);
+        LOGGER.info("{}", report);
+
+        assertTrue(report.isAccurate(), report.toString());
+        assertEquals(0, report.getUnacknowledged(), report.toString());
+    }
+
+    @Test
+    public void testSmallMeetingWithDigests() throws Exception {
+        simulator = new IRCServerSimulator(100, 1);
+        startBot(5, "DIGEST");
+        final LoadReport report = new VoterLoadGenerator(
+                simulator, BOT_NICK, "meeting", "vote", 200, 0.2, 0.1, 43).run("digest meeting", 4, 20000);
+        LOGGER.info("{}", report);
+
+        assertTrue(report.isAccurate(), report.toString());
+        assertEquals(0, report.getUnacknowledged(), report.toString());
+    }
+
+    @Test
+    @Tag("load")
+    public void testLargeMeeting() throws Exception {
+        final int voters = Integer.getInteger("load.voters", 5000);
+        final long timeoutSecs = Long.getLong("load.timeoutSecs", 30);
+        simulator = new IRCServerSimulator(
+                Integer.getInteger("load.serverFloodBurst", 0), Long.getLong("load.serverFloodIntervalMillis", 0));
+        startBot(timeoutSecs, System.getProperty("load.ackMode", "CHANNEL"));
+        final LoadReport report = new VoterLoadGenerator(
+                simulator, BOT_NICK, "meeting", "vote", voters, 0.2, 0.1, 4711)
+                .run("large meeting", 16, TimeUnit.SECONDS.toMillis(timeoutSecs * 2));
+        LOGGER.info("{}", report);
+
+        assertTrue(report.isAccurate(), report.toString());
+    }
+}
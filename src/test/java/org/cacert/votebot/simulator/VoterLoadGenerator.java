@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.simulator;
+
+import org.cacert.votebot.shared.VoteType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Simulates a meeting with many voters against a vote bot that is connected to an {@link IRCServerSimulator}.
+ * <p>
+ * A chair starts the vote with a private message to the bot. Each voter then casts a vote in the vote channel, some
+ * voters change their vote right away and some additionally cast a proxy vote for an absent member. The time from
+ * sending a vote until an acknowledgement naming the voter arrives, in the vote channel, in a digest or as a private
+ * message, is recorded. The tally announced in the meeting channel at the end of the vote is compared with the
+ * votes that have been cast.
+ *
+ * @author Jan Dittberner
+ */
+public class VoterLoadGenerator {
+    private static final Pattern RESULT_RE = Pattern.compile("(AYE|NAYE|ABSTAIN): (\\d+)");
+    private static final String RESULTS_HEADER = "Results: for vote on";
+    private static final String VOTE_STARTED = "Please cast your vote in the next";
+    private static final String ACK_PREFIX = "Thanks ";
+    private static final String MULTI_TARGET_ACK = "Thanks, I count your vote as";
+    private static final Pattern DIGEST_ENTRY_RE = Pattern.compile("([^\\s=,]+)=[A-Z]+(?: \\(([^)]+)\\))?");
+    private static final String DIGEST_PREFIX = "counted: ";
+    private static final String[][] WORDS = {{"aye", "yes", "ja"}, {"naye", "no", "nein"}, {"abstain", "abs"}};
+
+    private final IRCServerSimulator simulator;
+    private final String botNick;
+    private final String meetingChannel;
+    private final String voteChannel;
+    private final int voterCount;
+    private final double changeRatio;
+    private final double proxyRatio;
+    private final long seed;
+
+    private final Map<String, Voter> voters = new ConcurrentHashMap<>();
+    private final Map<String, VoteType> expected = new ConcurrentHashMap<>();
+    private final Map<VoteType, Integer> announced = new EnumMap<>(VoteType.class);
+    private final List<Long> latencies = new ArrayList<>();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final CountDownLatch voteStarted = new CountDownLatch(1);
+    private final CountDownLatch resultsAnnounced = new CountDownLatch(1);
+    private boolean collectingResults;
+
+    /**
+     * A simulated voter and its unacknowledged votes.
+     */
+    private final class Voter {
+        private final IRCServerSimulator.VirtualUser user;
+        private final SplittableRandom random;
+        private long pendingSince = -1;
+        private int pending;
+
+        private Voter(final String nick, final long seed) {
+            this.user = simulator.addVirtualUser(nick, line -> privateLine(this, line));
+            this.random = new SplittableRandom(seed);
+        }
+
+        private void vote(final String text) {
+            synchronized (this) {
+                if (pending++ == 0) {
+                    pendingSince = System.nanoTime();
+                }
+            }
+            messagesSent.incrementAndGet();
+            user.privmsg("#" + voteChannel, text);
+        }
+
+        /**
+         * An acknowledgement covers all votes sent so far, acknowledgements of votes that have been superseded may
+         * have been merged by the bot.
+         */
+        private void acknowledged(final long now) {
+            final long since;
+            synchronized (this) {
+                if (pending == 0) {
+                    return;
+                }
+                since = pendingSince;
+                pending = 0;
+            }
+            synchronized (latencies) {
+                latencies.add(now - since);
+            }
+        }
+
+        private synchronized int getPending() {
+            return pending;
+        }
+
+        private void act(final int index) {
+            final String nick = user.getNick();
+            VoteType choice = randomType();
+            vote(word(choice));
+            if (random.nextDouble() < changeRatio) {
+                choice = VoteType.values()[(choice.ordinal() + 1 + random.nextInt(2)) % VoteType.values().length];
+                vote(word(choice));
+            }
+            expected.put(nick, choice);
+            if (random.nextDouble() < proxyRatio) {
+                final String absent = "absent-" + index;
+                final VoteType proxyChoice = randomType();
+                vote("proxy " + absent + " " + word(proxyChoice));
+                expected.put(absent, proxyChoice);
+            }
+        }
+
+        private VoteType randomType() {
+            return VoteType.values()[random.nextInt(VoteType.values().length)];
+        }
+
+        private String word(final VoteType type) {
+            final String[] words = WORDS[type.ordinal()];
+            return words[random.nextInt(words.length)];
+        }
+    }
+
+    /**
+     * @param simulator      server the bot is connected to
+     * @param botNick        nick name of the vote bot
+     * @param meetingChannel meeting channel name without '#'
+     * @param voteChannel    vote channel name without '#'
+     * @param voterCount     number of voters
+     * @param changeRatio    share of voters that change their vote
+     * @param proxyRatio     share of voters that cast a proxy vote
+     * @param seed           seed for the voters' choices
+     */
+    public VoterLoadGenerator(
+            final IRCServerSimulator simulator, final String botNick, final String meetingChannel,
+            final String voteChannel, final int voterCount, final double changeRatio, final double proxyRatio,
+            final long seed) {
+        this.simulator = simulator;
+        this.botNick = botNick;
+        this.meetingChannel = meetingChannel;
+        this.voteChannel = voteChannel;
+        this.voterCount = voterCount;
+        this.changeRatio = changeRatio;
+        this.proxyRatio = proxyRatio;
+        this.seed = seed;
+    }
+
+    /**
+     * Run a vote. The bot has to be in both channels already and has to close the vote by itself.
+     *
+     * @param topic         topic of the vote
+     * @param threads       number of threads sending the votes
+     * @param timeoutMillis maximum time to wait for the results and the outstanding acknowledgements
+     * @return report of the run
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public LoadReport run(final String topic, final int threads, final long timeoutMillis)
+            throws InterruptedException {
+        final long started = System.nanoTime();
+        final IRCServerSimulator.VirtualUser chair = simulator.addVirtualUser("chair", this::meetingLine);
+        chair.join("#" + meetingChannel);
+        final IRCServerSimulator.VirtualUser observer = simulator.addVirtualUser("observer", this::voteChannelLine);
+        observer.join("#" + voteChannel);
+        final List<Voter> crowd = new ArrayList<>(voterCount);
+        for (int i = 1; i <= voterCount; i++) {
+            final Voter voter = new Voter("voter-" + i, seed + i);
+            voters.put(voter.user.getNick(), voter);
+            voter.user.join("#" + voteChannel);
+            crowd.add(voter);
+        }
+
+        chair.privmsg(botNick, "vote " + topic);
+        if (!voteStarted.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("the bot did not start the vote");
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < crowd.size(); i++) {
+            final Voter voter = crowd.get(i);
+            final int index = i + 1;
+            executor.execute(() -> voter.act(index));
+        }
+        executor.shutdown();
+        executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        resultsAnnounced.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        // announcements overtake acknowledgements, give the remaining ones a chance to arrive
+        long unacknowledged = countUnacknowledged();
+        while (unacknowledged > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            unacknowledged = countUnacknowledged();
+        }
+
+        final Map<VoteType, Integer> tally = new EnumMap<>(VoteType.class);
+        for (final VoteType type : VoteType.values()) {
+            tally.put(type, 0);
+        }
+        for (final VoteType type : expected.values()) {
+            tally.merge(type, 1, Integer::sum);
+        }
+        final long[] measured;
+        synchronized (latencies) {
+            measured = latencies.stream().mapToLong(Long::longValue).toArray();
+        }
+        final Map<VoteType, Integer> result;
+        synchronized (announced) {
+            result = new EnumMap<>(VoteType.class);
+            if (announced.size() == VoteType.values().length) {
+                result.putAll(announced);
+            }
+        }
+        return new LoadReport(voterCount, messagesSent.get(), unacknowledged, measured, tally, result,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private long countUnacknowledged() {
+        long count = 0;
+        for (final Voter voter : voters.values()) {
+            count += voter.getPending();
+        }
+        return count;
+    }
+
+    private void meetingLine(final String line) {
+        synchronized (announced) {
+            if (line.contains(RESULTS_HEADER)) {
+                collectingResults = true;
+            }
+            if (!collectingResults) {
+                return;
+            }
+            final Matcher matcher = RESULT_RE.matcher(line);
+            while (matcher.find()) {
+                announced.put(VoteType.valueOf(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            }
+            if (announced.size() == VoteType.values().length) {
+                collectingResults = false;
+                resultsAnnounced.countDown();
+            }
+        }
+    }
+
+    private void voteChannelLine(final String line) {
+        if (line.contains(VOTE_STARTED)) {
+            voteStarted.countDown();
+        }
+        final int digest = line.indexOf(DIGEST_PREFIX);
+        if (digest >= 0) {
+            digestAcknowledgements(line.substring(digest + DIGEST_PREFIX.length()));
+        } else {
+            acknowledgements(line);
+        }
+    }
+
+    private void privateLine(final Voter voter, final String line) {
+        // channel acknowledgements are evaluated once by the observer instead of by every voter
+        if (line.contains(" PRIVMSG #") || line.contains(" JOIN #")) {
+            return;
+        }
+        if (line.contains(MULTI_TARGET_ACK)) {
+            voter.acknowledged(System.nanoTime());
+        } else {
+            acknowledgements(line);
+        }
+    }
+
+    /**
+     * Acknowledge the voters of a digest with entries like "alice=AYE" or "carol=NAYE (bob)" for proxy votes.
+     */
+    private void digestAcknowledgements(final String entries) {
+        final long now = System.nanoTime();
+        final Matcher matcher = DIGEST_ENTRY_RE.matcher(entries);
+        while (matcher.find()) {
+            final Voter voter = voters.get(matcher.group(2) != null ? matcher.group(2) : matcher.group(1));
+            if (voter != null) {
+                voter.acknowledged(now);
+            }
+        }
+    }
+
+    /**
+     * Find all acknowledgements in a line, which may contain several merged acknowledgements.
+     */
+    private void acknowledgements(final String line) {
+        final long now = System.nanoTime();
+        int start = line.indexOf(ACK_PREFIX);
+        while (start >= 0) {
+            final int nickStart = start + ACK_PREFIX.length();
+            int nickEnd = line.indexOf(' ', nickStart);
+            if (nickEnd < 0) {
+                nickEnd = line.length();
+            }
+            final Voter voter = voters.get(line.substring(nickStart, nickEnd));
+            if (voter != null) {
+                voter.acknowledged(now);
+            }
+            start = line.indexOf(ACK_PREFIX, nickEnd);
+        }
+    }
+}
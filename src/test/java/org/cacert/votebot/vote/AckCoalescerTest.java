@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.vote;
+
+import org.cacert.votebot.shared.CAcertVoteMechanics;
+import org.cacert.votebot.shared.IRCClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ResourceBundle;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AckCoalescerTest {
+    private final ResourceBundle messages = ResourceBundle.getBundle("messages");
+    private IRCClient ircClient;
+    private CAcertVoteMechanics mechanics;
+    private AckCoalescer coalescer;
+
+    @BeforeEach
+    public void setup() {
+        ircClient = mock(IRCClient.class);
+        mechanics = new CAcertVoteMechanics();
+        mechanics.callVote("coalescing", 60, 120);
+    }
+
+    @AfterEach
+    public void teardown() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    public void testDigestKeepsLastVoteOfEachVoter() throws Exception {
+        coalescer = new AckCoalescer(ircClient, AckMode.DIGEST, "vote", 60000, 4, messages);
+        coalescer.add(mechanics.castVote("alice", "aye", null));
+        coalescer.add(mechanics.castVote("bob", "proxy carol abstain", null));
+        coalescer.add(mechanics.castVote("alice", "naye", null));
+        coalescer.flush();
+
+        verify(ircClient).sendAckDigest("counted: ", Arrays.asList("carol=ABSTAIN (bob)", "alice=NAYE"), "vote");
+        coalescer.flush();
+        verifyNoMoreInteractions(ircClient);
+    }
+
+    @Test
+    public void testMultiTargetNoticesPerVoteType() throws Exception {
+        coalescer = new AckCoalescer(ircClient, AckMode.MULTI_NOTICE, "vote", 60000, 4, messages);
+        coalescer.add(mechanics.castVote("alice", "aye", null));
+        coalescer.add(mechanics.castVote("bob", "no", null));
+        coalescer.add(mechanics.castVote("dave", "yes", null));
+        coalescer.flush();
+
+        verify(ircClient).sendMultiTargetAck("Thanks, I count your vote as AYE", Arrays.asList("alice", "dave"), 4);
+        verify(ircClient).sendMultiTargetAck("Thanks, I count your vote as NAYE", Collections.singletonList("bob"), 4);
+    }
+
+    @Test
+    public void testWindowFlushesByItself() throws Exception {
+        coalescer = new AckCoalescer(ircClient, AckMode.DIGEST, "vote", 50, 4, messages);
+        coalescer.add(mechanics.castVote("alice", "aye", null));
+
+        verify(ircClient, timeout(2000)).sendAckDigest(anyString(), anyList(), anyString());
+    }
+}
@@ -20,6 +20,12 @@ package org.cacert.votebot.vote;
 
 import org.cacert.votebot.shared.CAcertVoteMechanics;
 import org.cacert.votebot.shared.IRCClient;
+import org.cacert.votebot.shared.IRCMessage;
+import org.cacert.votebot.shared.VoteArchive;
+import org.cacert.votebot.shared.VoteCommand;
+import org.cacert.votebot.shared.VoteResult;
+import org.cacert.votebot.shared.VoteSession;
+import org.cacert.votebot.shared.VoteType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,9 +34,15 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -51,6 +63,8 @@ public class CAcertVoteBotTest {
     @BeforeEach
     public void setupTest() {
         messages = ResourceBundle.getBundle("messages");
+        // the mocks are shared by the tests of the application context
+        reset(ircClient, mechanics);
         bot = new CAcertVoteBot(mechanics, ircClient);
         ReflectionTestUtils.setField(bot, "meetingChannel", "meeting");
         ReflectionTestUtils.setField(bot, "voteChannel", "vote");
@@ -60,9 +74,11 @@ public class CAcertVoteBotTest {
 
     @Test
     public void testStartVoteBot() throws Exception {
-        when(mechanics.callVote(TEST_VOTE_TOPIC, 30, 120)).thenReturn(messages.getString("vote_started"));
-        when(mechanics.getTopic()).thenReturn(TEST_VOTE_TOPIC);
+        final VoteSession session = new CAcertVoteMechanics().openVote(TEST_VOTE_TOPIC, null, 30, 120);
+        when(mechanics.openVote(TEST_VOTE_TOPIC, null, 30, 120)).thenReturn(session);
         bot.privateMessage("test", String.format("vote %s", TEST_VOTE_TOPIC));
+        verify(ircClient).sendPrivate(messages.getString("vote_started"), "test");
+        verify(ircClient).logVoteStart("vote", TEST_VOTE_TOPIC);
         verify(ircClient).send(
                 MessageFormat.format(messages.getString("new_vote"), "test", TEST_VOTE_TOPIC),
                 "meeting");
@@ -75,6 +91,37 @@ public class CAcertVoteBotTest {
         verify(ircClient).send(
                 MessageFormat.format(messages.getString("cast_vote_in_next_seconds"), 120),
                 "vote");
+        verify(ircClient).send(
+                MessageFormat.format(messages.getString("cast_vote_with_session_prefix"), session.getId()),
+                "vote");
+    }
+
+    @Test
+    public void testStartVoteInSessionChannel() throws Exception {
+        ReflectionTestUtils.setField(bot, "sessionChannels", new String[]{"motion1", "motion2"});
+        final CAcertVoteMechanics real = new CAcertVoteMechanics();
+        when(mechanics.openVote(TEST_VOTE_TOPIC, "motion1", 30, 120))
+                .thenThrow(new IllegalStateException(messages.getString("vote_running")));
+        when(mechanics.openVote(TEST_VOTE_TOPIC, "motion2", 30, 120))
+                .thenReturn(real.openVote(TEST_VOTE_TOPIC, "motion2", 30, 120));
+        bot.privateMessage("test", String.format("vote %s", TEST_VOTE_TOPIC));
+        verify(ircClient).logVoteStart("motion2", TEST_VOTE_TOPIC);
+        verify(ircClient).send(
+                MessageFormat.format(messages.getString("cast_vote_in_vote_channel"), "motion2"),
+                "meeting");
+        verify(ircClient).send(
+                MessageFormat.format(messages.getString("cast_vote_in_next_seconds"), 120),
+                "motion2");
+    }
+
+    @Test
+    public void testCancelNeedsIdWhileSeveralVotesAreRunning() throws Exception {
+        final CAcertVoteMechanics real = new CAcertVoteMechanics();
+        when(mechanics.getSessions()).thenReturn(Arrays.asList(
+                real.openVote("first", null, 30, 120), real.openVote("second", null, 30, 120)));
+        bot.privateMessage("test", "cancel");
+        verify(ircClient).sendPrivate(messages.getString("vote_session_ambiguous_private"), "test");
+        verify(mechanics, never()).stopVote(anyString(), anyString());
     }
 
     @Test
@@ -83,4 +130,112 @@ public class CAcertVoteBotTest {
         verify(ircClient).sendPrivate(messages.getString("help_message"), "test");
         verifyNoMoreInteractions(ircClient);
     }
+
+    @Test
+    public void testArchiveQuery() throws Exception {
+        final VoteArchive archive = VoteArchive.inMemory();
+        bot = new CAcertVoteBot(mechanics, ircClient, archive);
+        final CAcertVoteMechanics real = new CAcertVoteMechanics();
+        final VoteSession session = real.openVote(TEST_VOTE_TOPIC, null, 30, 120);
+        real.castVote("alice", "aye", null);
+        real.stopVote(session.getId(), "test");
+        final VoteResult result = real.closeVote(session.getId());
+        archive.store(session, result);
+
+        bot.privateMessage("test", "archive voter:Alice fake ELECTION");
+        verify(ircClient).sendPrivate(MessageFormat.format(
+                messages.getString("archive_ballot"),
+                MessageFormat.format(messages.getString("archive_vote"), session.getId(), TEST_VOTE_TOPIC,
+                        archive.find(null, null, null).get(0).getDay().toString(), result.toString()),
+                "Alice", VoteType.AYE), "test");
+        bot.privateMessage("test", "archive date:2000 fake");
+        verify(ircClient).sendPrivate(messages.getString("archive_none"), "test");
+        bot.privateMessage("test", "archive date:yesterday");
+        verify(ircClient).sendPrivate(
+                MessageFormat.format(messages.getString("archive_invalid_date"), "yesterday"), "test");
+        verifyNoMoreInteractions(ircClient);
+    }
+
+    @Test
+    public void testShutdownSendsPendingAcknowledgements() throws Exception {
+        ReflectionTestUtils.setField(bot, "ackMode", AckMode.DIGEST);
+        final CAcertVoteMechanics real = new CAcertVoteMechanics();
+        real.openVote(TEST_VOTE_TOPIC, null, 30, 120);
+        when(mechanics.castVote("alice", "aye", null)).thenReturn(real.castVote("alice", "aye", null));
+
+        bot.publicMessage("alice", "vote", "aye");
+        verifyNoInteractions(ircClient);
+        bot.shutdown();
+        verify(ircClient).sendAckDigest(messages.getString("ack_digest") + " ",
+                Collections.singletonList(MessageFormat.format(messages.getString("ack_digest_vote"), "alice", "AYE")),
+                "vote");
+    }
+
+    @Test
+    public void testRecoveredVotesAreResumedOnceTheChannelsAreJoined() throws Exception {
+        final VoteSession expired = new CAcertVoteMechanics().openVote(TEST_VOTE_TOPIC, null, 0, 0);
+        final CompletableFuture<Void> joined = new CompletableFuture<>();
+        when(ircClient.initializeFromArgs(any())).thenReturn(ircClient);
+        when(ircClient.joinAll(any())).thenReturn(joined);
+        when(mechanics.getSessions()).thenReturn(Collections.singletonList(expired));
+        when(mechanics.stopVote(expired.getId(), "timeout")).thenReturn("stopped");
+
+        bot.run("-n", "testbot");
+        verify(mechanics).recoverVotes();
+        verify(ircClient, after(200).never()).send(anyString(), anyString());
+        joined.complete(null);
+        verify(ircClient, timeout(1000)).send("stopped", "vote");
+        bot.shutdown();
+    }
+
+    @Test
+    public void testChannelNamesAreMatchedIgnoringCase() throws Exception {
+        final CAcertVoteMechanics real = new CAcertVoteMechanics();
+        bot = new CAcertVoteBot(real, ircClient);
+        ReflectionTestUtils.setField(bot, "voteChannel", "vote");
+        real.openVote(TEST_VOTE_TOPIC, null, 30, 120);
+
+        final IRCMessage echoed = privmsg("alice", "#Vote", "aye");
+        assertEquals("#vote alice", bot.publicMessageOrder(echoed));
+        bot.publicMessage(echoed);
+        bot.publicMessage("bob", "VOTE", "naye");
+        assertEquals(VoteType.AYE, real.getVote("alice"));
+        assertEquals(VoteType.NAYE, real.getVote("bob"));
+        verify(ircClient).sendAck(
+                MessageFormat.format(messages.getString("count_vote"), "alice", "AYE"), "vote", "alice");
+    }
+
+    private static IRCMessage privmsg(final String nick, final String channel, final String text) {
+        final byte[] line = String.format(":%s!user@example.org PRIVMSG %s :%s", nick, channel, text)
+                                  .getBytes(StandardCharsets.UTF_8);
+        final IRCMessage message = new IRCMessage();
+        message.parse(line, 0, line.length);
+        return message;
+    }
+
+    @Test
+    public void testVotesAreParsedOnceAndOrderedByVoter() throws Exception {
+        final CAcertVoteMechanics real = new CAcertVoteMechanics();
+        bot = new CAcertVoteBot(real, ircClient);
+        ReflectionTestUtils.setField(bot, "voteChannel", "vote");
+        real.openVote(TEST_VOTE_TOPIC, null, 30, 120);
+
+        final IRCMessage own = privmsg("alice", "#vote", "aye");
+        final IRCMessage proxy = privmsg("bob", "#vote", "proxy alice naye");
+        final IRCMessage bulk = privmsg("bob", "#vote", "proxy alice,carol abstain");
+        // a proxy vote for a single voter is ordered with the voter's own votes, a bulk proxy vote with the holder's
+        assertEquals("#vote alice", bot.publicMessageOrder(own));
+        assertEquals("#vote alice", bot.publicMessageOrder(proxy));
+        assertEquals("#vote bob", bot.publicMessageOrder(bulk));
+        assertTrue(bulk.attachment() instanceof VoteCommand);
+        assertEquals("#meeting", bot.publicMessageOrder(privmsg("alice", "#meeting", "aye")));
+
+        bot.publicMessage(own);
+        bot.publicMessage(proxy);
+        assertEquals(VoteType.NAYE, real.getVote("alice"));
+        // whichever vote is counted last wins
+        bot.publicMessage(bulk);
+        assertEquals(VoteType.ABSTAIN, real.getVote("alice"));
+        assertEquals(VoteType.ABSTAIN, real.getVote("carol"));
+    }
 }
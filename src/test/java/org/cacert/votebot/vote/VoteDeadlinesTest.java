@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026  Jan Dittberner
+ *
+ * This file is part of CAcert VoteBot.
+ *
+ * CAcert VoteBot is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * CAcert VoteBot is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * CAcert VoteBot.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.cacert.votebot.vote;
+
+import org.cacert.votebot.shared.CAcertVoteMechanics;
+import org.cacert.votebot.shared.VoteSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VoteDeadlinesTest {
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private CAcertVoteMechanics mechanics;
+    private VoteDeadlines deadlines;
+    private long startNanos;
+    private long stopNanos;
+    private long closeNanos;
+
+    @BeforeEach
+    public void setup() {
+        mechanics = new CAcertVoteMechanics();
+        deadlines = new VoteDeadlines(new VoteDeadlines.Listener() {
+            @Override
+            public void warn(final VoteSession session, final Duration timeLeft) {
+                events.add("warn " + timeLeft.toMillis());
+            }
+
+            @Override
+            public boolean stop(final VoteSession session) {
+                try {
+                    mechanics.stopVote(session.getId(), "timeout");
+                } catch (final IllegalStateException e) {
+                    return false;
+                }
+                stopNanos = System.nanoTime();
+                events.add("stop");
+                return true;
+            }
+
+            @Override
+            public void close(final VoteSession session) {
+                closeNanos = System.nanoTime();
+                mechanics.closeVote(session.getId());
+                events.add("close");
+                closed.countDown();
+            }
+        }, Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    public void teardown() {
+        deadlines.close();
+    }
+
+    @Test
+    public void testDeadlinesFireInOrder() throws Exception {
+        final VoteSession session = mechanics.openVote("deadlines", null, 0, 1);
+        startNanos = System.nanoTime();
+        deadlines.schedule(session, Duration.ofMillis(300),
+                Arrays.asList(Duration.ofMillis(200), Duration.ofMillis(100), Duration.ofMillis(400)));
+        assertEquals(3, deadlines.getPendingCount(session.getId()));
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        // the warning before the start of the vote is skipped
+        assertEquals(Arrays.asList("warn 200", "warn 100", "stop", "close"), events);
+        assertTrue(stopNanos - startNanos >= TimeUnit.MILLISECONDS.toNanos(300));
+        assertTrue(closeNanos - stopNanos >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, deadlines.getPendingCount(session.getId()));
+    }
+
+    @Test
+    public void testEarlyStopReschedulesClose() throws Exception {
+        final VoteSession session = mechanics.openVote("early stop", null, 0, 60);
+        deadlines.schedule(session, Duration.ofSeconds(60), Collections.singletonList(Duration.ofSeconds(30)));
+
+        mechanics.stopVote(session.getId(), "chair");
+        deadlines.stopped(session);
+        assertEquals(1, deadlines.getPendingCount(session.getId()));
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("close"), events);
+        assertNull(mechanics.getSession(session.getId()));
+    }
+
+    @Test
+    public void testCancelDropsDeadlines() throws Exception {
+        final VoteSession session = mechanics.openVote("canceled", null, 0, 1);
+        deadlines.schedule(session, Duration.ofMillis(100), Collections.singletonList(Duration.ofMillis(50)));
+        deadlines.cancel(session.getId());
+        assertEquals(0, deadlines.getPendingCount(session.getId()));
+
+        assertFalse(closed.await(300, TimeUnit.MILLISECONDS));
+        assertTrue(events.isEmpty());
+    }
+}